@@ -0,0 +1,34 @@
+package edu.ntnu.stud.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result reports the allocation rate next to
+ * the throughput. Takes the usual JMH command line options, for example a benchmark name pattern
+ * or "-p size=100,10000" to run fewer register sizes.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class BenchmarkRunner {
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args JMH command line options.
+   * @throws RunnerException             if a benchmark fails.
+   * @throws CommandLineOptionException if the options can not be parsed.
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    new Runner(new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
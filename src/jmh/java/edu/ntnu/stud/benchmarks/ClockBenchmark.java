@@ -0,0 +1,80 @@
+package edu.ntnu.stud.benchmarks;
+
+import edu.ntnu.stud.models.DepartureRegister;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of updateTimeTrainDepartureRegister while the clock runs through a whole day.
+ *
+ * <p>Advancing the clock removes the departed trains, so it can not be repeated on the same
+ * register. Every iteration therefore fills a new register and advances the clock one minute at
+ * a time from midnight to 23:59, which expires every departure. The result is the average time
+ * of one clock update.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ClockBenchmark {
+  private static final int MINUTES = 24 * 60 - 1;
+  private static final LocalTime[] MINUTES_OF_DAY = new LocalTime[MINUTES + 1];
+
+  static {
+    for (int minute = 0; minute <= MINUTES; minute++) {
+      MINUTES_OF_DAY[minute] = LocalTime.of(minute / 60, minute % 60);
+    }
+  }
+
+  @Param({"100", "10000", "100000", "1000000"})
+  public int size;
+
+  @Param({"REALISTIC", "ADVERSARIAL"})
+  public String timetable;
+
+  @Param({"TrainDepartureRegister"})
+  public String backend;
+
+  private DepartureRegister register;
+
+  /**
+   * Fills a new register at midnight.
+   */
+  @Setup(Level.Iteration)
+  public void setup() {
+    register = Timetables.register(backend, size, Timetables.Kind.valueOf(timetable));
+  }
+
+  /**
+   * Advances the clock through the day one minute at a time.
+   *
+   * @return the register, so the work is not optimized away.
+   */
+  @Benchmark
+  @OperationsPerInvocation(MINUTES)
+  public DepartureRegister updateTimeTrainDepartureRegister() {
+    for (int minute = 1; minute <= MINUTES; minute++) {
+      register.updateTimeTrainDepartureRegister(MINUTES_OF_DAY[minute]);
+    }
+    return register;
+  }
+}
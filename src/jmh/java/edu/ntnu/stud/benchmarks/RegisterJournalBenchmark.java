@@ -0,0 +1,108 @@
+package edu.ntnu.stud.benchmarks;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import edu.ntnu.stud.utils.RegisterJournal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recovery time of a {@link RegisterJournal} against the length of the journal it replays.
+ *
+ * <p>The journal is written once per trial without compaction: every departure of a realistic
+ * timetable is registered, gets a track and a delay, and the clock is advanced to noon. Each
+ * invocation recovers a new register from it, so the time grows with the number of records that
+ * are replayed.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RegisterJournalBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  public int departures;
+
+  private Path directory;
+
+  /**
+   * Writes the journal.
+   *
+   * @throws IOException if the journal can not be written.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("journal-benchmark");
+    TrainDepartureRegister register = new TrainDepartureRegister();
+    RegisterJournal journal = RegisterJournal.open(directory, register,
+        RegisterJournal.SyncPolicy.NEVER, 4096, Integer.MAX_VALUE);
+    List<TrainDeparture> timetable =
+        Timetables.generate(departures, Timetables.Kind.REALISTIC);
+    for (TrainDeparture trainDeparture : timetable) {
+      register.registerTrainDeparture(trainDeparture);
+      trainDeparture.setTrack(1 + Math.floorMod(trainDeparture.getTrainNumber().hashCode(), 8));
+      trainDeparture.setDelay(LocalTime.of(0, 5));
+    }
+    register.updateTimeTrainDepartureRegister(LocalTime.of(12, 0));
+    journal.close();
+  }
+
+  /**
+   * Recovers a new register from the journal.
+   *
+   * @return the recovered register.
+   * @throws IOException if the journal can not be read.
+   */
+  @Benchmark
+  public TrainDepartureRegister recover() throws IOException {
+    TrainDepartureRegister register = new TrainDepartureRegister();
+    RegisterJournal journal = RegisterJournal.open(directory, register,
+        RegisterJournal.SyncPolicy.NEVER, 4096, Integer.MAX_VALUE);
+    journal.close();
+    return register;
+  }
+
+  /**
+   * Deletes the journal.
+   *
+   * @throws IOException if the files can not be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      files.forEach(file -> {
+        try {
+          Files.delete(file);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+    Files.delete(directory);
+  }
+}
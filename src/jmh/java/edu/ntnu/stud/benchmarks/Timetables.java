@@ -0,0 +1,113 @@
+package edu.ntnu.stud.benchmarks;
+
+import edu.ntnu.stud.models.ColumnarTrainDepartureRegister;
+import edu.ntnu.stud.models.ConcurrentTrainDepartureRegister;
+import edu.ntnu.stud.models.DepartureRegister;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the timetables the benchmarks run on.
+ *
+ * <p>A realistic timetable spreads the departures over the day in a random order, on about 30
+ * lines and 60 destinations where a few destinations get most of the departures, with short
+ * train numbers. An adversarial timetable puts every departure in the same minute to the same
+ * destination, with 16 character train numbers that only differ at the end, so every ordering
+ * falls through to comparing long train numbers.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+final class Timetables {
+  private static final int DESTINATIONS = 60;
+
+  private Timetables() {
+  }
+
+  /**
+   * The kinds of timetable.
+   */
+  enum Kind {
+    REALISTIC,
+    ADVERSARIAL
+  }
+
+  /**
+   * Generates a timetable. The same size and kind always give the same timetable.
+   *
+   * @param size the number of departures.
+   * @param kind the kind of timetable.
+   * @return the departures, none of them departing at midnight.
+   */
+  static List<TrainDeparture> generate(int size, Kind kind) {
+    SplittableRandom random = new SplittableRandom(size);
+    List<TrainDeparture> departures = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      departures.add(kind == Kind.REALISTIC
+          ? new TrainDeparture(minute(1 + random.nextInt(24 * 60 - 1)), "L" + random.nextInt(30),
+              trainNumber(i, kind), destination(Math.min(random.nextInt(DESTINATIONS),
+                  random.nextInt(DESTINATIONS))))
+          : new TrainDeparture(LocalTime.of(12, 0), "L1", trainNumber(i, kind),
+              destination(0)));
+    }
+    if (kind == Kind.REALISTIC) {
+      for (int i = size - 1; i > 0; i--) {
+        departures.set(i, departures.set(random.nextInt(i + 1), departures.get(i)));
+      }
+    }
+    return departures;
+  }
+
+  /**
+   * Creates a register and fills it with a generated timetable.
+   *
+   * @param backend the simple class name of the register: TrainDepartureRegister,
+   *                ConcurrentTrainDepartureRegister or ColumnarTrainDepartureRegister.
+   * @param size    the number of departures.
+   * @param kind    the kind of timetable.
+   * @return the filled register.
+   */
+  static DepartureRegister register(String backend, int size, Kind kind) {
+    DepartureRegister register = switch (backend) {
+      case "TrainDepartureRegister" -> new TrainDepartureRegister();
+      case "ConcurrentTrainDepartureRegister" -> new ConcurrentTrainDepartureRegister();
+      case "ColumnarTrainDepartureRegister" -> new ColumnarTrainDepartureRegister();
+      default -> throw new IllegalArgumentException("Unknown register " + backend);
+    };
+    if (register.registerTrainDepartures(generate(size, kind)) != size) {
+      throw new IllegalStateException("The timetable could not be registered");
+    }
+    return register;
+  }
+
+  /**
+   * Returns the train number of departure i in a timetable.
+   *
+   * @param i    the index of the departure.
+   * @param kind the kind of timetable.
+   * @return the train number.
+   */
+  static String trainNumber(int i, Kind kind) {
+    return kind == Kind.REALISTIC ? Integer.toString(i)
+        : String.format("%16d", i).replace(' ', '0');
+  }
+
+  /**
+   * Returns a destination used in the timetables.
+   *
+   * @param i the index of the destination.
+   * @return the destination.
+   */
+  static String destination(int i) {
+    return "Destination " + i % DESTINATIONS;
+  }
+
+  private static LocalTime minute(int minute) {
+    return LocalTime.of(minute / 60, minute % 60);
+  }
+}
@@ -0,0 +1,151 @@
+package edu.ntnu.stud.benchmarks;
+
+import edu.ntnu.stud.models.DepartureRegister;
+import edu.ntnu.stud.models.TrainDeparture;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the register operations the user interface uses, on registers of 100 to one
+ * million departures filled with a realistic or an adversarial timetable.
+ *
+ * <p>The register is filled once per trial and the operations leave it unchanged, so every
+ * invocation sees a register of the same size. Lookups cycle through a fixed random sample of
+ * train numbers and destinations that are in the register. The other register backends can be
+ * measured with "-p backend=ColumnarTrainDepartureRegister".
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TrainDepartureRegisterBenchmark {
+  private static final int SAMPLES = 1024;
+
+  @Param({"100", "10000", "100000", "1000000"})
+  public int size;
+
+  @Param({"REALISTIC", "ADVERSARIAL"})
+  public String timetable;
+
+  @Param({"TrainDepartureRegister"})
+  public String backend;
+
+  private DepartureRegister register;
+  private final String[] trainNumbers = new String[SAMPLES];
+  private final String[] destinations = new String[SAMPLES];
+  private int next;
+
+  /**
+   * Fills the register and picks the train numbers and destinations to look up.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    Timetables.Kind kind = Timetables.Kind.valueOf(timetable);
+    register = Timetables.register(backend, size, kind);
+    SplittableRandom random = new SplittableRandom(42);
+    ArrayList<TrainDeparture> departures = register.getSortedTrainDepartures();
+    for (int i = 0; i < SAMPLES; i++) {
+      TrainDeparture trainDeparture = departures.get(random.nextInt(size));
+      trainNumbers[i] = trainDeparture.getTrainNumber();
+      destinations[i] = trainDeparture.getDestination();
+    }
+  }
+
+  private int nextSample() {
+    next = (next + 1) & (SAMPLES - 1);
+    return next;
+  }
+
+  /**
+   * Registers a new departure and removes it again, so the register keeps its size.
+   *
+   * @return the register, so the work is not optimized away.
+   */
+  @Benchmark
+  public DepartureRegister registerTrainDeparture() {
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(23, 59), "L1", "benchmark", Timetables.destination(0)));
+    register.removeTrainDepartureNumber("benchmark");
+    return register;
+  }
+
+  /**
+   * Checks a train number that is in the register.
+   *
+   * @return whether the train number was found.
+   */
+  @Benchmark
+  public boolean checkTrainNumber() {
+    return register.checkTrainNumber(trainNumbers[nextSample()]);
+  }
+
+  /**
+   * Checks a destination that is in the register, weighted by how many departures go there.
+   *
+   * @return whether the destination was found.
+   */
+  @Benchmark
+  public boolean checkTrainDestination() {
+    return register.checkTrainDestination(destinations[nextSample()]);
+  }
+
+  /**
+   * Looks up a train departure by a train number that is in the register.
+   *
+   * @return the train departure.
+   */
+  @Benchmark
+  public TrainDeparture getTrainDepartureNumber() {
+    return register.getTrainDepartureNumber(trainNumbers[nextSample()]);
+  }
+
+  /**
+   * Lists the departures to a destination, weighted by how many departures go there.
+   *
+   * @return the departures.
+   */
+  @Benchmark
+  public ArrayList<TrainDeparture> getTrainDeparturesDestination() {
+    return register.getTrainDeparturesDestination(destinations[nextSample()]);
+  }
+
+  /**
+   * Lists the whole board in departure order.
+   *
+   * @return the departures.
+   */
+  @Benchmark
+  public ArrayList<TrainDeparture> getSortedTrainDepartures() {
+    return register.getSortedTrainDepartures();
+  }
+
+  /**
+   * Lists all train numbers.
+   *
+   * @return the train numbers.
+   */
+  @Benchmark
+  public String getTrainNumbers() {
+    return register.getTrainNumbers();
+  }
+}
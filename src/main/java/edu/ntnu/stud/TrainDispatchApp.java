@@ -1,6 +1,7 @@
 package edu.ntnu.stud;
 
 import edu.ntnu.stud.views.UserInterface;
+import java.nio.file.Path;
 
 
 /**
@@ -10,11 +11,42 @@ public class TrainDispatchApp {
   /**
    * Main method that runs the application.
    *
-   * @param args are the arguments for the main method.
+   * @param args are the arguments for the main method. "--journal directory" keeps the register
+   *             in a journal in the directory and recovers it on startup. "--store directory"
+   *             keeps the register in memory-mapped files in the directory instead. "--import
+   *             file" imports a timetable file before the menu is shown. "--batch file" runs
+   *             the commands in the file, or on standard input if the file is "-", instead of
+   *             showing the menu. "--http port" serves the departure board as JSON on the
+   *             port.
    */
   public static void main(String[] args) {
     UserInterface userInterface = new UserInterface();
     userInterface.init();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if (args[i].equals("--journal")) {
+        userInterface.openJournal(Path.of(args[i + 1]));
+      } else if (args[i].equals("--store")) {
+        userInterface.openStore(Path.of(args[i + 1]));
+      }
+    }
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if (args[i].equals("--import")) {
+        userInterface.importTimetable(Path.of(args[i + 1]));
+      } else if (args[i].equals("--http")) {
+        try {
+          userInterface.startBoardServer(Integer.parseInt(args[i + 1]));
+        } catch (NumberFormatException e) {
+          System.out.println("The departure board could not be served."
+              + " Since " + args[i + 1] + " is not a port number");
+        }
+      }
+    }
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if (args[i].equals("--batch")) {
+        userInterface.runBatch(args[i + 1]);
+        return;
+      }
+    }
     userInterface.start();
   }
 }
@@ -0,0 +1,435 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A train departure register that stores departures column by column in primitive arrays.
+ *
+ * <p>Every departure is a row. Departure time and delay are stored as minutes of the day in int
+ * arrays, the track in an int array, and line and destination as their ordinals in a
+ * {@link StringPool} owned by the register, which holds each distinct string once. The train
+ * number is the key for the row itself. A departure costs a handful of ints instead of a
+ * {@link TrainDeparture} with its own {@link LocalTime} objects, and scans such as expiry run
+ * over contiguous arrays.
+ *
+ * <p>The rows are kept in an int array sorted on departure time and train number, so the board is
+ * read in order without sorting. The {@link TrainDeparture} objects returned by the register are
+ * lightweight views created on demand. Setting the track or delay of a view writes through to the
+ * columns, as long as the departure is still registered.
+ *
+ * <p>Times are stored with minute precision, which is the precision the application works in.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class ColumnarTrainDepartureRegister implements DepartureRegister {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final LocalTime[] MINUTES_OF_DAY = new LocalTime[24 * 60];
+
+  static {
+    for (int minute = 0; minute < MINUTES_OF_DAY.length; minute++) {
+      MINUTES_OF_DAY[minute] = LocalTime.of(minute / 60, minute % 60);
+    }
+  }
+
+  private int[] departureMinutes = new int[INITIAL_CAPACITY];
+  private int[] delayMinutes = new int[INITIAL_CAPACITY];
+  private int[] tracks = new int[INITIAL_CAPACITY];
+  private int[] lineCodes = new int[INITIAL_CAPACITY];
+  private int[] destinationCodes = new int[INITIAL_CAPACITY];
+  private String[] trainNumbers = new String[INITIAL_CAPACITY];
+  private int[] stamps = new int[INITIAL_CAPACITY];
+  private int rowCount;
+  private int[] freeRows = new int[INITIAL_CAPACITY];
+  private int freeRowCount;
+  private int[] order = new int[INITIAL_CAPACITY];
+  private int size;
+  private final StringIntMap rowByTrainNumber = new StringIntMap();
+  private final StringPool lines = new StringPool();
+  private final StringPool destinations = new StringPool();
+  private int[] destinationCounts = new int[INITIAL_CAPACITY];
+  private LocalTime time = LocalTime.of(0, 0);
+
+  /**
+   * Writes changes made to a view back to the row it was created from, as long as the row
+   * still holds the same departure. Once the row is removed the observer is no longer attached,
+   * so the departure and its views can be registered again.
+   */
+  private final class RowObserver implements TrainDepartureObserver {
+    private final int row;
+    private final int stamp;
+
+    private RowObserver(int row, int stamp) {
+      this.row = row;
+      this.stamp = stamp;
+    }
+
+    @Override
+    public void delayChanged(TrainDeparture trainDeparture, LocalTime oldDelay) {
+      if (stamps[row] == stamp) {
+        delayMinutes[row] = toMinutes(trainDeparture.getDelay());
+      }
+    }
+
+    @Override
+    public void trackChanged(TrainDeparture trainDeparture, int oldTrack) {
+      if (stamps[row] == stamp) {
+        tracks[row] = trainDeparture.getTrack();
+      }
+    }
+
+    @Override
+    public boolean isAttached() {
+      return stamps[row] == stamp;
+    }
+  }
+
+  /**
+   * Registers a train in the register by copying it into a new row. The given train departure
+   * keeps writing track and delay changes to the row.
+   *
+   * @param trainDeparture The train departure to be registered.
+   * @throws IllegalArgumentException If a train with the same already exists, if the departure
+   *                                  time is before the current time or if the train departure
+   *                                  is registered in another register.
+   */
+  @Override
+  public void registerTrainDeparture(TrainDeparture trainDeparture)
+      throws IllegalArgumentException {
+    insertIntoOrder(addRow(trainDeparture));
+  }
+
+  /**
+   * Registers a batch of train departures, skipping the ones that can not be registered. The
+   * rows are filled first, then sorted among themselves and merged into the order in one pass,
+   * so a batch of k departures costs O(n + k log k) instead of one shift of the order per
+   * departure.
+   *
+   * @param trainDepartures the train departures to register.
+   * @return the number of train departures that were registered.
+   */
+  @Override
+  public int registerTrainDepartures(Collection<TrainDeparture> trainDepartures) {
+    ArrayList<Integer> added = new ArrayList<>(trainDepartures.size());
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      try {
+        added.add(addRow(trainDeparture));
+      } catch (IllegalArgumentException e) {
+        // The departure is skipped, like the batch registration of TrainDepartureRegister.
+      }
+    }
+    added.sort(this::compareRows);
+    mergeIntoOrder(added);
+    return added.size();
+  }
+
+  /**
+   * Checks a train departure and copies it into a new row, without putting the row in the order.
+   *
+   * @param trainDeparture the train departure to be registered.
+   * @return the row.
+   * @throws IllegalArgumentException if the train departure can not be registered.
+   */
+  private int addRow(TrainDeparture trainDeparture) throws IllegalArgumentException {
+    if (checkTrainNumber(trainDeparture.getTrainNumber())) {
+      throw new IllegalArgumentException("The train could not be registered."
+          + " Since the register already contains a train with matching number");
+    } else if (trainDeparture.getDepartureTime().isBefore(time.plusMinutes(1))) {
+      throw new IllegalArgumentException("The train could not be added to the register."
+          + " Since its departure time is before " + time.plusMinutes(1));
+    }
+    int row = allocateRow();
+    if (!trainDeparture.attachObserver(new RowObserver(row, stamps[row]))) {
+      freeRows[freeRowCount++] = row;
+      throw new IllegalArgumentException("The train could not be registered."
+          + " Since it is already registered in another register");
+    }
+    departureMinutes[row] = toMinutes(trainDeparture.getDepartureTime());
+    delayMinutes[row] = toMinutes(trainDeparture.getDelay());
+    tracks[row] = trainDeparture.getTrack();
+    lineCodes[row] = lines.ordinal(trainDeparture.getLine());
+    destinationCodes[row] = destinations.ordinal(trainDeparture.getDestination());
+    if (destinationCodes[row] >= destinationCounts.length) {
+      destinationCounts = Arrays.copyOf(destinationCounts,
+          Math.max(destinationCounts.length * 2, destinationCodes[row] + 1));
+    }
+    destinationCounts[destinationCodes[row]]++;
+    trainNumbers[row] = trainDeparture.getTrainNumber();
+    rowByTrainNumber.put(trainNumbers[row], row);
+    return row;
+  }
+
+  @Override
+  public boolean checkTrainNumber(String trainNumber) {
+    return rowByTrainNumber.get(trainNumber, -1) >= 0;
+  }
+
+  @Override
+  public boolean checkTrainDestination(String trainDestination) {
+    int code = destinations.find(trainDestination);
+    return code >= 0 && code < destinationCounts.length && destinationCounts[code] > 0;
+  }
+
+  @Override
+  public TrainDeparture getTrainDepartureNumber(String trainNumber) {
+    int row = rowByTrainNumber.get(trainNumber, -1);
+    return row < 0 ? null : view(row);
+  }
+
+  /**
+   * Retrieves the train departures going to the given destination. The destination is compared
+   * as an int code while the sorted rows are scanned.
+   *
+   * @param destination the destination to be searched for.
+   * @return A list of train departures with the specific destination, sorted on departure time.
+   */
+  @Override
+  public ArrayList<TrainDeparture> getTrainDeparturesDestination(String destination) {
+    ArrayList<TrainDeparture> departures = new ArrayList<>();
+    if (!checkTrainDestination(destination)) {
+      return departures;
+    }
+    int code = destinations.find(destination);
+    for (int i = 0; i < size; i++) {
+      if (destinationCodes[order[i]] == code) {
+        departures.add(view(order[i]));
+      }
+    }
+    return departures;
+  }
+
+  @Override
+  public String getTrainNumbers() {
+    ArrayList<String> numbers = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      numbers.add(trainNumbers[order[i]]);
+    }
+    numbers.sort(null);
+    return "The register contains the following train numbers: \n" + numbers;
+  }
+
+  @Override
+  public void updateTimeTrainDepartureRegister(LocalTime timeNow) throws IllegalArgumentException {
+    if (timeNow.isBefore(time)) {
+      throw new IllegalArgumentException("Time must be before " + time.toString());
+    }
+    time = timeNow;
+    removeDepartedTrains();
+  }
+
+  @Override
+  public LocalTime getTime() {
+    return time;
+  }
+
+  @Override
+  public void removeTrainDepartureNumber(String trainNumber) {
+    int row = rowByTrainNumber.get(trainNumber, -1);
+    if (row >= 0) {
+      removeRow(row);
+    }
+  }
+
+  @Override
+  public ArrayList<TrainDeparture> getSortedTrainDepartures() {
+    if (size == 0) {
+      return null;
+    }
+    ArrayList<TrainDeparture> departures = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      departures.add(view(order[i]));
+    }
+    return departures;
+  }
+
+  /**
+   * Returns the number of train departures in the register.
+   *
+   * @return the number of train departures.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Removes departed trains by scanning the departure and delay columns, then closes the gaps
+   * they leave in the order in one pass.
+   */
+  private void removeDepartedTrains() {
+    int nextMinute = toMinutes(time) + 1;
+    boolean removed = false;
+    for (int row = 0; row < rowCount; row++) {
+      if (trainNumbers[row] != null && departureMinutes[row] + delayMinutes[row] < nextMinute) {
+        freeRow(row);
+        removed = true;
+      }
+    }
+    if (removed) {
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        if (trainNumbers[order[i]] != null) {
+          order[kept++] = order[i];
+        }
+      }
+      size = kept;
+    }
+  }
+
+  /**
+   * Creates a view of a row. The view writes track and delay changes back to the row.
+   *
+   * @param row the row.
+   * @return a train departure with the values of the row.
+   */
+  private TrainDeparture view(int row) {
+    TrainDeparture trainDeparture = new TrainDeparture(MINUTES_OF_DAY[departureMinutes[row]],
+        lines.get(lineCodes[row]), trainNumbers[row],
+        destinations.get(destinationCodes[row]), true);
+    if (tracks[row] >= 0) {
+      trainDeparture.setTrack(tracks[row]);
+    }
+    if (delayMinutes[row] > 0) {
+      trainDeparture.setDelay(MINUTES_OF_DAY[delayMinutes[row]]);
+    }
+    trainDeparture.attachObserver(new RowObserver(row, stamps[row]));
+    return trainDeparture;
+  }
+
+  /**
+   * Takes a free row, or a new row at the end of the columns.
+   *
+   * @return the row.
+   */
+  private int allocateRow() {
+    if (freeRowCount > 0) {
+      return freeRows[--freeRowCount];
+    }
+    if (rowCount == trainNumbers.length) {
+      int capacity = rowCount * 2;
+      departureMinutes = Arrays.copyOf(departureMinutes, capacity);
+      delayMinutes = Arrays.copyOf(delayMinutes, capacity);
+      tracks = Arrays.copyOf(tracks, capacity);
+      lineCodes = Arrays.copyOf(lineCodes, capacity);
+      destinationCodes = Arrays.copyOf(destinationCodes, capacity);
+      trainNumbers = Arrays.copyOf(trainNumbers, capacity);
+      stamps = Arrays.copyOf(stamps, capacity);
+      freeRows = Arrays.copyOf(freeRows, capacity);
+      order = Arrays.copyOf(order, capacity);
+    }
+    return rowCount++;
+  }
+
+  /**
+   * Removes a row from the order and the train number index, and frees it. Views of the row stop
+   * writing to it.
+   *
+   * @param row the row to remove.
+   */
+  private void removeRow(int row) {
+    int position = findInOrder(departureMinutes[row], trainNumbers[row]);
+    System.arraycopy(order, position + 1, order, position, size - position - 1);
+    size--;
+    freeRow(row);
+  }
+
+  /**
+   * Removes a row from the train number index and frees it, leaving it in the order. Views of
+   * the row stop writing to it and are no longer attached to it.
+   *
+   * @param row the row to free.
+   */
+  private void freeRow(int row) {
+    rowByTrainNumber.remove(trainNumbers[row]);
+    destinationCounts[destinationCodes[row]]--;
+    trainNumbers[row] = null;
+    stamps[row]++;
+    freeRows[freeRowCount++] = row;
+  }
+
+  /**
+   * Inserts a row into the sorted order.
+   *
+   * @param row the row to insert.
+   */
+  private void insertIntoOrder(int row) {
+    int position = -findInOrder(departureMinutes[row], trainNumbers[row]) - 1;
+    System.arraycopy(order, position, order, position + 1, size - position);
+    order[position] = row;
+    size++;
+  }
+
+  /**
+   * Merges rows that are sorted among themselves into the sorted order, from the back, so every
+   * row in the order is moved at most once.
+   *
+   * @param rows the rows to merge, sorted on departure time and train number.
+   */
+  private void mergeIntoOrder(ArrayList<Integer> rows) {
+    int existing = size - 1;
+    int added = rows.size() - 1;
+    size += rows.size();
+    for (int position = size - 1; added >= 0; position--) {
+      if (existing >= 0 && compareRows(order[existing], rows.get(added)) > 0) {
+        order[position] = order[existing--];
+      } else {
+        order[position] = rows.get(added--);
+      }
+    }
+  }
+
+  private int compareRows(int a, int b) {
+    int compare = Integer.compare(departureMinutes[a], departureMinutes[b]);
+    return compare != 0 ? compare : trainNumbers[a].compareTo(trainNumbers[b]);
+  }
+
+  /**
+   * Binary searches the sorted order for a departure minute and train number.
+   *
+   * @param minute      the departure minute.
+   * @param trainNumber the train number.
+   * @return the position if found, else (-(insertion point) - 1).
+   */
+  private int findInOrder(int minute, String trainNumber) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int row = order[middle];
+      int compare = Integer.compare(departureMinutes[row], minute);
+      if (compare == 0) {
+        compare = trainNumbers[row].compareTo(trainNumber);
+      }
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private static int toMinutes(LocalTime localTime) {
+    return localTime.getHour() * 60 + localTime.getMinute();
+  }
+
+  /**
+   * Returns a string representation of the train departures in the register.
+   *
+   * @return String representing the content of the register.
+   */
+  @Override
+  public String toString() {
+    ArrayList<String> departures = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      departures.add(view(order[i]).toString());
+    }
+    return "The register contains the following train departures: \n"
+        + String.join("\n", departures);
+  }
+}
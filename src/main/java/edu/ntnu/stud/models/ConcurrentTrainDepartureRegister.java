@@ -0,0 +1,313 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A train departure register that can be shared by several dispatch consoles and feed
+ * ingesters running on different threads.
+ *
+ * <p>The departures are kept in lock-free structures: a concurrent hash map keyed by train
+ * number, and skip lists ordered by departure time, by destination and by departure time plus
+ * delay. Registration is decided by an atomic put-if-absent on the train number, so two threads
+ * registering the same number can never both succeed. The clock only moves forward, through a
+ * compare-and-set. Readers see each departure either fully registered or not at all in the
+ * train number map, while the sorted views are weakly consistent.
+ *
+ * <p>Every registration gets a sequence number that breaks ties in the sorted indexes. A departure
+ * that is being removed and a new departure with the same train number can then be in the
+ * indexes at the same time, and removing the old one never takes out the new one.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class ConcurrentTrainDepartureRegister implements DepartureRegister {
+  private static final Comparator<Registration> REGISTRATION_ORDER =
+      Comparator.<Registration, TrainDeparture>comparing(registration ->
+              registration.trainDeparture, TrainDepartureRegister.DEPARTURE_ORDER)
+          .thenComparingLong(registration -> registration.sequence);
+  private final ConcurrentHashMap<String, Registration> trainDepartures =
+      new ConcurrentHashMap<>();
+  private final ConcurrentSkipListSet<Registration> departuresByTime =
+      new ConcurrentSkipListSet<>(REGISTRATION_ORDER);
+  private final ConcurrentHashMap<String, ConcurrentSkipListSet<Registration>>
+      departuresByDestination = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<DepartureKey, Registration> departuresByEffectiveTime =
+      new ConcurrentSkipListMap<>();
+  private final AtomicReference<LocalTime> time = new AtomicReference<>(LocalTime.of(0, 0));
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * One registration of a train departure, which also observes the departure's delay.
+   */
+  private final class Registration implements TrainDepartureObserver {
+    private final TrainDeparture trainDeparture;
+    private final long sequence;
+
+    private Registration(TrainDeparture trainDeparture, long sequence) {
+      this.trainDeparture = trainDeparture;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public void delayChanged(TrainDeparture trainDeparture, LocalTime oldDelay) {
+      rekeyDelayedTrainDeparture(this, oldDelay);
+    }
+  }
+
+  /**
+   * Registers a train in the register. The train number is claimed atomically, so of several
+   * threads registering the same number exactly one succeeds.
+   *
+   * @param trainDeparture The train departure to be registered.
+   * @throws IllegalArgumentException If a train with the same already exists, if the departure
+   *                                  time is before the current time or if the train departure
+   *                                  is registered in another register.
+   */
+  @Override
+  public void registerTrainDeparture(TrainDeparture trainDeparture)
+      throws IllegalArgumentException {
+    String trainNumber = trainDeparture.getTrainNumber();
+    Registration registration = new Registration(trainDeparture, sequence.incrementAndGet());
+    if (trainDepartures.putIfAbsent(trainNumber, registration) != null) {
+      throw new IllegalArgumentException("The train could not be registered."
+          + " Since the register already contains a train with matching number");
+    }
+    LocalTime timeNow = time.get();
+    if (trainDeparture.getDepartureTime().isBefore(timeNow.plusMinutes(1))) {
+      trainDepartures.remove(trainNumber, registration);
+      throw new IllegalArgumentException("The train could not be added to the register."
+          + " Since its departure time is before " + timeNow.plusMinutes(1));
+    }
+    if (!trainDeparture.attachObserver(registration)) {
+      trainDepartures.remove(trainNumber, registration);
+      throw new IllegalArgumentException("The train could not be registered."
+          + " Since it is already registered in another register");
+    }
+    addToIndexes(registration);
+    if (trainDepartures.get(trainNumber) != registration) {
+      // Removed by another thread while the indexes were being updated.
+      removeFromIndexes(registration);
+    } else if (trainDeparture.getEffectiveMinute() < nextMinute(time.get())) {
+      // The clock passed the departure while it was being registered.
+      removeRegistration(registration);
+    }
+  }
+
+  @Override
+  public boolean checkTrainNumber(String trainNumber) {
+    return trainNumber != null && trainDepartures.containsKey(trainNumber);
+  }
+
+  @Override
+  public boolean checkTrainDestination(String trainDestination) {
+    ConcurrentSkipListSet<Registration> registrations =
+        departuresByDestination.get(trainDestination);
+    return registrations != null && !registrations.isEmpty();
+  }
+
+  @Override
+  public TrainDeparture getTrainDepartureNumber(String trainNumber) {
+    Registration registration = trainNumber == null ? null : trainDepartures.get(trainNumber);
+    return registration == null ? null : registration.trainDeparture;
+  }
+
+  @Override
+  public ArrayList<TrainDeparture> getTrainDeparturesDestination(String destination) {
+    ConcurrentSkipListSet<Registration> registrations = departuresByDestination.get(destination);
+    if (registrations == null) {
+      return new ArrayList<>();
+    }
+    return toTrainDepartures(registrations);
+  }
+
+  @Override
+  public String getTrainNumbers() {
+    return "The register contains the following train numbers: \n"
+        + trainDepartures.keySet().stream().sorted().toList();
+  }
+
+  /**
+   * Updates the current time for the register and removes departed trains. Concurrent updates
+   * are ordered by a compare-and-set, so the clock never moves backwards.
+   *
+   * @param timeNow The current time.
+   * @throws IllegalArgumentException If the provided time is before the current time.
+   */
+  @Override
+  public void updateTimeTrainDepartureRegister(LocalTime timeNow) throws IllegalArgumentException {
+    LocalTime current;
+    do {
+      current = time.get();
+      if (timeNow.isBefore(current)) {
+        throw new IllegalArgumentException("Time must be before " + current.toString());
+      }
+    } while (!time.compareAndSet(current, timeNow));
+    removeDepartedTrains();
+  }
+
+  @Override
+  public LocalTime getTime() {
+    return time.get();
+  }
+
+  @Override
+  public void removeTrainDepartureNumber(String trainNumber) {
+    if (trainNumber == null) {
+      return;
+    }
+    Registration removed = trainDepartures.remove(trainNumber);
+    if (removed != null) {
+      removeFromIndexes(removed);
+    }
+  }
+
+  @Override
+  public ArrayList<TrainDeparture> getSortedTrainDepartures() {
+    ArrayList<TrainDeparture> sortedTrainDepartures = toTrainDepartures(departuresByTime);
+    return sortedTrainDepartures.isEmpty() ? null : sortedTrainDepartures;
+  }
+
+  /**
+   * Removes departed trains with departure time plus delay earlier than the current time. Only
+   * the departures at the front of the index ordered on effective departure time are visited.
+   */
+  private void removeDepartedTrains() {
+    int nextMinute = nextMinute(time.get());
+    Map.Entry<DepartureKey, Registration> first = departuresByEffectiveTime.firstEntry();
+    while (first != null && first.getKey().getMinute() < nextMinute) {
+      if (departuresByEffectiveTime.remove(first.getKey(), first.getValue())) {
+        removeRegistration(first.getValue());
+      }
+      first = departuresByEffectiveTime.firstEntry();
+    }
+  }
+
+  /**
+   * Removes a given registration, unless another registration has taken its train number.
+   *
+   * @param registration the registration to remove.
+   */
+  private void removeRegistration(Registration registration) {
+    if (trainDepartures.remove(registration.trainDeparture.getTrainNumber(), registration)) {
+      removeFromIndexes(registration);
+    }
+  }
+
+  /**
+   * Adds a registration to the time, destination and effective time indexes. The effective time
+   * key is computed while holding the departure's lock, so a concurrent delay change can not
+   * leave a stale key behind. The destination set is changed inside the map's compute, so it is
+   * never dropped as empty while a departure is being added to it.
+   *
+   * @param registration the registration to add.
+   */
+  private void addToIndexes(Registration registration) {
+    TrainDeparture trainDeparture = registration.trainDeparture;
+    departuresByTime.add(registration);
+    departuresByDestination.compute(trainDeparture.getDestination(), (d, registrations) -> {
+      if (registrations == null) {
+        registrations = new ConcurrentSkipListSet<>(REGISTRATION_ORDER);
+      }
+      registrations.add(registration);
+      return registrations;
+    });
+    synchronized (trainDeparture) {
+      departuresByEffectiveTime.put(effectiveKey(registration), registration);
+    }
+  }
+
+  /**
+   * Removes a registration from every index and stops observing its departure. A destination
+   * that has no departures left is removed. Removing a registration that is not in the indexes
+   * has no effect.
+   *
+   * @param registration the registration to remove.
+   */
+  private void removeFromIndexes(Registration registration) {
+    TrainDeparture trainDeparture = registration.trainDeparture;
+    synchronized (trainDeparture) {
+      trainDeparture.detachObserver();
+      departuresByEffectiveTime.remove(effectiveKey(registration), registration);
+    }
+    departuresByTime.remove(registration);
+    departuresByDestination.computeIfPresent(trainDeparture.getDestination(),
+        (d, registrations) -> {
+          registrations.remove(registration);
+          return registrations.isEmpty() ? null : registrations;
+        });
+  }
+
+  /**
+   * Moves a registration to its new place in the index ordered on effective departure time.
+   * Called by the train departure while it holds its own lock.
+   *
+   * @param registration the registration of the train departure that was delayed.
+   * @param oldDelay     the delay before the change.
+   */
+  private void rekeyDelayedTrainDeparture(Registration registration, LocalTime oldDelay) {
+    TrainDeparture trainDeparture = registration.trainDeparture;
+    DepartureKey oldKey = new DepartureKey(
+        TrainDeparture.effectiveMinute(trainDeparture.getDepartureTime(), oldDelay),
+        trainDeparture.getTrainNumber(), registration.sequence);
+    if (departuresByEffectiveTime.remove(oldKey, registration)) {
+      departuresByEffectiveTime.put(effectiveKey(registration), registration);
+    }
+  }
+
+  /**
+   * Returns the key of a registration in the index ordered on effective departure time.
+   *
+   * @param registration the registration.
+   * @return key made of the effective departure minute, the train number and the sequence number.
+   */
+  private static DepartureKey effectiveKey(Registration registration) {
+    TrainDeparture trainDeparture = registration.trainDeparture;
+    return new DepartureKey(trainDeparture.getEffectiveMinute(), trainDeparture.getTrainNumber(),
+        registration.sequence);
+  }
+
+  /**
+   * Returns the train departures of some registrations, in the order of the registrations.
+   *
+   * @param registrations the registrations.
+   * @return a new list with the train departures.
+   */
+  private static ArrayList<TrainDeparture> toTrainDepartures(Iterable<Registration> registrations) {
+    ArrayList<TrainDeparture> trainDepartures = new ArrayList<>();
+    for (Registration registration : registrations) {
+      trainDepartures.add(registration.trainDeparture);
+    }
+    return trainDepartures;
+  }
+
+  /**
+   * Returns the first minute a train can depart at, one minute after the given time.
+   *
+   * @param time the current time.
+   * @return minutes since midnight of the time plus one minute.
+   */
+  private static int nextMinute(LocalTime time) {
+    return time.getHour() * 60 + time.getMinute() + 1;
+  }
+
+  /**
+   * Returns a string representation of the train departures in the register.
+   *
+   * @return String representing the content of the register.
+   */
+  @Override
+  public String toString() {
+    return "The register contains the following train departures: \n"
+        + String.join("\n", toTrainDepartures(departuresByTime).stream()
+            .map(TrainDeparture::toString).toList());
+  }
+}
@@ -0,0 +1,298 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Passes delays on to the later departures that share a line or a track with a delayed train.
+ *
+ * <p>Departures on the same line share rolling stock, and departures on the same track share a
+ * platform, so a departure can not leave until the departure before it on its line and on its
+ * track has left and a minimum headway has passed. The engine keeps every line and every track
+ * as a chain of departures ordered on departure time, and these chains are the edges of the
+ * dependency graph. The delay a dispatcher sets is the primary delay. The delay the engine gives
+ * a departure is the larger of its primary delay and what the departures before it require.
+ *
+ * <p>When a delay, track, registration or removal changes the graph, the engine walks forward
+ * from the changed departures in departure order and stops along every chain at the first
+ * departure whose delay stays the same, so only the affected part of the graph is visited. The
+ * new delays are set on the departures, so the register moves them in its expiry index like any
+ * other delay. The walk starts when the register publishes the change that caused it, and the
+ * delays the engine sets itself are not taken as primary delays. A departure only tells the
+ * register about a delay that changes, so a dispatcher who confirms the delay a departure already
+ * has, such as a propagated one, does so with {@link #setPrimaryDelay(String, LocalTime)}.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class DelayPropagationEngine implements TrainDepartureRegisterListener {
+  private static final int LATEST_DELAY = 23 * 60 + 59;
+
+  private final TrainDepartureRegister register;
+  private final int headwayMinutes;
+  private final HashMap<String, TreeMap<DepartureKey, TrainDeparture>> lines = new HashMap<>();
+  private final HashMap<Integer, TreeMap<DepartureKey, TrainDeparture>> tracks = new HashMap<>();
+  private final HashMap<String, Integer> primaryDelays = new HashMap<>();
+  private final HashSet<TrainDeparture> changed = new HashSet<>();
+  private boolean propagating;
+
+  /**
+   * Creates an engine for the departures in the register and starts listening to it. The current
+   * delays are taken as primary delays.
+   *
+   * @param register       the register.
+   * @param headwayMinutes the minimum number of minutes between two departures on the same line
+   *                       or track.
+   * @throws IllegalArgumentException if the headway is negative.
+   */
+  public DelayPropagationEngine(TrainDepartureRegister register, int headwayMinutes)
+      throws IllegalArgumentException {
+    if (headwayMinutes < 0) {
+      throw new IllegalArgumentException("The headway can not be negative");
+    }
+    this.register = register;
+    this.headwayMinutes = headwayMinutes;
+    register.addListener(this);
+    if (register.getSortedTrainDepartures() != null) {
+      for (TrainDeparture trainDeparture : register.getSortedTrainDepartures()) {
+        onRegistered(trainDeparture);
+      }
+      propagate();
+    }
+  }
+
+  /**
+   * Returns the delay the dispatcher set on a departure, before any delay passed on to it.
+   *
+   * @param trainNumber the train number.
+   * @return the primary delay, or null if the train is not in the register.
+   */
+  public LocalTime getPrimaryDelay(String trainNumber) {
+    Integer minutes = primaryDelays.get(trainNumber);
+    return minutes == null ? null : toDelay(minutes);
+  }
+
+  /**
+   * Sets the primary delay of a departure and its delay, and passes the change on. Unlike
+   * {@link TrainDeparture#setDelay(LocalTime)}, this also records a delay that is the same as the
+   * current one, so a propagated delay can be confirmed and is kept when the departures before
+   * it catch up. Must be called on the dispatcher thread.
+   *
+   * @param trainNumber the train number.
+   * @param delay       the delay the dispatcher sets.
+   * @throws IllegalArgumentException if the delay is null or the train is not in the register.
+   */
+  public void setPrimaryDelay(String trainNumber, LocalTime delay)
+      throws IllegalArgumentException {
+    if (delay == null) {
+      throw new IllegalArgumentException("The time can not be null");
+    }
+    TrainDeparture trainDeparture = register.getTrainDepartureNumber(trainNumber);
+    if (trainDeparture == null || !primaryDelays.containsKey(trainNumber)) {
+      throw new IllegalArgumentException("The register does not contain a train with number "
+          + trainNumber);
+    }
+    trainDeparture.setDelay(delay);
+    primaryDelays.put(trainNumber, minutes(delay));
+    changed.add(trainDeparture);
+    propagate();
+  }
+
+  /**
+   * Checks if a departure is delayed more than its primary delay, because of the departures
+   * before it.
+   *
+   * @param trainNumber the train number.
+   * @return true if the departure has a propagated delay, else false.
+   */
+  public boolean isPropagated(String trainNumber) {
+    TrainDeparture trainDeparture = register.getTrainDepartureNumber(trainNumber);
+    Integer primary = primaryDelays.get(trainNumber);
+    return trainDeparture != null && primary != null
+        && minutes(trainDeparture.getDelay()) > primary;
+  }
+
+  /**
+   * Stops listening to the register. Delays that were passed on are kept.
+   */
+  public void close() {
+    register.removeListener(this);
+  }
+
+  @Override
+  public void onRegistered(TrainDeparture trainDeparture) {
+    primaryDelays.put(trainDeparture.getTrainNumber(), minutes(trainDeparture.getDelay()));
+    lines.computeIfAbsent(trainDeparture.getLine(), line -> new TreeMap<>())
+        .put(key(trainDeparture), trainDeparture);
+    if (trainDeparture.getTrack() != -1) {
+      tracks.computeIfAbsent(trainDeparture.getTrack(), track -> new TreeMap<>())
+          .put(key(trainDeparture), trainDeparture);
+    }
+    changed.add(trainDeparture);
+  }
+
+  @Override
+  public void onTrackAssigned(TrainDeparture trainDeparture, int oldTrack) {
+    if (oldTrack != -1) {
+      removeFromChain(tracks.get(oldTrack), trainDeparture, true);
+    }
+    tracks.computeIfAbsent(trainDeparture.getTrack(), track -> new TreeMap<>())
+        .put(key(trainDeparture), trainDeparture);
+    changed.add(trainDeparture);
+  }
+
+  @Override
+  public void onDelayed(TrainDeparture trainDeparture, LocalTime oldDelay) {
+    if (!propagating) {
+      primaryDelays.put(trainDeparture.getTrainNumber(), minutes(trainDeparture.getDelay()));
+      changed.add(trainDeparture);
+    }
+  }
+
+  @Override
+  public void onRemoved(TrainDeparture trainDeparture) {
+    remove(trainDeparture, true);
+  }
+
+  /**
+   * Forgets a departed train. The departures after it keep their delays, since the train only
+   * just left and the headway after it still applies.
+   *
+   * @param trainDeparture the departed train departure.
+   */
+  @Override
+  public void onExpired(TrainDeparture trainDeparture) {
+    remove(trainDeparture, false);
+  }
+
+  /**
+   * Passes on the delays caused by the changes in the published snapshot.
+   *
+   * @param snapshot the published snapshot.
+   */
+  @Override
+  public void onPublished(TrainDepartureRegisterSnapshot snapshot) {
+    if (!propagating) {
+      propagate();
+    }
+  }
+
+  private void remove(TrainDeparture trainDeparture, boolean markNext) {
+    primaryDelays.remove(trainDeparture.getTrainNumber());
+    changed.remove(trainDeparture);
+    removeFromChain(lines.get(trainDeparture.getLine()), trainDeparture, markNext);
+    if (trainDeparture.getTrack() != -1) {
+      removeFromChain(tracks.get(trainDeparture.getTrack()), trainDeparture, markNext);
+    }
+  }
+
+  /**
+   * Takes a departure out of a chain and, if asked to, marks the departure after it, which may
+   * now leave earlier.
+   */
+  private void removeFromChain(TreeMap<DepartureKey, TrainDeparture> chain,
+                               TrainDeparture trainDeparture, boolean markNext) {
+    if (chain == null) {
+      return;
+    }
+    DepartureKey key = key(trainDeparture);
+    chain.remove(key);
+    Map.Entry<DepartureKey, TrainDeparture> next = chain.higherEntry(key);
+    if (markNext && next != null) {
+      changed.add(next.getValue());
+    }
+  }
+
+  /**
+   * Walks forward from the changed departures in departure order and gives every departure it
+   * reaches the delay its primary delay and the departures before it require.
+   */
+  private void propagate() {
+    if (changed.isEmpty()) {
+      return;
+    }
+    PriorityQueue<TrainDeparture> queue =
+        new PriorityQueue<>(TrainDepartureRegister.DEPARTURE_ORDER);
+    HashSet<TrainDeparture> roots = new HashSet<>(changed);
+    HashSet<TrainDeparture> queued = new HashSet<>(changed);
+    queue.addAll(changed);
+    changed.clear();
+    propagating = true;
+    try {
+      while (!queue.isEmpty()) {
+        TrainDeparture trainDeparture = queue.poll();
+        queued.remove(trainDeparture);
+        Integer primary = primaryDelays.get(trainDeparture.getTrainNumber());
+        if (primary == null) {
+          continue;
+        }
+        int delay = Math.min(LATEST_DELAY, Math.max(primary, requiredDelay(trainDeparture)));
+        if (delay != minutes(trainDeparture.getDelay())) {
+          trainDeparture.setDelay(toDelay(delay));
+        } else if (!roots.contains(trainDeparture)) {
+          continue;
+        }
+        enqueueNext(lines.get(trainDeparture.getLine()), trainDeparture, queue, queued);
+        if (trainDeparture.getTrack() != -1) {
+          enqueueNext(tracks.get(trainDeparture.getTrack()), trainDeparture, queue, queued);
+        }
+      }
+    } finally {
+      propagating = false;
+    }
+  }
+
+  /**
+   * Returns the delay in minutes the departures before a departure on its line and track
+   * require, or 0 if they require none.
+   */
+  private int requiredDelay(TrainDeparture trainDeparture) {
+    int required = Math.max(0, requiredBy(lines.get(trainDeparture.getLine()), trainDeparture));
+    if (trainDeparture.getTrack() != -1) {
+      required = Math.max(required, requiredBy(tracks.get(trainDeparture.getTrack()),
+          trainDeparture));
+    }
+    return required;
+  }
+
+  private int requiredBy(TreeMap<DepartureKey, TrainDeparture> chain,
+                         TrainDeparture trainDeparture) {
+    Map.Entry<DepartureKey, TrainDeparture> previous =
+        chain == null ? null : chain.lowerEntry(key(trainDeparture));
+    if (previous == null) {
+      return 0;
+    }
+    return previous.getValue().getEffectiveMinute() + headwayMinutes
+        - key(trainDeparture).getMinute();
+  }
+
+  private static void enqueueNext(TreeMap<DepartureKey, TrainDeparture> chain,
+                                  TrainDeparture trainDeparture,
+                                  PriorityQueue<TrainDeparture> queue,
+                                  HashSet<TrainDeparture> queued) {
+    Map.Entry<DepartureKey, TrainDeparture> next =
+        chain == null ? null : chain.higherEntry(key(trainDeparture));
+    if (next != null && queued.add(next.getValue())) {
+      queue.add(next.getValue());
+    }
+  }
+
+  private static DepartureKey key(TrainDeparture trainDeparture) {
+    LocalTime departureTime = trainDeparture.getDepartureTime();
+    return new DepartureKey(departureTime.getHour() * 60 + departureTime.getMinute(),
+        trainDeparture.getTrainNumber());
+  }
+
+  private static int minutes(LocalTime delay) {
+    return delay.getHour() * 60 + delay.getMinute();
+  }
+
+  private static LocalTime toDelay(int minutes) {
+    return LocalTime.of(minutes / 60, minutes % 60);
+  }
+}
@@ -0,0 +1,88 @@
+package edu.ntnu.stud.models;
+
+/**
+ * Immutable sort key for a train departure, made of a minute of the day and the train number.
+ *
+ * <p>Used for indexes where the minute can change while the departure is registered, such as the
+ * effective departure time. The old key is rebuilt from the old value to find the entry again.
+ * An index that may briefly hold two departures with the same train number, one leaving and one
+ * arriving, tells them apart by a sequence number given to each registration.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+final class DepartureKey implements Comparable<DepartureKey> {
+  private final int minute;
+  private final String trainNumber;
+  private final long sequence;
+
+  /**
+   * Creates a key.
+   *
+   * @param minute      minutes since midnight.
+   * @param trainNumber the unique train number, used to tell apart departures in the same minute.
+   */
+  DepartureKey(int minute, String trainNumber) {
+    this(minute, trainNumber, 0);
+  }
+
+  /**
+   * Creates a key for one registration of a train departure.
+   *
+   * @param minute      minutes since midnight.
+   * @param trainNumber the train number.
+   * @param sequence    the sequence number of the registration, used to tell apart departures
+   *                    with the same train number.
+   */
+  DepartureKey(int minute, String trainNumber, long sequence) {
+    this.minute = minute;
+    this.trainNumber = trainNumber;
+    this.sequence = sequence;
+  }
+
+  /**
+   * Returns the minute of the key.
+   *
+   * @return minutes since midnight.
+   */
+  int getMinute() {
+    return minute;
+  }
+
+  /**
+   * Returns the train number of the key.
+   *
+   * @return the train number.
+   */
+  String getTrainNumber() {
+    return trainNumber;
+  }
+
+  @Override
+  public int compareTo(DepartureKey other) {
+    int compare = Integer.compare(minute, other.minute);
+    if (compare == 0) {
+      compare = trainNumber.compareTo(other.trainNumber);
+    }
+    return compare != 0 ? compare : Long.compare(sequence, other.sequence);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    DepartureKey that = (DepartureKey) o;
+    return minute == that.minute && trainNumber.equals(that.trainNumber)
+        && sequence == that.sequence;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * minute + trainNumber.hashCode()) + Long.hashCode(sequence);
+  }
+}
@@ -0,0 +1,59 @@
+package edu.ntnu.stud.models;
+
+import java.util.List;
+
+/**
+ * One page of the result of a time-window query on a {@link TrainDepartureRegister}.
+ *
+ * <p>The departures are ordered on their actual departure time, which is the departure time plus
+ * the delay. If the window has more departures, the page has a cursor that is passed to the
+ * next query to continue right after the last departure on this page. The cursor points at a
+ * position in the time index, not at a departure, so it stays valid when departures are
+ * registered or removed between the pages.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class DeparturePage {
+  private final List<TrainDeparture> trainDepartures;
+  private final String nextCursor;
+
+  /**
+   * Creates a page.
+   *
+   * @param trainDepartures the departures on the page.
+   * @param nextCursor      the cursor of the next page, or null if this is the last page.
+   */
+  DeparturePage(List<TrainDeparture> trainDepartures, String nextCursor) {
+    this.trainDepartures = List.copyOf(trainDepartures);
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Returns the departures on the page, ordered on actual departure time.
+   *
+   * @return an unmodifiable list of the departures.
+   */
+  public List<TrainDeparture> getTrainDepartures() {
+    return trainDepartures;
+  }
+
+  /**
+   * Returns the cursor to pass to the query for the next page.
+   *
+   * @return the cursor, or null if there are no more departures in the window.
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * Checks if the window has more departures after this page.
+   *
+   * @return true if there is a next page, else false.
+   */
+  public boolean hasNext() {
+    return nextCursor != null;
+  }
+}
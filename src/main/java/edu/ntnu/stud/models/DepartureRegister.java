@@ -0,0 +1,114 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * The operations a register of train departures offers to the user interface.
+ *
+ * <p>{@link TrainDepartureRegister} is the register used by a single dispatcher.
+ * {@link ConcurrentTrainDepartureRegister} can be shared by several threads.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public interface DepartureRegister {
+
+  /**
+   * Registers a train in the register.
+   *
+   * @param trainDeparture The train departure to be registered.
+   * @throws IllegalArgumentException If a train with the same number already exists or if the
+   *                                  departure time is before the current time.
+   */
+  void registerTrainDeparture(TrainDeparture trainDeparture) throws IllegalArgumentException;
+
+  /**
+   * Registers a batch of train departures, skipping the ones that can not be registered.
+   *
+   * @param trainDepartures the train departures to register.
+   * @return the number of train departures that were registered.
+   */
+  default int registerTrainDepartures(Collection<TrainDeparture> trainDepartures) {
+    int registered = 0;
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      try {
+        registerTrainDeparture(trainDeparture);
+        registered++;
+      } catch (IllegalArgumentException e) {
+        // The departure is skipped, like the batch registration of TrainDepartureRegister.
+      }
+    }
+    return registered;
+  }
+
+  /**
+   * Checks if a train with the given train number is already in the register.
+   *
+   * @param trainNumber The train number to be checked.
+   * @return True if a train with the given number exists. Otherwise, false.
+   */
+  boolean checkTrainNumber(String trainNumber);
+
+  /**
+   * Checks if a train with the given destination is in the register.
+   *
+   * @param trainDestination The destination to check.
+   * @return True if there is a train departure with the destination. Otherwise, false.
+   */
+  boolean checkTrainDestination(String trainDestination);
+
+  /**
+   * Retrieves a train departure based on the unique train number.
+   *
+   * @param trainNumber The train number to be retrieved.
+   * @return The train departure with the corresponding train number, or null if it is not found.
+   */
+  TrainDeparture getTrainDepartureNumber(String trainNumber);
+
+  /**
+   * Retrieves a list of the train departures going to the given destination.
+   *
+   * @param destination the destination to be searched for.
+   * @return A list of train departures with the specific destination, sorted on departure time.
+   */
+  ArrayList<TrainDeparture> getTrainDeparturesDestination(String destination);
+
+  /**
+   * Retrieves a string containing the train numbers in the register.
+   *
+   * @return String containing train numbers.
+   */
+  String getTrainNumbers();
+
+  /**
+   * Updates the current time for the register and removes departed trains.
+   *
+   * @param timeNow The current time.
+   * @throws IllegalArgumentException If the provided time is before the current time.
+   */
+  void updateTimeTrainDepartureRegister(LocalTime timeNow) throws IllegalArgumentException;
+
+  /**
+   * Gets the current time.
+   *
+   * @return The current time.
+   */
+  LocalTime getTime();
+
+  /**
+   * Removes a train departure if the train number matches the unique train number in the register.
+   *
+   * @param trainNumber The train number to be removed.
+   */
+  void removeTrainDepartureNumber(String trainNumber);
+
+  /**
+   * Retrieves a sorted list of train departures ascending from departure time.
+   *
+   * @return List of sorted train departures, or null if the register is empty.
+   */
+  ArrayList<TrainDeparture> getSortedTrainDepartures();
+}
@@ -0,0 +1,270 @@
+package edu.ntnu.stud.models;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Search index over destination names that finds names from a prefix of any of their words, in
+ * any case and without the Norwegian letters, and tolerates a few typing errors.
+ *
+ * <p>Names are normalized before they are indexed and searched: lower case, "æ" as "ae", "ø" as
+ * "o" and accents removed after Unicode decomposition, so "stjordal", "Stjørdal" and "STJØRDAL"
+ * are the same name. Every word of every name is put in a trie, so a prefix search walks the
+ * first word of the query once and then visits only the names with a word that starts with it.
+ * A query of several words matches names that hold the same words in a row, the last one as a
+ * prefix, so "oslo se" finds "Oslo Sentrum". The trigrams of every name are put in an
+ * n-gram index, so names within a small edit distance of the query are found among the names
+ * that share a trigram with it instead of among all names.
+ *
+ * <p>Results are ranked: an exact match first, then names that start with the query, then names
+ * with a word that starts with the query, then names within the edit distance, closest first.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+final class DestinationIndex {
+  private static final int EXACT = 0;
+  private static final int NAME_PREFIX = 1;
+  private static final int WORD_PREFIX = 2;
+  private static final int FUZZY = 3;
+
+  private final Node root = new Node();
+  private final HashMap<String, HashSet<String>> namesByTrigram = new HashMap<>();
+  private final HashMap<String, String> normalizedNames = new HashMap<>();
+
+  /**
+   * A node of the trie, with the names that have a word ending at the node.
+   */
+  private static final class Node {
+    private final TreeMap<Character, Node> children = new TreeMap<>();
+    private final HashSet<String> names = new HashSet<>();
+  }
+
+  /**
+   * Adds a destination name to the index.
+   *
+   * @param name the name as it is written on the departures.
+   */
+  void add(String name) {
+    if (normalizedNames.containsKey(name)) {
+      return;
+    }
+    String normalized = normalize(name);
+    normalizedNames.put(name, normalized);
+    for (String word : words(normalized)) {
+      Node node = root;
+      for (int i = 0; i < word.length(); i++) {
+        node = node.children.computeIfAbsent(word.charAt(i), c -> new Node());
+      }
+      node.names.add(name);
+    }
+    for (String trigram : trigrams(normalized)) {
+      namesByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(name);
+    }
+  }
+
+  /**
+   * Removes a destination name from the index.
+   *
+   * @param name the name as it is written on the departures.
+   */
+  void remove(String name) {
+    String normalized = normalizedNames.remove(name);
+    if (normalized == null) {
+      return;
+    }
+    for (String word : words(normalized)) {
+      removeWord(root, word, 0, name);
+    }
+    for (String trigram : trigrams(normalized)) {
+      HashSet<String> names = namesByTrigram.get(trigram);
+      names.remove(name);
+      if (names.isEmpty()) {
+        namesByTrigram.remove(trigram);
+      }
+    }
+  }
+
+  /**
+   * Finds the destination names that match a query, best match first.
+   *
+   * @param query       what the user typed.
+   * @param maxDistance the largest number of typing errors a fuzzy match may have.
+   * @return the matching names, ranked.
+   */
+  List<String> search(String query, int maxDistance) {
+    String normalized = query == null ? "" : normalize(query);
+    if (normalized.isEmpty()) {
+      return new ArrayList<>();
+    }
+    HashMap<String, Integer> ranks = new HashMap<>();
+    String firstWord = words(normalized)[0];
+    Node node = root;
+    for (int i = 0; i < firstWord.length() && node != null; i++) {
+      node = node.children.get(firstWord.charAt(i));
+    }
+    if (node != null) {
+      collect(node, normalized, ranks);
+    }
+    HashSet<String> sharingTrigram = new HashSet<>();
+    for (String trigram : trigrams(normalized)) {
+      HashSet<String> names = namesByTrigram.get(trigram);
+      if (names != null) {
+        sharingTrigram.addAll(names);
+      }
+    }
+    for (String name : sharingTrigram) {
+      if (!ranks.containsKey(name)) {
+        int distance = closestDistance(normalized, normalizedNames.get(name), maxDistance);
+        if (distance <= maxDistance) {
+          ranks.put(name, FUZZY + distance);
+        }
+      }
+    }
+    List<String> names = new ArrayList<>(ranks.keySet());
+    names.sort((a, b) -> {
+      int compare = Integer.compare(ranks.get(a), ranks.get(b));
+      return compare != 0 ? compare : a.compareTo(b);
+    });
+    return names;
+  }
+
+  /**
+   * Normalizes a name for searching: lower case, Norwegian letters spelled out, accents removed
+   * and spaces collapsed.
+   *
+   * @param name the name.
+   * @return the normalized name.
+   */
+  static String normalize(String name) {
+    String lower = name.toLowerCase(Locale.ROOT).replace("æ", "ae").replace("ø", "o");
+    String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+    StringBuilder normalized = new StringBuilder(decomposed.length());
+    boolean space = false;
+    for (int i = 0; i < decomposed.length(); i++) {
+      char c = decomposed.charAt(i);
+      if (Character.getType(c) == Character.NON_SPACING_MARK) {
+        continue;
+      }
+      if (Character.isWhitespace(c) || c == '-') {
+        space = !normalized.isEmpty();
+      } else {
+        if (space) {
+          normalized.append(' ');
+          space = false;
+        }
+        normalized.append(c);
+      }
+    }
+    return normalized.toString();
+  }
+
+  /**
+   * Ranks the names below a trie node, which have a word that starts with the first word of the
+   * query: an exact or whole-name prefix match if the query starts the name, else a prefix match
+   * if the query starts a later word. Names that only match the first word of a longer query are
+   * skipped.
+   */
+  private void collect(Node node, String query, HashMap<String, Integer> ranks) {
+    for (String name : node.names) {
+      rank(name, query, ranks);
+    }
+    for (Node child : node.children.values()) {
+      collect(child, query, ranks);
+    }
+  }
+
+  private void rank(String name, String query, HashMap<String, Integer> ranks) {
+    String normalized = normalizedNames.get(name);
+    if (normalized.equals(query)) {
+      ranks.put(name, EXACT);
+    } else if (normalized.startsWith(query)) {
+      ranks.put(name, NAME_PREFIX);
+    } else if (normalized.contains(" " + query)) {
+      ranks.putIfAbsent(name, WORD_PREFIX);
+    }
+  }
+
+  private static boolean removeWord(Node node, String word, int depth, String name) {
+    if (depth == word.length()) {
+      node.names.remove(name);
+    } else {
+      Node child = node.children.get(word.charAt(depth));
+      if (child != null && removeWord(child, word, depth + 1, name)) {
+        node.children.remove(word.charAt(depth));
+      }
+    }
+    return node.names.isEmpty() && node.children.isEmpty();
+  }
+
+  private static String[] words(String normalized) {
+    return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+  }
+
+  private static List<String> trigrams(String normalized) {
+    String padded = " " + normalized + " ";
+    List<String> trigrams = new ArrayList<>(padded.length());
+    for (int i = 0; i + 3 <= padded.length(); i++) {
+      trigrams.add(padded.substring(i, i + 3));
+    }
+    return trigrams;
+  }
+
+  /**
+   * Returns the smallest edit distance between the query and the whole name or one of its
+   * words, or a value above the limit if none is within it.
+   */
+  private static int closestDistance(String query, String name, int limit) {
+    int closest = editDistance(query, name, limit);
+    for (String word : words(name)) {
+      closest = Math.min(closest, editDistance(query, word, limit));
+    }
+    return closest;
+  }
+
+  /**
+   * Returns the Levenshtein distance between two strings, or limit + 1 if the distance is
+   * larger. Only the cells within the limit of the diagonal are computed, since a path through
+   * any other cell costs more than the limit.
+   */
+  static int editDistance(String a, String b, int limit) {
+    if (Math.abs(a.length() - b.length()) > limit) {
+      return limit + 1;
+    }
+    int outside = limit + 1;
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = Math.min(j, outside);
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      int from = Math.max(1, i - limit);
+      int to = Math.min(b.length(), i + limit);
+      current[0] = Math.min(i, outside);
+      current[from - 1] = from == 1 ? current[0] : outside;
+      if (to < b.length()) {
+        current[to + 1] = outside;
+      }
+      int rowMinimum = current[from - 1];
+      for (int j = from; j <= to; j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1),
+            previous[j - 1] + cost);
+        rowMinimum = Math.min(rowMinimum, current[j]);
+      }
+      if (rowMinimum > limit) {
+        return limit + 1;
+      }
+      int[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+    return Math.min(previous[b.length()], limit + 1);
+  }
+}
@@ -0,0 +1,73 @@
+package edu.ntnu.stud.models;
+
+/**
+ * Formats table rows with fixed-width, left-aligned columns, like a format string of "%-n.ns"
+ * columns separated by " | " and enclosed in "| " and " |", without parsing a format string.
+ *
+ * <p>Values longer than their column are cut off and shorter values are padded with spaces, the
+ * same way {@link String#format(String, Object...)} does, so the rows are character for character
+ * the same.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+final class FixedWidthFormatter {
+  private final int[] widths;
+  private final int rowLength;
+
+  /**
+   * Creates a formatter for rows with the given column widths.
+   *
+   * @param widths the width of each column.
+   */
+  FixedWidthFormatter(int... widths) {
+    this.widths = widths.clone();
+    int length = 1;
+    for (int width : widths) {
+      length += width + 3;
+    }
+    this.rowLength = length;
+  }
+
+  /**
+   * Returns the length of a formatted row.
+   *
+   * @return the number of characters in a row.
+   */
+  int getRowLength() {
+    return rowLength;
+  }
+
+  /**
+   * Appends a row to a builder.
+   *
+   * @param row    the builder to append to.
+   * @param values the value of each column, as many as there are columns.
+   * @return the builder.
+   */
+  StringBuilder appendRow(StringBuilder row, String... values) {
+    row.append('|');
+    for (int column = 0; column < widths.length; column++) {
+      row.append(' ');
+      String value = values[column];
+      int length = Math.min(value.length(), widths[column]);
+      row.append(value, 0, length);
+      for (int i = length; i < widths[column]; i++) {
+        row.append(' ');
+      }
+      row.append(" |");
+    }
+    return row;
+  }
+
+  /**
+   * Formats a row.
+   *
+   * @param values the value of each column, as many as there are columns.
+   * @return the row.
+   */
+  String formatRow(String... values) {
+    return appendRow(new StringBuilder(rowLength), values).toString();
+  }
+}
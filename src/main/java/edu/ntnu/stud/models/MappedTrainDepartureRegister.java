@@ -0,0 +1,626 @@
+package edu.ntnu.stud.models;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * A train departure register that keeps its departures in memory-mapped files instead of on the
+ * heap.
+ *
+ * <p>Every departure is a fixed-width record in a records file: departure time, delay, track,
+ * references to the line and destination, and the train number itself. Lines and destinations
+ * are stored once each in a string region, since they repeat on many departures. Two more files
+ * hold the record numbers sorted in board order and sorted by train number, so the board is read
+ * in order and train numbers are found by binary search.
+ *
+ * <p>All state lives in the files. Opening a directory that already holds a register maps the
+ * files and is done, whatever the size of the register: nothing is read into objects until it is
+ * asked for. The {@link TrainDeparture} objects returned by the register are views created on
+ * demand, which write track and delay changes through to their record like the views of
+ * {@link ColumnarTrainDepartureRegister}.
+ *
+ * <p>Times are stored with minute precision and train numbers can be at most 16 bytes of UTF-8.
+ * The files are not a journal: changes reach the disk when the operating system writes the
+ * mapped pages, or on {@link #close()}.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class MappedTrainDepartureRegister implements DepartureRegister, Closeable {
+  private static final int MAGIC = 0x54445252;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_MAGIC = 0;
+  private static final int HEADER_VERSION = 4;
+  private static final int HEADER_ROW_COUNT = 8;
+  private static final int HEADER_SIZE = 12;
+  private static final int HEADER_TIME = 16;
+  private static final int HEADER_FREE_ROW = 20;
+  private static final int HEADER_LENGTH = 64;
+  private static final int DEPARTURE = 0;
+  private static final int DELAY = 4;
+  private static final int TRACK = 8;
+  private static final int LINE = 12;
+  private static final int DESTINATION = 16;
+  private static final int STAMP = 20;
+  private static final int NEXT_FREE_ROW = 24;
+  private static final int NUMBER_LENGTH = 28;
+  private static final int NUMBER = 32;
+  private static final int MAX_NUMBER_LENGTH = 16;
+  private static final int RECORD_LENGTH = NUMBER + MAX_NUMBER_LENGTH;
+  private static final int STRINGS_USED = 0;
+  private static final int STRINGS_START = 8;
+  private static final int INITIAL_ROWS = 1024;
+  private static final LocalTime[] MINUTES_OF_DAY = new LocalTime[24 * 60];
+
+  static {
+    for (int minute = 0; minute < MINUTES_OF_DAY.length; minute++) {
+      MINUTES_OF_DAY[minute] = LocalTime.of(minute / 60, minute % 60);
+    }
+  }
+
+  private final MappedFile records;
+  private final MappedFile order;
+  private final MappedFile numberOrder;
+  private final MappedFile strings;
+  private HashMap<String, Integer> stringReferences;
+  private final HashMap<Integer, String> stringsByReference = new HashMap<>();
+  private HashMap<Integer, Integer> destinationCounts;
+  private boolean closed;
+
+  /**
+   * A file that is mapped into memory as a whole and mapped again with twice the size when it
+   * needs to grow.
+   */
+  private static final class MappedFile {
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    private MappedFile(Path path, int minimumLength) throws IOException {
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          Math.max(channel.size(), minimumLength));
+    }
+
+    private void ensureLength(long length) {
+      if (length <= buffer.capacity()) {
+        return;
+      }
+      if (length > Integer.MAX_VALUE) {
+        throw new IllegalStateException("The register file can not grow past 2 GB");
+      }
+      try {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+            Math.min(Integer.MAX_VALUE, Math.max(length, 2L * buffer.capacity())));
+      } catch (IOException e) {
+        throw new UncheckedIOException("The register file could not grow", e);
+      }
+    }
+
+    private void close() throws IOException {
+      buffer.force();
+      channel.close();
+    }
+  }
+
+  /**
+   * Writes changes made to a view back to the record it was created from, as long as the record
+   * still holds the same departure. Once the record is freed, or the register is closed, the
+   * observer is no longer attached, so the departure and its views can be registered again.
+   */
+  private final class RowObserver implements TrainDepartureObserver {
+    private final int row;
+    private final int stamp;
+
+    private RowObserver(int row, int stamp) {
+      this.row = row;
+      this.stamp = stamp;
+    }
+
+    @Override
+    public void delayChanged(TrainDeparture trainDeparture, LocalTime oldDelay) {
+      if (getField(row, STAMP) == stamp) {
+        setField(row, DELAY, toMinutes(trainDeparture.getDelay()));
+      }
+    }
+
+    @Override
+    public void trackChanged(TrainDeparture trainDeparture, int oldTrack) {
+      if (getField(row, STAMP) == stamp) {
+        setField(row, TRACK, trainDeparture.getTrack());
+      }
+    }
+
+    @Override
+    public boolean isAttached() {
+      return !closed && getField(row, STAMP) == stamp;
+    }
+  }
+
+  private MappedTrainDepartureRegister(Path directory) throws IOException {
+    records = new MappedFile(directory.resolve("records.bin"),
+        HEADER_LENGTH + INITIAL_ROWS * RECORD_LENGTH);
+    order = new MappedFile(directory.resolve("order.bin"), INITIAL_ROWS * Integer.BYTES);
+    numberOrder = new MappedFile(directory.resolve("numbers.bin"), INITIAL_ROWS * Integer.BYTES);
+    strings = new MappedFile(directory.resolve("strings.bin"), 4096);
+  }
+
+  /**
+   * Opens the register stored in a directory, or creates an empty register there. An existing
+   * register is available as soon as its files are mapped.
+   *
+   * @param directory the directory holding the register files.
+   * @return the register.
+   * @throws IOException if the files can not be opened or do not hold a register.
+   */
+  public static MappedTrainDepartureRegister open(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    MappedTrainDepartureRegister register = new MappedTrainDepartureRegister(directory);
+    MappedByteBuffer header = register.records.buffer;
+    if (header.getInt(HEADER_MAGIC) == 0) {
+      header.putInt(HEADER_VERSION, FORMAT_VERSION);
+      header.putInt(HEADER_ROW_COUNT, 0);
+      header.putInt(HEADER_SIZE, 0);
+      header.putInt(HEADER_TIME, 0);
+      header.putInt(HEADER_FREE_ROW, -1);
+      register.strings.buffer.putInt(STRINGS_USED, STRINGS_START);
+      header.putInt(HEADER_MAGIC, MAGIC);
+    } else if (header.getInt(HEADER_MAGIC) != MAGIC
+        || header.getInt(HEADER_VERSION) != FORMAT_VERSION) {
+      register.close();
+      throw new IOException(directory + " does not hold a train departure register");
+    }
+    return register;
+  }
+
+  /**
+   * Registers a train in the register by copying it into a new record. The given train departure
+   * keeps writing track and delay changes to the record.
+   *
+   * @param trainDeparture The train departure to be registered.
+   * @throws IllegalArgumentException If a train with the same already exists, if the departure
+   *                                  time is before the current time, if the train number is
+   *                                  longer than 16 bytes or if the train departure is
+   *                                  registered in another register.
+   */
+  @Override
+  public void registerTrainDeparture(TrainDeparture trainDeparture)
+      throws IllegalArgumentException {
+    byte[] number = trainDeparture.getTrainNumber().getBytes(StandardCharsets.UTF_8);
+    int numberPosition = findNumber(trainDeparture.getTrainNumber());
+    if (numberPosition >= 0) {
+      throw new IllegalArgumentException("The train could not be registered."
+          + " Since the register already contains a train with matching number");
+    } else if (trainDeparture.getDepartureTime().isBefore(getTime().plusMinutes(1))) {
+      throw new IllegalArgumentException("The train could not be added to the register."
+          + " Since its departure time is before " + getTime().plusMinutes(1));
+    } else if (number.length > MAX_NUMBER_LENGTH) {
+      throw new IllegalArgumentException("The train could not be registered."
+          + " Since its train number is longer than " + MAX_NUMBER_LENGTH + " bytes");
+    }
+    int row = allocateRow();
+    if (!trainDeparture.attachObserver(new RowObserver(row, getField(row, STAMP)))) {
+      freeRow(row);
+      throw new IllegalArgumentException("The train could not be registered."
+          + " Since it is already registered in another register");
+    }
+    setField(row, DEPARTURE, toMinutes(trainDeparture.getDepartureTime()));
+    setField(row, DELAY, toMinutes(trainDeparture.getDelay()));
+    setField(row, TRACK, trainDeparture.getTrack());
+    setField(row, LINE, reference(trainDeparture.getLine()));
+    setField(row, DESTINATION, reference(trainDeparture.getDestination()));
+    countDestination(getField(row, DESTINATION), 1);
+    records.buffer.put(recordOffset(row) + NUMBER, number);
+    setField(row, NUMBER_LENGTH, number.length);
+    int size = size();
+    insert(order, -findInOrder(getField(row, DEPARTURE), trainDeparture.getTrainNumber()) - 1,
+        row, size);
+    insert(numberOrder, -numberPosition - 1, row, size);
+    records.buffer.putInt(HEADER_SIZE, size + 1);
+  }
+
+  @Override
+  public boolean checkTrainNumber(String trainNumber) {
+    return trainNumber != null && findNumber(trainNumber) >= 0;
+  }
+
+  /**
+   * Checks if a train with the given destination is in the register, from a count of departures
+   * per destination.
+   *
+   * @param trainDestination The destination to check.
+   * @return True if there is a train departure with the destination. Otherwise, false.
+   */
+  @Override
+  public boolean checkTrainDestination(String trainDestination) {
+    int reference = existingReference(trainDestination);
+    return reference >= 0 && destinationCounts().getOrDefault(reference, 0) > 0;
+  }
+
+  @Override
+  public TrainDeparture getTrainDepartureNumber(String trainNumber) {
+    if (trainNumber == null) {
+      return null;
+    }
+    int position = findNumber(trainNumber);
+    return position < 0 ? null : view(numberOrder.buffer.getInt(position * Integer.BYTES));
+  }
+
+  /**
+   * Retrieves the train departures going to the given destination. The destination is compared
+   * as a reference into the string region while the records are read in board order.
+   *
+   * @param destination the destination to be searched for.
+   * @return A list of train departures with the specific destination, sorted on departure time.
+   */
+  @Override
+  public ArrayList<TrainDeparture> getTrainDeparturesDestination(String destination) {
+    ArrayList<TrainDeparture> departures = new ArrayList<>();
+    int reference = existingReference(destination);
+    if (reference < 0 || destinationCounts().getOrDefault(reference, 0) == 0) {
+      return departures;
+    }
+    for (int i = 0; i < size(); i++) {
+      int row = order.buffer.getInt(i * Integer.BYTES);
+      if (getField(row, DESTINATION) == reference) {
+        departures.add(view(row));
+      }
+    }
+    return departures;
+  }
+
+  /**
+   * Retrieves a string containing the train numbers in the register, read in order from the
+   * file sorted by train number.
+   *
+   * @return String containing train numbers.
+   */
+  @Override
+  public String getTrainNumbers() {
+    ArrayList<String> numbers = new ArrayList<>(size());
+    for (int i = 0; i < size(); i++) {
+      numbers.add(trainNumber(numberOrder.buffer.getInt(i * Integer.BYTES)));
+    }
+    return "The register contains the following train numbers: \n" + numbers;
+  }
+
+  @Override
+  public void updateTimeTrainDepartureRegister(LocalTime timeNow) throws IllegalArgumentException {
+    if (timeNow.isBefore(getTime())) {
+      throw new IllegalArgumentException("Time must be before " + getTime().toString());
+    }
+    records.buffer.putInt(HEADER_TIME, toMinutes(timeNow));
+    removeDepartedTrains();
+  }
+
+  @Override
+  public LocalTime getTime() {
+    return MINUTES_OF_DAY[records.buffer.getInt(HEADER_TIME)];
+  }
+
+  @Override
+  public void removeTrainDepartureNumber(String trainNumber) {
+    int numberPosition = trainNumber == null ? -1 : findNumber(trainNumber);
+    if (numberPosition < 0) {
+      return;
+    }
+    int row = numberOrder.buffer.getInt(numberPosition * Integer.BYTES);
+    int size = size();
+    delete(order, findInOrder(getField(row, DEPARTURE), trainNumber), size);
+    delete(numberOrder, numberPosition, size);
+    records.buffer.putInt(HEADER_SIZE, size - 1);
+    countDestination(getField(row, DESTINATION), -1);
+    freeRow(row);
+  }
+
+  /**
+   * Retrieves the train departures in board order, read straight from the mapped files.
+   *
+   * @return List of sorted train departures, or null if the register is empty.
+   */
+  @Override
+  public ArrayList<TrainDeparture> getSortedTrainDepartures() {
+    int size = size();
+    if (size == 0) {
+      return null;
+    }
+    ArrayList<TrainDeparture> departures = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      departures.add(view(order.buffer.getInt(i * Integer.BYTES)));
+    }
+    return departures;
+  }
+
+  /**
+   * Returns the number of train departures in the register.
+   *
+   * @return the number of train departures.
+   */
+  public int size() {
+    return records.buffer.getInt(HEADER_SIZE);
+  }
+
+  /**
+   * Writes all changes to disk and closes the files. The register can not be used after it is
+   * closed.
+   *
+   * @throws IOException if the files can not be written.
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    records.close();
+    order.close();
+    numberOrder.close();
+    strings.close();
+  }
+
+  /**
+   * Removes departed trains in one pass over each sorted file, freeing their records and
+   * closing the gaps they leave.
+   */
+  private void removeDepartedTrains() {
+    int nextMinute = records.buffer.getInt(HEADER_TIME) + 1;
+    int size = size();
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      int row = order.buffer.getInt(i * Integer.BYTES);
+      if (getField(row, DEPARTURE) + getField(row, DELAY) < nextMinute) {
+        countDestination(getField(row, DESTINATION), -1);
+        freeRow(row);
+      } else {
+        order.buffer.putInt(kept++ * Integer.BYTES, row);
+      }
+    }
+    int keptNumbers = 0;
+    for (int i = 0; i < size; i++) {
+      int row = numberOrder.buffer.getInt(i * Integer.BYTES);
+      if (getField(row, NUMBER_LENGTH) >= 0) {
+        numberOrder.buffer.putInt(keptNumbers++ * Integer.BYTES, row);
+      }
+    }
+    records.buffer.putInt(HEADER_SIZE, kept);
+  }
+
+  /**
+   * Creates a view of a record. The view writes track and delay changes back to the record.
+   *
+   * @param row the record.
+   * @return a train departure with the values of the record.
+   */
+  private TrainDeparture view(int row) {
+    TrainDeparture trainDeparture = new TrainDeparture(MINUTES_OF_DAY[getField(row, DEPARTURE)],
+        string(getField(row, LINE)), trainNumber(row), string(getField(row, DESTINATION)), true);
+    if (getField(row, TRACK) >= 0) {
+      trainDeparture.setTrack(getField(row, TRACK));
+    }
+    if (getField(row, DELAY) > 0) {
+      trainDeparture.setDelay(MINUTES_OF_DAY[getField(row, DELAY)]);
+    }
+    trainDeparture.attachObserver(new RowObserver(row, getField(row, STAMP)));
+    return trainDeparture;
+  }
+
+  /**
+   * Returns the number of departures per destination reference. The counts are not stored in the
+   * files, so they are counted in one pass over the register the first time they are needed and
+   * kept up to date after that.
+   *
+   * @return the counts by destination reference.
+   */
+  private HashMap<Integer, Integer> destinationCounts() {
+    if (destinationCounts == null) {
+      destinationCounts = new HashMap<>();
+      for (int i = 0; i < size(); i++) {
+        destinationCounts.merge(getField(order.buffer.getInt(i * Integer.BYTES), DESTINATION), 1,
+            Integer::sum);
+      }
+    }
+    return destinationCounts;
+  }
+
+  /**
+   * Changes the count of a destination, if the counts have been made.
+   */
+  private void countDestination(int reference, int change) {
+    if (destinationCounts != null) {
+      destinationCounts.merge(reference, change, (a, b) -> a + b == 0 ? null : a + b);
+    }
+  }
+
+  /**
+   * Takes a free record, or a new record at the end of the records file.
+   *
+   * @return the record.
+   */
+  private int allocateRow() {
+    int freeRow = records.buffer.getInt(HEADER_FREE_ROW);
+    if (freeRow >= 0) {
+      records.buffer.putInt(HEADER_FREE_ROW, getField(freeRow, NEXT_FREE_ROW));
+      return freeRow;
+    }
+    int row = records.buffer.getInt(HEADER_ROW_COUNT);
+    records.ensureLength(recordOffset(row + 1));
+    order.ensureLength((long) (row + 1) * Integer.BYTES);
+    numberOrder.ensureLength((long) (row + 1) * Integer.BYTES);
+    setField(row, STAMP, 0);
+    records.buffer.putInt(HEADER_ROW_COUNT, row + 1);
+    return row;
+  }
+
+  /**
+   * Puts a record on the free list. Views of the record stop writing to it.
+   *
+   * @param row the record to free.
+   */
+  private void freeRow(int row) {
+    setField(row, NUMBER_LENGTH, -1);
+    setField(row, STAMP, getField(row, STAMP) + 1);
+    setField(row, NEXT_FREE_ROW, records.buffer.getInt(HEADER_FREE_ROW));
+    records.buffer.putInt(HEADER_FREE_ROW, row);
+  }
+
+  /**
+   * Inserts a record number into a sorted file, moving the ones after it.
+   */
+  private static void insert(MappedFile file, int position, int row, int size) {
+    MappedByteBuffer buffer = file.buffer;
+    buffer.put((position + 1) * Integer.BYTES, buffer, position * Integer.BYTES,
+        (size - position) * Integer.BYTES);
+    buffer.putInt(position * Integer.BYTES, row);
+  }
+
+  /**
+   * Deletes a record number from a sorted file, moving the ones after it.
+   */
+  private static void delete(MappedFile file, int position, int size) {
+    MappedByteBuffer buffer = file.buffer;
+    buffer.put(position * Integer.BYTES, buffer, (position + 1) * Integer.BYTES,
+        (size - position - 1) * Integer.BYTES);
+  }
+
+  /**
+   * Binary searches the board order for a departure minute and train number.
+   *
+   * @return the position if found, else (-(insertion point) - 1).
+   */
+  private int findInOrder(int minute, String trainNumber) {
+    int low = 0;
+    int high = size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int row = order.buffer.getInt(middle * Integer.BYTES);
+      int compare = Integer.compare(getField(row, DEPARTURE), minute);
+      if (compare == 0) {
+        compare = trainNumber(row).compareTo(trainNumber);
+      }
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Binary searches the file sorted by train number.
+   *
+   * @return the position if found, else (-(insertion point) - 1).
+   */
+  private int findNumber(String trainNumber) {
+    int low = 0;
+    int high = size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int compare = trainNumber(numberOrder.buffer.getInt(middle * Integer.BYTES))
+          .compareTo(trainNumber);
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private String trainNumber(int row) {
+    byte[] number = new byte[getField(row, NUMBER_LENGTH)];
+    records.buffer.get(recordOffset(row) + NUMBER, number);
+    return new String(number, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the string stored at a reference into the string region.
+   */
+  private String string(int reference) {
+    return stringsByReference.computeIfAbsent(reference, r -> {
+      byte[] bytes = new byte[strings.buffer.getInt(r)];
+      strings.buffer.get(r + Integer.BYTES, bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    });
+  }
+
+  /**
+   * Returns the reference of a string in the string region, adding it if it is new.
+   */
+  private int reference(String value) {
+    int reference = existingReference(value);
+    if (reference >= 0) {
+      return reference;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    reference = strings.buffer.getInt(STRINGS_USED);
+    strings.ensureLength((long) reference + Integer.BYTES + bytes.length);
+    strings.buffer.putInt(reference, bytes.length);
+    strings.buffer.put(reference + Integer.BYTES, bytes);
+    strings.buffer.putInt(STRINGS_USED, reference + Integer.BYTES + bytes.length);
+    stringReferences.put(value, reference);
+    return reference;
+  }
+
+  /**
+   * Returns the reference of a string in the string region. The region is read into a map the
+   * first time it is needed, which costs one pass over the distinct lines and destinations.
+   *
+   * @return the reference, or -1 if the string is not in the region.
+   */
+  private int existingReference(String value) {
+    if (stringReferences == null) {
+      stringReferences = new HashMap<>();
+      int used = strings.buffer.getInt(STRINGS_USED);
+      for (int reference = STRINGS_START; reference < used;
+           reference += Integer.BYTES + strings.buffer.getInt(reference)) {
+        stringReferences.put(string(reference), reference);
+      }
+    }
+    Integer reference = value == null ? null : stringReferences.get(value);
+    return reference == null ? -1 : reference;
+  }
+
+  private int getField(int row, int field) {
+    return records.buffer.getInt(recordOffset(row) + field);
+  }
+
+  private void setField(int row, int field, int value) {
+    records.buffer.putInt(recordOffset(row) + field, value);
+  }
+
+  private static int recordOffset(int row) {
+    return HEADER_LENGTH + row * RECORD_LENGTH;
+  }
+
+  private static int toMinutes(LocalTime localTime) {
+    return localTime.getHour() * 60 + localTime.getMinute();
+  }
+
+  /**
+   * Returns a string representation of the train departures in the register.
+   *
+   * @return String representing the content of the register.
+   */
+  @Override
+  public String toString() {
+    ArrayList<String> departures = new ArrayList<>(size());
+    for (int i = 0; i < size(); i++) {
+      departures.add(view(order.buffer.getInt(i * Integer.BYTES)).toString());
+    }
+    return "The register contains the following train departures: \n"
+        + String.join("\n", departures);
+  }
+}
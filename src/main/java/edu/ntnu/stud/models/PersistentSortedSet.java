@@ -0,0 +1,264 @@
+package edu.ntnu.stud.models;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable sorted set backed by a persistent AVL tree.
+ *
+ * <p>Adding or removing an element returns a new set and leaves this one untouched. Only the
+ * nodes on the path from the root to the changed element are copied, so a new version costs
+ * O(log n) time and memory and shares every other node with the previous version.
+ *
+ * <p>Lookups take a search function instead of a probe element. The function compares the
+ * element that is searched for with an element of the set, like
+ * {@code comparator.compare(target, element)} would.
+ *
+ * @param <T> the type of the elements.
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+final class PersistentSortedSet<T> {
+  private final Comparator<? super T> comparator;
+  private final Node<T> root;
+
+  /**
+   * A node in the tree. Nodes are never changed after they are created.
+   *
+   * @param <T> the type of the element.
+   */
+  private static final class Node<T> {
+    private final T value;
+    private final Node<T> left;
+    private final Node<T> right;
+    private final int height;
+    private final int size;
+
+    private Node(T value, Node<T> left, Node<T> right) {
+      this.value = value;
+      this.left = left;
+      this.right = right;
+      this.height = 1 + Math.max(height(left), height(right));
+      this.size = 1 + size(left) + size(right);
+    }
+  }
+
+  private PersistentSortedSet(Comparator<? super T> comparator, Node<T> root) {
+    this.comparator = comparator;
+    this.root = root;
+  }
+
+  /**
+   * Returns an empty set ordered by the given comparator.
+   *
+   * @param comparator the order of the elements.
+   * @param <T>        the type of the elements.
+   * @return an empty set.
+   */
+  static <T> PersistentSortedSet<T> empty(Comparator<? super T> comparator) {
+    return new PersistentSortedSet<>(comparator, null);
+  }
+
+  /**
+   * Builds a balanced set from elements that are already sorted by the comparator, in O(n).
+   *
+   * @param comparator the order of the elements.
+   * @param sorted     the elements in sorted order, without duplicates.
+   * @param <T>        the type of the elements.
+   * @return a set with the given elements.
+   */
+  static <T> PersistentSortedSet<T> fromSorted(Comparator<? super T> comparator,
+                                               List<? extends T> sorted) {
+    return new PersistentSortedSet<>(comparator, build(sorted, 0, sorted.size()));
+  }
+
+  /**
+   * Returns the number of elements in the set.
+   *
+   * @return the number of elements.
+   */
+  int size() {
+    return size(root);
+  }
+
+  /**
+   * Checks if the set is empty.
+   *
+   * @return true if the set has no elements, else false.
+   */
+  boolean isEmpty() {
+    return root == null;
+  }
+
+  /**
+   * Returns a set that also contains the given element. An element equal to it by the
+   * comparator is replaced.
+   *
+   * @param value the element to add.
+   * @return the new set.
+   */
+  PersistentSortedSet<T> add(T value) {
+    return new PersistentSortedSet<>(comparator, add(root, value));
+  }
+
+  /**
+   * Returns a set without the element that is equal to the given element by the comparator.
+   *
+   * @param value the element to remove.
+   * @return the new set, or this set if it did not contain the element.
+   */
+  PersistentSortedSet<T> remove(T value) {
+    Node<T> newRoot = remove(root, value);
+    return newRoot == root ? this : new PersistentSortedSet<>(comparator, newRoot);
+  }
+
+  /**
+   * Finds the element matching the search function.
+   *
+   * @param search compares the element searched for with an element of the set.
+   * @return the matching element, or null if there is none.
+   */
+  T find(ToIntFunction<? super T> search) {
+    Node<T> node = root;
+    while (node != null) {
+      int compare = search.applyAsInt(node.value);
+      if (compare == 0) {
+        return node.value;
+      }
+      node = compare < 0 ? node.left : node.right;
+    }
+    return null;
+  }
+
+  /**
+   * Performs the action for every element in sorted order.
+   *
+   * @param action the action to perform.
+   */
+  void forEach(Consumer<? super T> action) {
+    forEachFrom(element -> -1, element -> {
+      action.accept(element);
+      return true;
+    });
+  }
+
+  /**
+   * Performs the action for the elements at or after a lower bound, in sorted order, until the
+   * action returns false. Costs O(log n + k) for k visited elements.
+   *
+   * @param lowerBound compares the lower bound with an element of the set.
+   * @param action     the action to perform, returning false to stop.
+   */
+  void forEachFrom(ToIntFunction<? super T> lowerBound, Predicate<? super T> action) {
+    forEachFrom(root, lowerBound, action);
+  }
+
+  /**
+   * Returns the elements in sorted order.
+   *
+   * @return a new list with the elements.
+   */
+  List<T> toList() {
+    List<T> list = new ArrayList<>(size());
+    forEach(list::add);
+    return list;
+  }
+
+  private static <T> boolean forEachFrom(Node<T> node, ToIntFunction<? super T> lowerBound,
+                                         Predicate<? super T> action) {
+    if (node == null) {
+      return true;
+    }
+    if (lowerBound.applyAsInt(node.value) <= 0) {
+      return forEachFrom(node.left, lowerBound, action)
+          && action.test(node.value)
+          && forEachFrom(node.right, lowerBound, action);
+    }
+    return forEachFrom(node.right, lowerBound, action);
+  }
+
+  private Node<T> add(Node<T> node, T value) {
+    if (node == null) {
+      return new Node<>(value, null, null);
+    }
+    int compare = comparator.compare(value, node.value);
+    if (compare < 0) {
+      return balance(node.value, add(node.left, value), node.right);
+    } else if (compare > 0) {
+      return balance(node.value, node.left, add(node.right, value));
+    }
+    return new Node<>(value, node.left, node.right);
+  }
+
+  private Node<T> remove(Node<T> node, T value) {
+    if (node == null) {
+      return null;
+    }
+    int compare = comparator.compare(value, node.value);
+    if (compare < 0) {
+      Node<T> left = remove(node.left, value);
+      return left == node.left ? node : balance(node.value, left, node.right);
+    } else if (compare > 0) {
+      Node<T> right = remove(node.right, value);
+      return right == node.right ? node : balance(node.value, node.left, right);
+    }
+    if (node.left == null) {
+      return node.right;
+    } else if (node.right == null) {
+      return node.left;
+    }
+    Node<T> smallest = node.right;
+    while (smallest.left != null) {
+      smallest = smallest.left;
+    }
+    return balance(smallest.value, node.left, removeSmallest(node.right));
+  }
+
+  private static <T> Node<T> removeSmallest(Node<T> node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node.value, removeSmallest(node.left), node.right);
+  }
+
+  private static <T> Node<T> balance(T value, Node<T> left, Node<T> right) {
+    if (height(left) > height(right) + 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+      }
+      Node<T> middle = left.right;
+      return new Node<>(middle.value, new Node<>(left.value, left.left, middle.left),
+          new Node<>(value, middle.right, right));
+    } else if (height(right) > height(left) + 1) {
+      if (height(right.right) >= height(right.left)) {
+        return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+      }
+      Node<T> middle = right.left;
+      return new Node<>(middle.value, new Node<>(value, left, middle.left),
+          new Node<>(right.value, middle.right, right.right));
+    }
+    return new Node<>(value, left, right);
+  }
+
+  private static <T> Node<T> build(List<? extends T> sorted, int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    int middle = (from + to) >>> 1;
+    return new Node<>(sorted.get(middle), build(sorted, from, middle),
+        build(sorted, middle + 1, to));
+  }
+
+  private static int height(Node<?> node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static int size(Node<?> node) {
+    return node == null ? 0 : node.size;
+  }
+}
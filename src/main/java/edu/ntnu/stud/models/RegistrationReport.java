@@ -0,0 +1,109 @@
+package edu.ntnu.stud.models;
+
+/**
+ * The outcome of registering a {@link TrainDepartureBatch}, one code per row.
+ *
+ * <p>The codes are kept as one byte per row in the order of the batch, so the report of a large
+ * timetable stays small and the outcome of a row is found by its index.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class RegistrationReport {
+
+  /**
+   * The outcome of one row.
+   */
+  public enum Code {
+    REGISTERED("The train was registered"),
+    MISSING_DEPARTURE_TIME("The time can not be null"),
+    BLANK_FIELD("The line, train number or destination was a blank string"),
+    INVALID_TRACK("Track cant be less than 0"),
+    DEPARTURE_PASSED("The departure time is not after the current time"),
+    DUPLICATE_TRAIN_NUMBER("The register already contains a train with matching number");
+
+    private final String message;
+
+    Code(String message) {
+      this.message = message;
+    }
+
+    /**
+     * Returns a description of the outcome for the user.
+     *
+     * @return the description.
+     */
+    public String getMessage() {
+      return message;
+    }
+  }
+
+  private static final Code[] CODES = Code.values();
+  private final byte[] codes;
+  private final int registered;
+
+  /**
+   * Creates a report.
+   *
+   * @param codes      the ordinal of the code of every row.
+   * @param registered the number of rows that were registered.
+   */
+  RegistrationReport(byte[] codes, int registered) {
+    this.codes = codes;
+    this.registered = registered;
+  }
+
+  /**
+   * Returns the number of rows in the batch.
+   *
+   * @return the number of rows.
+   */
+  public int size() {
+    return codes.length;
+  }
+
+  /**
+   * Returns the outcome of a row.
+   *
+   * @param row the index of the row in the batch.
+   * @return the code of the row.
+   */
+  public Code getCode(int row) {
+    return CODES[codes[row]];
+  }
+
+  /**
+   * Returns the number of rows that were registered.
+   *
+   * @return the number of registered rows.
+   */
+  public int getRegistered() {
+    return registered;
+  }
+
+  /**
+   * Returns the number of rows that were not registered.
+   *
+   * @return the number of rejected rows.
+   */
+  public int getRejected() {
+    return codes.length - registered;
+  }
+
+  /**
+   * Returns the indexes of the rows that were not registered, in batch order.
+   *
+   * @return a new array with the indexes of the rejected rows.
+   */
+  public int[] getRejectedRows() {
+    int[] rows = new int[getRejected()];
+    int count = 0;
+    for (int row = 0; row < codes.length; row++) {
+      if (codes[row] != Code.REGISTERED.ordinal()) {
+        rows[count++] = row;
+      }
+    }
+    return rows;
+  }
+}
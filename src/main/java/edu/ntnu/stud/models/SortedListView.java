@@ -0,0 +1,106 @@
+package edu.ntnu.stud.models;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ * Read-only {@link SortedSet} view of a list that is already sorted by a comparator.
+ *
+ * <p>{@link java.util.TreeSet} and {@link java.util.TreeMap} build their tree in linear time when
+ * an empty set is filled from a sorted set with the same comparator. This view lets a sorted list
+ * be used that way without first copying it into another tree. Lookups and range views use
+ * binary search over the list, and range views are views of sub lists, so nothing is copied. The
+ * view can not be changed.
+ *
+ * @param <E> the type of the elements.
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+final class SortedListView<E> extends AbstractSet<E> implements SortedSet<E> {
+  private final List<E> sorted;
+  private final Comparator<? super E> comparator;
+
+  /**
+   * Creates a view of a sorted list.
+   *
+   * @param sorted     the list, sorted by the comparator and without duplicates.
+   * @param comparator the comparator the list is sorted by.
+   */
+  SortedListView(List<E> sorted, Comparator<? super E> comparator) {
+    this.sorted = sorted;
+    this.comparator = comparator;
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return Collections.unmodifiableList(sorted).iterator();
+  }
+
+  @Override
+  public int size() {
+    return sorted.size();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean contains(Object o) {
+    return Collections.binarySearch(sorted, (E) o, comparator) >= 0;
+  }
+
+  @Override
+  public Comparator<? super E> comparator() {
+    return comparator;
+  }
+
+  @Override
+  public E first() {
+    if (sorted.isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    return sorted.get(0);
+  }
+
+  @Override
+  public E last() {
+    if (sorted.isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    return sorted.get(sorted.size() - 1);
+  }
+
+  @Override
+  public SortedSet<E> subSet(E fromElement, E toElement) {
+    if (comparator.compare(fromElement, toElement) > 0) {
+      throw new IllegalArgumentException("fromElement is after toElement");
+    }
+    return view(indexOf(fromElement), indexOf(toElement));
+  }
+
+  @Override
+  public SortedSet<E> headSet(E toElement) {
+    return view(0, indexOf(toElement));
+  }
+
+  @Override
+  public SortedSet<E> tailSet(E fromElement) {
+    return view(indexOf(fromElement), sorted.size());
+  }
+
+  /**
+   * Returns the index of the first element that is not before the given element.
+   */
+  private int indexOf(E element) {
+    int index = Collections.binarySearch(sorted, element, comparator);
+    return index >= 0 ? index : -(index + 1);
+  }
+
+  private SortedSet<E> view(int from, int to) {
+    return new SortedListView<>(sorted.subList(from, to), comparator);
+  }
+}
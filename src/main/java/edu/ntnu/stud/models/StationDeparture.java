@@ -0,0 +1,53 @@
+package edu.ntnu.stud.models;
+
+/**
+ * A train departure together with the station it departs from, as returned by the queries of a
+ * {@link StationNetwork} that cover several stations.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class StationDeparture {
+  private final String station;
+  private final TrainDepartureSnapshot trainDeparture;
+
+  /**
+   * Creates a departure from a station.
+   *
+   * @param station        the station.
+   * @param trainDeparture the train departure.
+   */
+  StationDeparture(String station, TrainDepartureSnapshot trainDeparture) {
+    this.station = station;
+    this.trainDeparture = trainDeparture;
+  }
+
+  /**
+   * Returns the station the train departs from.
+   *
+   * @return the name of the station.
+   */
+  public String getStation() {
+    return station;
+  }
+
+  /**
+   * Returns the train departure.
+   *
+   * @return the train departure, as it was in the snapshot the query read.
+   */
+  public TrainDepartureSnapshot getTrainDeparture() {
+    return trainDeparture;
+  }
+
+  /**
+   * Returns a string that represents the departure and its station.
+   *
+   * @return a string with the station and the train departure.
+   */
+  @Override
+  public String toString() {
+    return station + ": " + trainDeparture;
+  }
+}
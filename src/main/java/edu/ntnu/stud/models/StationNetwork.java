@@ -0,0 +1,252 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * A network of stations with one {@link TrainDepartureRegister} per station.
+ *
+ * <p>Changes to a single station are routed to its register. Queries that cover the whole
+ * network read the latest snapshot of every station in parallel and merge the results, which
+ * are already sorted by departure time in every station, with a k-way merge instead of sorting
+ * them again. {@link #updateTime(LocalTime)} moves the clock of every station in parallel, since
+ * the registers share nothing. All tasks run on the given {@link ForkJoinPool}.
+ *
+ * <p>Like a single register, the network is changed by one dispatcher thread, while queries can
+ * be made from any thread.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class StationNetwork {
+  /**
+   * Order of the merged departures, by departure time, then train number and then station.
+   */
+  private static final Comparator<StationDeparture> NETWORK_ORDER = (a, b) -> {
+    int compare = a.getTrainDeparture().getDepartureTime()
+        .compareTo(b.getTrainDeparture().getDepartureTime());
+    if (compare == 0) {
+      compare = a.getTrainDeparture().getTrainNumber()
+          .compareTo(b.getTrainDeparture().getTrainNumber());
+    }
+    return compare != 0 ? compare : a.getStation().compareTo(b.getStation());
+  };
+
+  private final ConcurrentHashMap<String, TrainDepartureRegister> stations =
+      new ConcurrentHashMap<>();
+  private final ForkJoinPool pool;
+  private volatile LocalTime time = LocalTime.of(0, 0);
+
+  /**
+   * Creates an empty network that runs its parallel work on the common pool.
+   */
+  public StationNetwork() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates an empty network that runs its parallel work on the given pool.
+   *
+   * @param pool the pool for the queries and clock updates.
+   */
+  public StationNetwork(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Adds a station with an empty register at the current time of the network.
+   *
+   * @param station the name of the station.
+   * @return the register of the station.
+   * @throws IllegalArgumentException if the name is blank or the station is already in the
+   *                                  network.
+   */
+  public TrainDepartureRegister addStation(String station) throws IllegalArgumentException {
+    if (station == null || station.isBlank()) {
+      throw new IllegalArgumentException("The station must have a name");
+    }
+    TrainDepartureRegister register = new TrainDepartureRegister();
+    register.updateTimeTrainDepartureRegister(time);
+    if (stations.putIfAbsent(station, register) != null) {
+      throw new IllegalArgumentException("The network already contains the station " + station);
+    }
+    return register;
+  }
+
+  /**
+   * Returns the register of a station.
+   *
+   * @param station the name of the station.
+   * @return the register, or null if the station is not in the network.
+   */
+  public TrainDepartureRegister getStation(String station) {
+    return station == null ? null : stations.get(station);
+  }
+
+  /**
+   * Returns the names of the stations in the network.
+   *
+   * @return the names in alphabetical order.
+   */
+  public List<String> getStations() {
+    return new ArrayList<>(new TreeSet<>(stations.keySet()));
+  }
+
+  /**
+   * Registers a train departure at a station.
+   *
+   * @param station        the name of the station.
+   * @param trainDeparture the train departure.
+   * @throws IllegalArgumentException if the station is not in the network or its register
+   *                                  refuses the train departure.
+   */
+  public void registerTrainDeparture(String station, TrainDeparture trainDeparture)
+      throws IllegalArgumentException {
+    register(station).registerTrainDeparture(trainDeparture);
+  }
+
+  /**
+   * Retrieves a train departure at a station based on its train number.
+   *
+   * @param station     the name of the station.
+   * @param trainNumber the train number.
+   * @return the train departure, or null if the station has no train with the number.
+   * @throws IllegalArgumentException if the station is not in the network.
+   */
+  public TrainDeparture getTrainDepartureNumber(String station, String trainNumber)
+      throws IllegalArgumentException {
+    return register(station).getTrainDepartureNumber(trainNumber);
+  }
+
+  /**
+   * Removes a train departure from a station.
+   *
+   * @param station     the name of the station.
+   * @param trainNumber the train number.
+   * @throws IllegalArgumentException if the station is not in the network.
+   */
+  public void removeTrainDepartureNumber(String station, String trainNumber)
+      throws IllegalArgumentException {
+    register(station).removeTrainDepartureNumber(trainNumber);
+  }
+
+  /**
+   * Returns every departure in the network, sorted by departure time.
+   *
+   * @return a new list with the departures.
+   */
+  public List<StationDeparture> getSortedTrainDepartures() {
+    return fanOut(TrainDepartureRegisterSnapshot::getSortedTrainDepartures);
+  }
+
+  /**
+   * Returns every departure in the network going to a destination, sorted by departure time.
+   *
+   * @param destination the destination.
+   * @return a new list with the departures.
+   */
+  public List<StationDeparture> getTrainDeparturesDestination(String destination) {
+    return fanOut(snapshot -> snapshot.getTrainDeparturesDestination(destination));
+  }
+
+  /**
+   * Returns the number of departures in the network.
+   *
+   * @return the number of departures.
+   */
+  public int size() {
+    return stations.values().stream().mapToInt(register -> register.getSnapshot().size()).sum();
+  }
+
+  /**
+   * Returns the current time of the network.
+   *
+   * @return the current time.
+   */
+  public LocalTime getTime() {
+    return time;
+  }
+
+  /**
+   * Updates the time of every station in parallel, removing the departed trains. The time of the
+   * network is only moved once every station has been updated, so a failed update leaves it at
+   * the time all stations have reached.
+   *
+   * @param timeNow the new time.
+   * @throws IllegalArgumentException if the time is before the current time of the network.
+   */
+  public void updateTime(LocalTime timeNow) throws IllegalArgumentException {
+    if (timeNow.isBefore(time)) {
+      throw new IllegalArgumentException("Time must be after " + time);
+    }
+    pool.submit(() -> stations.values().parallelStream()
+        .forEach(register -> register.updateTimeTrainDepartureRegister(timeNow))).join();
+    time = timeNow;
+  }
+
+  private TrainDepartureRegister register(String station) throws IllegalArgumentException {
+    TrainDepartureRegister register = getStation(station);
+    if (register == null) {
+      throw new IllegalArgumentException("The network does not contain the station " + station);
+    }
+    return register;
+  }
+
+  /**
+   * Runs a query on the latest snapshot of every station in parallel and merges the results.
+   *
+   * @param query returns the departures of one station, sorted by departure time.
+   * @return the merged departures.
+   */
+  private List<StationDeparture> fanOut(
+      Function<TrainDepartureRegisterSnapshot, List<TrainDepartureSnapshot>> query) {
+    List<List<StationDeparture>> results = pool.submit(() -> stations.entrySet()
+        .parallelStream()
+        .map(station -> query.apply(station.getValue().getSnapshot()).stream()
+            .map(departure -> new StationDeparture(station.getKey(), departure))
+            .toList())
+        .filter(departures -> !departures.isEmpty())
+        .toList()).join();
+    return merge(results);
+  }
+
+  /**
+   * Merges lists that are sorted in network order into one sorted list, with a heap holding the
+   * next departure of every list.
+   *
+   * @param sortedLists the lists to merge.
+   * @return the merged list.
+   */
+  static List<StationDeparture> merge(List<List<StationDeparture>> sortedLists) {
+    int total = 0;
+    for (List<StationDeparture> list : sortedLists) {
+      total += list.size();
+    }
+    List<StationDeparture> merged = new ArrayList<>(total);
+    int[] positions = new int[sortedLists.size()];
+    PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+        (a, b) -> NETWORK_ORDER.compare(sortedLists.get(a).get(positions[a]),
+            sortedLists.get(b).get(positions[b])));
+    for (int i = 0; i < sortedLists.size(); i++) {
+      if (!sortedLists.get(i).isEmpty()) {
+        heap.add(i);
+      }
+    }
+    while (!heap.isEmpty()) {
+      int list = heap.poll();
+      merged.add(sortedLists.get(list).get(positions[list]));
+      if (++positions[list] < sortedLists.get(list).size()) {
+        heap.add(list);
+      }
+    }
+    return merged;
+  }
+}
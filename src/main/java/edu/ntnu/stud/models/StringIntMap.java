@@ -0,0 +1,144 @@
+package edu.ntnu.stud.models;
+
+/**
+ * Hash map from String keys to int values without boxing.
+ *
+ * <p>Uses open addressing with linear probing in primitive arrays, the same layout as
+ * {@link TrainNumberIndex}, and backward-shift removal.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+class StringIntMap {
+  private static final int MINIMUM_CAPACITY = 16;
+  private String[] keys;
+  private int[] hashes;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  /**
+   * Creates an empty map.
+   */
+  StringIntMap() {
+    allocate(MINIMUM_CAPACITY);
+  }
+
+  /**
+   * Returns the number of keys in the map.
+   *
+   * @return number of keys.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the value of a key.
+   *
+   * @param key     the key to look up.
+   * @param missing the value to return if the key is not in the map.
+   * @return the value of the key, or the missing value.
+   */
+  int get(String key, int missing) {
+    if (key == null) {
+      return missing;
+    }
+    int slot = find(key, hash(key));
+    return keys[slot] == null ? missing : values[slot];
+  }
+
+  /**
+   * Sets the value of a key.
+   *
+   * @param key   the key.
+   * @param value the value.
+   */
+  void put(String key, int value) {
+    int hash = hash(key);
+    int slot = find(key, hash);
+    if (keys[slot] == null) {
+      keys[slot] = key;
+      hashes[slot] = hash;
+      size++;
+    }
+    values[slot] = value;
+    if (size * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+  }
+
+  /**
+   * Removes a key from the map.
+   *
+   * @param key the key to remove.
+   * @return true if the key was in the map, else false.
+   */
+  boolean remove(String key) {
+    if (key == null) {
+      return false;
+    }
+    int slot = find(key, hash(key));
+    if (keys[slot] == null) {
+      return false;
+    }
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (keys[next] != null) {
+      int home = hashes[next] & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        hashes[gap] = hashes[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[gap] = null;
+    size--;
+    return true;
+  }
+
+  /**
+   * Returns the slot holding the key, or the empty slot where it would be inserted.
+   */
+  private int find(String key, int hash) {
+    int slot = hash & mask;
+    while (keys[slot] != null
+        && (hashes[slot] != hash || !keys[slot].equals(key))) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void resize(int capacity) {
+    String[] oldKeys = keys;
+    int[] oldHashes = hashes;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int slot = oldHashes[i] & mask;
+        while (keys[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        hashes[slot] = oldHashes[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new String[capacity];
+    hashes = new int[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int hash(String key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
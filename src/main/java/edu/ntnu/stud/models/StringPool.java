@@ -0,0 +1,72 @@
+package edu.ntnu.stud.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Pool that holds one instance of every distinct line or destination and numbers them.
+ *
+ * <p>A day's timetable has a few dozen lines and destinations repeated on thousands of
+ * departures. {@link ColumnarTrainDepartureRegister} keeps only the ordinal of a row's line and
+ * destination in its own pools, so the repeated strings are stored once per register and two rows
+ * have the same destination if their ordinals are equal.
+ *
+ * <p>Strings are never removed, since the ordinals in the rows must stay valid. A pool belongs to
+ * the register that numbers its rows with it, so the strings are released together with the
+ * register and a pool only holds the names that register has seen. Like the register, a pool is
+ * not thread-safe.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+final class StringPool {
+  private final HashMap<String, Integer> ordinals = new HashMap<>();
+  private final ArrayList<String> values = new ArrayList<>();
+
+  /**
+   * Returns the ordinal of a string, adding the string to the pool if it is new.
+   *
+   * @param value the string.
+   * @return the ordinal of the string.
+   */
+  int ordinal(String value) {
+    Integer ordinal = ordinals.get(value);
+    if (ordinal != null) {
+      return ordinal;
+    }
+    values.add(value);
+    ordinals.put(value, values.size() - 1);
+    return values.size() - 1;
+  }
+
+  /**
+   * Returns the ordinal of a string without adding it.
+   *
+   * @param value the string.
+   * @return the ordinal of the string, or -1 if it is not in the pool.
+   */
+  int find(String value) {
+    Integer ordinal = value == null ? null : ordinals.get(value);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Returns the pooled instance of the string with an ordinal.
+   *
+   * @param ordinal the ordinal.
+   * @return the pooled string.
+   */
+  String get(int ordinal) {
+    return values.get(ordinal);
+  }
+
+  /**
+   * Returns the number of strings in the pool.
+   *
+   * @return the number of strings.
+   */
+  int size() {
+    return values.size();
+  }
+}
@@ -0,0 +1,229 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Keeps track of which trains occupy which tracks, finds double bookings and assigns free tracks
+ * to the departures that have none.
+ *
+ * <p>A train occupies its track for a fixed number of minutes before it actually departs, at its
+ * departure time plus its delay. Two trains on the same track therefore conflict when they
+ * depart less than that number of minutes apart. Every track keeps its trains in a tree ordered
+ * on the actual departure minute, so the trains that overlap a given train are found with one
+ * range query in O(log n + k).
+ *
+ * <p>The allocator listens to the register, so a changed track or delay is checked at once
+ * against the trains on the same track, and only the trains near the old and the new place are
+ * checked again. Like the register it must only be used from the dispatcher thread.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class TrackAllocator implements TrainDepartureRegisterListener {
+  private final TrainDepartureRegister register;
+  private final int tracks;
+  private final int dwellMinutes;
+  private final ArrayList<TreeMap<DepartureKey, TrainDeparture>> trainsByTrack;
+  private final HashMap<String, Placement> placements = new HashMap<>();
+  private final TreeSet<String> conflicts = new TreeSet<>();
+
+  /**
+   * Where a train is on the track trees, kept so it can be found again after its delay changed.
+   */
+  private static final class Placement {
+    private final int track;
+    private final DepartureKey key;
+
+    private Placement(int track, DepartureKey key) {
+      this.track = track;
+      this.key = key;
+    }
+  }
+
+  /**
+   * Creates an allocator for the tracks 1 to the given number, places the departures that
+   * already have one of those tracks and starts listening to the register. Departures on other
+   * tracks are left alone.
+   *
+   * @param register     the register.
+   * @param tracks       the number of tracks at the station.
+   * @param dwellMinutes the number of minutes a train occupies its track before it departs.
+   * @throws IllegalArgumentException if the number of tracks or the dwell time is not positive.
+   */
+  public TrackAllocator(TrainDepartureRegister register, int tracks, int dwellMinutes)
+      throws IllegalArgumentException {
+    if (tracks <= 0) {
+      throw new IllegalArgumentException("The station must have at least one track");
+    }
+    if (dwellMinutes <= 0) {
+      throw new IllegalArgumentException("The dwell time must be at least one minute");
+    }
+    this.register = register;
+    this.tracks = tracks;
+    this.dwellMinutes = dwellMinutes;
+    this.trainsByTrack = new ArrayList<>(tracks + 1);
+    for (int track = 0; track <= tracks; track++) {
+      trainsByTrack.add(new TreeMap<>());
+    }
+    for (TrainDeparture trainDeparture : departures()) {
+      place(trainDeparture);
+    }
+    register.addListener(this);
+  }
+
+  /**
+   * Returns the train numbers of the trains that would conflict with a train departure if it
+   * was given the track.
+   *
+   * @param trainDeparture the train departure.
+   * @param track          the track.
+   * @return the train numbers of the conflicting trains, empty if the track is free.
+   * @throws IllegalArgumentException if the track is not at the station.
+   */
+  public List<String> findConflicts(TrainDeparture trainDeparture, int track)
+      throws IllegalArgumentException {
+    if (track < 1 || track > tracks) {
+      throw new IllegalArgumentException("The station has no track " + track);
+    }
+    List<String> trainNumbers = new ArrayList<>();
+    for (TrainDeparture other : overlapping(track, trainDeparture.getEffectiveMinute())) {
+      if (!other.getTrainNumber().equals(trainDeparture.getTrainNumber())) {
+        trainNumbers.add(other.getTrainNumber());
+      }
+    }
+    return trainNumbers;
+  }
+
+  /**
+   * Returns the train numbers of the trains that share their track with another train at the
+   * same time.
+   *
+   * @return the train numbers in alphabetical order.
+   */
+  public List<String> getConflicts() {
+    return new ArrayList<>(conflicts);
+  }
+
+  /**
+   * Gives a free track to every departure without one, in order of actual departure time, taking
+   * the lowest free track. Departures no track is free for are left without one.
+   *
+   * @return the number of departures that were given a track.
+   */
+  public int assignTracks() {
+    ArrayList<TrainDeparture> unassigned = new ArrayList<>();
+    for (TrainDeparture trainDeparture : departures()) {
+      if (trainDeparture.getTrack() == -1) {
+        unassigned.add(trainDeparture);
+      }
+    }
+    unassigned.sort((a, b) -> Integer.compare(a.getEffectiveMinute(), b.getEffectiveMinute()));
+    int assigned = 0;
+    for (TrainDeparture trainDeparture : unassigned) {
+      for (int track = 1; track <= tracks; track++) {
+        if (overlapping(track, trainDeparture.getEffectiveMinute()).isEmpty()) {
+          trainDeparture.setTrack(track);
+          assigned++;
+          break;
+        }
+      }
+    }
+    return assigned;
+  }
+
+  /**
+   * Stops listening to the register.
+   */
+  public void close() {
+    register.removeListener(this);
+  }
+
+  @Override
+  public void onRegistered(TrainDeparture trainDeparture) {
+    place(trainDeparture);
+  }
+
+  @Override
+  public void onTrackAssigned(TrainDeparture trainDeparture, int oldTrack) {
+    release(trainDeparture.getTrainNumber());
+    place(trainDeparture);
+  }
+
+  @Override
+  public void onDelayed(TrainDeparture trainDeparture, LocalTime oldDelay) {
+    release(trainDeparture.getTrainNumber());
+    place(trainDeparture);
+  }
+
+  @Override
+  public void onRemoved(TrainDeparture trainDeparture) {
+    release(trainDeparture.getTrainNumber());
+  }
+
+  @Override
+  public void onExpired(TrainDeparture trainDeparture) {
+    release(trainDeparture.getTrainNumber());
+  }
+
+  private List<TrainDeparture> departures() {
+    List<TrainDeparture> departures = register.getSortedTrainDepartures();
+    return departures == null ? List.of() : departures;
+  }
+
+  /**
+   * Returns the trains on a track that depart less than the dwell time from the given minute.
+   */
+  private Collection<TrainDeparture> overlapping(int track, int minute) {
+    NavigableMap<DepartureKey, TrainDeparture> near = trainsByTrack.get(track).subMap(
+        new DepartureKey(minute - dwellMinutes + 1, ""), true,
+        new DepartureKey(minute + dwellMinutes, ""), false);
+    return near.values();
+  }
+
+  /**
+   * Puts a train on its track, if it has one at the station, and marks the conflicts it causes.
+   */
+  private void place(TrainDeparture trainDeparture) {
+    int track = trainDeparture.getTrack();
+    if (track < 1 || track > tracks) {
+      return;
+    }
+    String trainNumber = trainDeparture.getTrainNumber();
+    int minute = trainDeparture.getEffectiveMinute();
+    for (TrainDeparture other : overlapping(track, minute)) {
+      conflicts.add(other.getTrainNumber());
+      conflicts.add(trainNumber);
+    }
+    DepartureKey key = new DepartureKey(minute, trainNumber);
+    trainsByTrack.get(track).put(key, trainDeparture);
+    placements.put(trainNumber, new Placement(track, key));
+  }
+
+  /**
+   * Takes a train off its track and checks again the trains it was in conflict with.
+   */
+  private void release(String trainNumber) {
+    Placement placement = placements.remove(trainNumber);
+    if (placement == null) {
+      return;
+    }
+    TreeMap<DepartureKey, TrainDeparture> trains = trainsByTrack.get(placement.track);
+    trains.remove(placement.key);
+    if (conflicts.remove(trainNumber)) {
+      for (TrainDeparture other : overlapping(placement.track, placement.key.getMinute())) {
+        if (overlapping(placement.track, placements.get(other.getTrainNumber()).key.getMinute())
+            .size() < 2) {
+          conflicts.remove(other.getTrainNumber());
+        }
+      }
+    }
+  }
+}
@@ -8,19 +8,25 @@ import java.util.Objects;
  * train number, line, destination, track, and delay.
  *
  * <p>Contains a constructor to create a train departure. Getter for each parameter and setter for
- * line, track and delay.
+ * line, track and delay. The setters are synchronized, so a train departure can be shared between
+ * threads. The line and destination are interned, so each distinct name is stored once however
+ * many departures use it, and a name no departure uses any more can be garbage collected. The
+ * views a register creates from names it already pools itself are not interned again.
  *
  * @author SigurSp
  * @version 3.0
  * @since 0.1
  */
 public class TrainDeparture {
+  private static final FixedWidthFormatter BOARD_ROW = new FixedWidthFormatter(14, 4, 6, 15, 5, 5);
   private final String trainNumber;
   private final LocalTime departureTime;
   private final String line;
   private final String destination;
-  private int track;
-  private LocalTime delay;
+  private volatile int track;
+  private volatile LocalTime delay;
+  private volatile TrainDepartureObserver observer;
+  private volatile String boardRow;
 
   /**
    * Creates an instance of TrainDeparture with track = -1.
@@ -36,14 +42,32 @@ public class TrainDeparture {
    */
   public TrainDeparture(LocalTime departureTime, String line, String trainNumber,
                         String destination) {
+    this(departureTime, line, trainNumber, destination, false);
+  }
+
+  /**
+   * Creates an instance of TrainDeparture with track = -1, from a line and destination that may
+   * already be pooled by the caller. A register that keeps one instance of every name itself
+   * passes pooled = true, so the views it creates for every listed row skip interning.
+   *
+   * @param departureTime is a LocalTime representing the departure time of the train.
+   * @param line          is a String representing the line the train travels.
+   * @param trainNumber   is a String representing the unique train departure number.
+   * @param destination   is a String representing the end destination of the train departure.
+   * @param pooled        true if the line and destination are already pooled, else false to
+   *                      intern them.
+   * @throws IllegalArgumentException if any of the String inputs are blank.
+   */
+  TrainDeparture(LocalTime departureTime, String line, String trainNumber, String destination,
+                 boolean pooled) {
     verifyLocalTime(departureTime);
     verifyStringParameter(line, "Line");
     verifyStringParameter(trainNumber, "Train number");
     verifyStringParameter(destination, "Destination");
     this.departureTime = departureTime;
-    this.line = line;
+    this.line = pooled ? line : line.intern();
     this.trainNumber = trainNumber;
-    this.destination = destination;
+    this.destination = pooled ? destination : destination.intern();
     this.track = -1;
     this.delay = LocalTime.of(0, 0);
   }
@@ -127,11 +151,18 @@ public class TrainDeparture {
    *
    * @param track is an integer value.
    */
-  public void setTrack(int track) {
+  public synchronized void setTrack(int track) {
     if (track < 0) {
       throw new IllegalArgumentException("Track cant be less than 0");
     }
+    int oldTrack = this.track;
     this.track = track;
+    if (oldTrack != track) {
+      boardRow = null;
+      if (observer != null) {
+        observer.trackChanged(this, oldTrack);
+      }
+    }
   }
 
   /**
@@ -148,9 +179,60 @@ public class TrainDeparture {
    *
    * @param delay is a LocalTime value more than 0.
    */
-  public void setDelay(LocalTime delay) {
+  public synchronized void setDelay(LocalTime delay) {
     verifyLocalTime(delay);
+    LocalTime oldDelay = this.delay;
     this.delay = delay;
+    if (!oldDelay.equals(delay)) {
+      boardRow = null;
+      if (observer != null) {
+        observer.delayChanged(this, oldDelay);
+      }
+    }
+  }
+
+  /**
+   * Returns the minute of the day the train actually departs, which is the departure time plus
+   * the delay. The value is not wrapped at midnight.
+   *
+   * @return minutes since midnight of the departure time plus the delay.
+   */
+  int getEffectiveMinute() {
+    return effectiveMinute(departureTime, delay);
+  }
+
+  /**
+   * Returns the minute of the day a train with the given departure time and delay departs.
+   *
+   * @param departureTime the departure time.
+   * @param delay         the delay.
+   * @return minutes since midnight of the departure time plus the delay.
+   */
+  static int effectiveMinute(LocalTime departureTime, LocalTime delay) {
+    return departureTime.getHour() * 60 + departureTime.getMinute()
+        + delay.getHour() * 60 + delay.getMinute();
+  }
+
+  /**
+   * Sets the observer that is told about changes to this train departure, unless another observer
+   * is already set and still attached.
+   *
+   * @param observer the observer.
+   * @return true if the observer was set, false if the train departure already has an observer.
+   */
+  synchronized boolean attachObserver(TrainDepartureObserver observer) {
+    if (this.observer != null && this.observer.isAttached()) {
+      return false;
+    }
+    this.observer = observer;
+    return true;
+  }
+
+  /**
+   * Removes the observer of this train departure.
+   */
+  synchronized void detachObserver() {
+    this.observer = null;
   }
 
   /**
@@ -181,13 +263,28 @@ public class TrainDeparture {
 
   /**
    * Returns a formatted string representing the train departure information for end-users.
+   * The row is formatted once and kept until the track or delay changes, so listing the same
+   * departures again does not format them again.
    *
    * @return A formatted string with departure time, line, train number, destination, track,
    and delay.
    */
   public String printTrainDeparture() {
-    return String.format("| %-14.14s | %-4.4s | %-6.6s | %-15.15s | %-5.5s | %-5.5s |",
-        departureTime, line, trainNumber, destination, trackToString(), delayToString());
+    String row = boardRow;
+    return row != null ? row : formatBoardRow();
+  }
+
+  /**
+   * Formats the board row and caches it. Synchronized with the setters, so a row formatted from
+   * an old track or delay is never cached after the change.
+   *
+   * @return the formatted row.
+   */
+  private synchronized String formatBoardRow() {
+    String row = BOARD_ROW.formatRow(departureTime.toString(), getLine(), trainNumber,
+        getDestination(), trackToString(), delayToString());
+    boardRow = row;
+    return row;
   }
 
   /**
@@ -200,8 +297,8 @@ public class TrainDeparture {
     return "TrainDeparture{"
         + "trainNumber= " + trainNumber + '\''
         + ", departureTime= " + departureTime
-        + ", line= " + line + '\''
-        + ", destination= " + destination + '\''
+        + ", line= " + getLine() + '\''
+        + ", destination= " + getDestination() + '\''
         + ", track= " + track
         + ", delay= " + delay
         + '}';
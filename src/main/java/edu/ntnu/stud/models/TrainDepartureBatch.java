@@ -0,0 +1,155 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Rows of train departures that have not been validated yet, to be registered together with
+ * {@link TrainDepartureRegister#registerTrainDepartures(TrainDepartureBatch)}.
+ *
+ * <p>A row holds the fields a {@link TrainDeparture} is created from. Adding a row never throws,
+ * so a partly invalid timetable can be collected in full. The register checks every row and
+ * reports the outcome row by row in a {@link RegistrationReport} instead of throwing, so invalid
+ * rows cost a comparison and not an exception with a stack trace.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class TrainDepartureBatch {
+  private static final int INITIAL_CAPACITY = 16;
+  private LocalTime[] departureTimes = new LocalTime[INITIAL_CAPACITY];
+  private String[] lines = new String[INITIAL_CAPACITY];
+  private String[] trainNumbers = new String[INITIAL_CAPACITY];
+  private String[] destinations = new String[INITIAL_CAPACITY];
+  private int[] tracks = new int[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Adds a row without a track.
+   *
+   * @param departureTime the departure time.
+   * @param line          the line.
+   * @param trainNumber   the train number.
+   * @param destination   the destination.
+   * @return the index of the row.
+   */
+  public int add(LocalTime departureTime, String line, String trainNumber, String destination) {
+    return add(departureTime, line, trainNumber, destination, -1);
+  }
+
+  /**
+   * Adds a row.
+   *
+   * @param departureTime the departure time.
+   * @param line          the line.
+   * @param trainNumber   the train number.
+   * @param destination   the destination.
+   * @param track         the track, or -1 if the departure has no track.
+   * @return the index of the row.
+   */
+  public int add(LocalTime departureTime, String line, String trainNumber, String destination,
+                 int track) {
+    if (size == tracks.length) {
+      int capacity = size * 2;
+      departureTimes = Arrays.copyOf(departureTimes, capacity);
+      lines = Arrays.copyOf(lines, capacity);
+      trainNumbers = Arrays.copyOf(trainNumbers, capacity);
+      destinations = Arrays.copyOf(destinations, capacity);
+      tracks = Arrays.copyOf(tracks, capacity);
+    }
+    departureTimes[size] = departureTime;
+    lines[size] = line;
+    trainNumbers[size] = trainNumber;
+    destinations[size] = destination;
+    tracks[size] = track;
+    return size++;
+  }
+
+  /**
+   * Returns the number of rows.
+   *
+   * @return the number of rows.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the batch has no rows.
+   *
+   * @return true if there are no rows, else false.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Removes all rows, keeping the capacity for the next batch.
+   */
+  public void clear() {
+    Arrays.fill(departureTimes, 0, size, null);
+    Arrays.fill(lines, 0, size, null);
+    Arrays.fill(trainNumbers, 0, size, null);
+    Arrays.fill(destinations, 0, size, null);
+    size = 0;
+  }
+
+  /**
+   * Returns the train number of a row.
+   *
+   * @param row the index of the row.
+   * @return the train number, as it was added.
+   */
+  public String getTrainNumber(int row) {
+    return trainNumbers[row];
+  }
+
+  /**
+   * Checks the fields of a row the way the {@link TrainDeparture} constructor and
+   * {@link TrainDeparture#setTrack(int)} do, without throwing.
+   *
+   * @param row the index of the row.
+   * @return REGISTERED if a train departure can be created from the row, else the reason why not.
+   */
+  RegistrationReport.Code check(int row) {
+    if (departureTimes[row] == null) {
+      return RegistrationReport.Code.MISSING_DEPARTURE_TIME;
+    } else if (isBlank(lines[row]) || isBlank(trainNumbers[row])
+        || isBlank(destinations[row])) {
+      return RegistrationReport.Code.BLANK_FIELD;
+    } else if (tracks[row] < -1) {
+      return RegistrationReport.Code.INVALID_TRACK;
+    }
+    return RegistrationReport.Code.REGISTERED;
+  }
+
+  /**
+   * Returns the departure time of a row.
+   *
+   * @param row the index of the row.
+   * @return the departure time.
+   */
+  LocalTime getDepartureTime(int row) {
+    return departureTimes[row];
+  }
+
+  /**
+   * Creates the train departure of a row that passed {@link #check(int)}.
+   *
+   * @param row the index of the row.
+   * @return the train departure, with its track set.
+   */
+  TrainDeparture toTrainDeparture(int row) {
+    TrainDeparture trainDeparture = new TrainDeparture(departureTimes[row], lines[row],
+        trainNumbers[row], destinations[row]);
+    if (tracks[row] >= 0) {
+      trainDeparture.setTrack(tracks[row]);
+    }
+    return trainDeparture;
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+}
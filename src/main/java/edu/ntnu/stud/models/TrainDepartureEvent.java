@@ -0,0 +1,161 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+
+/**
+ * Immutable description of one change to a {@link TrainDepartureRegister}, as delivered by a
+ * {@link TrainDepartureEventPublisher}.
+ *
+ * <p>The changed train departure is copied when the event is created, so an event can be read on
+ * any thread. A board applies the event to its own copy of the register instead of fetching and
+ * sorting the whole register again.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class TrainDepartureEvent {
+
+  /**
+   * The kinds of change.
+   */
+  public enum Type {
+    REGISTERED,
+    TRACK_ASSIGNED,
+    DELAYED,
+    REMOVED,
+    EXPIRED,
+    CLOCK_ADVANCED
+  }
+
+  private final Type type;
+  private final TrainDepartureSnapshot trainDeparture;
+  private final int oldTrack;
+  private final LocalTime oldDelay;
+  private final LocalTime oldTime;
+  private final LocalTime newTime;
+
+  private TrainDepartureEvent(Type type, TrainDepartureSnapshot trainDeparture, int oldTrack,
+                              LocalTime oldDelay, LocalTime oldTime, LocalTime newTime) {
+    this.type = type;
+    this.trainDeparture = trainDeparture;
+    this.oldTrack = oldTrack;
+    this.oldDelay = oldDelay;
+    this.oldTime = oldTime;
+    this.newTime = newTime;
+  }
+
+  /**
+   * Creates an event for a train departure that was registered, removed or departed.
+   *
+   * @param type           REGISTERED, REMOVED or EXPIRED.
+   * @param trainDeparture the train departure.
+   * @return the event.
+   */
+  static TrainDepartureEvent of(Type type, TrainDeparture trainDeparture) {
+    return new TrainDepartureEvent(type, new TrainDepartureSnapshot(trainDeparture),
+        trainDeparture.getTrack(), trainDeparture.getDelay(), null, null);
+  }
+
+  /**
+   * Creates an event for a train departure that was given a new track.
+   *
+   * @param trainDeparture the train departure.
+   * @param oldTrack       the track before the change.
+   * @return the event.
+   */
+  static TrainDepartureEvent trackAssigned(TrainDeparture trainDeparture, int oldTrack) {
+    return new TrainDepartureEvent(Type.TRACK_ASSIGNED, new TrainDepartureSnapshot(trainDeparture),
+        oldTrack, trainDeparture.getDelay(), null, null);
+  }
+
+  /**
+   * Creates an event for a train departure whose delay changed.
+   *
+   * @param trainDeparture the train departure.
+   * @param oldDelay       the delay before the change.
+   * @return the event.
+   */
+  static TrainDepartureEvent delayed(TrainDeparture trainDeparture, LocalTime oldDelay) {
+    return new TrainDepartureEvent(Type.DELAYED, new TrainDepartureSnapshot(trainDeparture),
+        trainDeparture.getTrack(), oldDelay, null, null);
+  }
+
+  /**
+   * Creates an event for an update of the time of the register.
+   *
+   * @param oldTime the time before the update.
+   * @param newTime the new time.
+   * @return the event.
+   */
+  static TrainDepartureEvent clockAdvanced(LocalTime oldTime, LocalTime newTime) {
+    return new TrainDepartureEvent(Type.CLOCK_ADVANCED, null, -1, null, oldTime, newTime);
+  }
+
+  /**
+   * Returns the kind of change.
+   *
+   * @return the type of the event.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the changed train departure as it was after the change.
+   *
+   * @return the train departure, or null for CLOCK_ADVANCED.
+   */
+  public TrainDepartureSnapshot getTrainDeparture() {
+    return trainDeparture;
+  }
+
+  /**
+   * Returns the track before the change. Equal to the current track unless the type is
+   * TRACK_ASSIGNED.
+   *
+   * @return the old track, or -1 for CLOCK_ADVANCED.
+   */
+  public int getOldTrack() {
+    return oldTrack;
+  }
+
+  /**
+   * Returns the delay before the change. Equal to the current delay unless the type is DELAYED.
+   *
+   * @return the old delay, or null for CLOCK_ADVANCED.
+   */
+  public LocalTime getOldDelay() {
+    return oldDelay;
+  }
+
+  /**
+   * Returns the time of the register before a CLOCK_ADVANCED event.
+   *
+   * @return the old time, or null for the other types.
+   */
+  public LocalTime getOldTime() {
+    return oldTime;
+  }
+
+  /**
+   * Returns the time of the register after a CLOCK_ADVANCED event.
+   *
+   * @return the new time, or null for the other types.
+   */
+  public LocalTime getNewTime() {
+    return newTime;
+  }
+
+  /**
+   * Returns a string that represents the event.
+   *
+   * @return a string with the type and the changed values.
+   */
+  @Override
+  public String toString() {
+    return type == Type.CLOCK_ADVANCED
+        ? type + "{" + oldTime + " -> " + newTime + "}"
+        : type + "{" + trainDeparture + "}";
+  }
+}
@@ -0,0 +1,61 @@
+package edu.ntnu.stud.models;
+
+import java.util.List;
+
+/**
+ * The events that took a {@link TrainDepartureRegister} from one published snapshot version to
+ * the next, delivered together by a {@link TrainDepartureEventPublisher}.
+ *
+ * <p>A subscriber that keeps the version of the last batch it applied can tell when it missed
+ * batches: the previous version of the next batch is then larger than the version it has. It
+ * should then start over from {@link TrainDepartureRegister#getSnapshot()}.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class TrainDepartureEventBatch {
+  private final long previousVersion;
+  private final long version;
+  private final List<TrainDepartureEvent> events;
+
+  /**
+   * Creates a batch.
+   *
+   * @param previousVersion the version of the snapshot before the changes.
+   * @param version         the version of the snapshot after the changes.
+   * @param events          the events, in the order the changes were made.
+   */
+  TrainDepartureEventBatch(long previousVersion, long version, List<TrainDepartureEvent> events) {
+    this.previousVersion = previousVersion;
+    this.version = version;
+    this.events = List.copyOf(events);
+  }
+
+  /**
+   * Returns the version of the snapshot before the changes in the batch.
+   *
+   * @return the previous version.
+   */
+  public long getPreviousVersion() {
+    return previousVersion;
+  }
+
+  /**
+   * Returns the version of the snapshot that contains the changes in the batch.
+   *
+   * @return the version.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the events in the order the changes were made.
+   *
+   * @return an unmodifiable list of the events.
+   */
+  public List<TrainDepartureEvent> getEvents() {
+    return events;
+  }
+}
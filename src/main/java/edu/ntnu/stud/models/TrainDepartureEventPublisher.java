@@ -0,0 +1,152 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the changes to a {@link TrainDepartureRegister} as a {@link Flow.Publisher} of
+ * {@link TrainDepartureEventBatch}es, so boards and feeds apply only what changed.
+ *
+ * <p>The events of one change to the register, such as a batch registration or a clock update
+ * that removes many departed trains, are collected on the dispatcher thread and delivered as one
+ * batch when the register publishes its next snapshot. Every subscriber has a bounded buffer and
+ * receives batches on the given executor as fast as it requests them. Offering a batch never
+ * waits: if the buffer of a subscriber is full, the batch is dropped for that subscriber only,
+ * so a slow subscriber never holds up the dispatcher. It sees a gap in the versions and can start
+ * over from {@link TrainDepartureRegister#getSnapshot()}.
+ *
+ * <pre>{@code
+ * TrainDepartureEventPublisher events =
+ *     new TrainDepartureEventPublisher(register, executor, 256);
+ * events.subscribe(subscriber);
+ * }</pre>
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class TrainDepartureEventPublisher
+    implements TrainDepartureRegisterListener, Flow.Publisher<TrainDepartureEventBatch>,
+    AutoCloseable {
+  private final TrainDepartureRegister register;
+  private final SubmissionPublisher<TrainDepartureEventBatch> publisher;
+  private final ArrayList<TrainDepartureEvent> pending = new ArrayList<>();
+  private final AtomicLong droppedBatches = new AtomicLong();
+  private long version;
+
+  /**
+   * Creates a publisher and starts listening to the register. Must be called on the dispatcher
+   * thread, like the other changes to the register.
+   *
+   * @param register   the register to publish the changes of.
+   * @param executor   the executor the subscribers receive their batches on.
+   * @param bufferSize the largest number of batches buffered for a subscriber, rounded up to a
+   *                   power of two.
+   * @throws IllegalArgumentException if the buffer size is not positive.
+   */
+  public TrainDepartureEventPublisher(TrainDepartureRegister register, Executor executor,
+                                      int bufferSize) throws IllegalArgumentException {
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("The buffer size must be positive");
+    }
+    this.register = register;
+    this.publisher = new SubmissionPublisher<>(executor, bufferSize);
+    this.version = register.getSnapshot().getVersion();
+    register.addListener(this);
+  }
+
+  /**
+   * Subscribes to the batches published after this call.
+   *
+   * @param subscriber the subscriber.
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super TrainDepartureEventBatch> subscriber) {
+    publisher.subscribe(subscriber);
+  }
+
+  /**
+   * Returns the number of batches that were dropped because a subscriber's buffer was full,
+   * counted once for every subscriber that missed them.
+   *
+   * @return the number of dropped batches.
+   */
+  public long getDroppedBatches() {
+    return droppedBatches.get();
+  }
+
+  /**
+   * Returns the number of current subscribers.
+   *
+   * @return the number of subscribers.
+   */
+  public int getNumberOfSubscribers() {
+    return publisher.getNumberOfSubscribers();
+  }
+
+  /**
+   * Stops listening to the register and completes every subscriber once it has received the
+   * batches in its buffer. Must be called on the dispatcher thread.
+   */
+  @Override
+  public void close() {
+    register.removeListener(this);
+    publisher.close();
+  }
+
+  @Override
+  public void onRegistered(TrainDeparture trainDeparture) {
+    pending.add(TrainDepartureEvent.of(TrainDepartureEvent.Type.REGISTERED, trainDeparture));
+  }
+
+  @Override
+  public void onTrackAssigned(TrainDeparture trainDeparture, int oldTrack) {
+    pending.add(TrainDepartureEvent.trackAssigned(trainDeparture, oldTrack));
+  }
+
+  @Override
+  public void onDelayed(TrainDeparture trainDeparture, LocalTime oldDelay) {
+    pending.add(TrainDepartureEvent.delayed(trainDeparture, oldDelay));
+  }
+
+  @Override
+  public void onRemoved(TrainDeparture trainDeparture) {
+    pending.add(TrainDepartureEvent.of(TrainDepartureEvent.Type.REMOVED, trainDeparture));
+  }
+
+  @Override
+  public void onExpired(TrainDeparture trainDeparture) {
+    pending.add(TrainDepartureEvent.of(TrainDepartureEvent.Type.EXPIRED, trainDeparture));
+  }
+
+  @Override
+  public void onClockAdvanced(LocalTime oldTime, LocalTime newTime) {
+    pending.add(TrainDepartureEvent.clockAdvanced(oldTime, newTime));
+  }
+
+  /**
+   * Offers the events collected since the last snapshot to every subscriber as one batch.
+   *
+   * @param snapshot the published snapshot.
+   */
+  @Override
+  public void onPublished(TrainDepartureRegisterSnapshot snapshot) {
+    if (pending.isEmpty()) {
+      return;
+    }
+    TrainDepartureEventBatch batch =
+        new TrainDepartureEventBatch(version, snapshot.getVersion(), pending);
+    pending.clear();
+    version = snapshot.getVersion();
+    if (!publisher.isClosed()) {
+      publisher.offer(batch, (subscriber, dropped) -> {
+        droppedBatches.incrementAndGet();
+        return false;
+      });
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+
+/**
+ * Observer that is told when a registered train departure changes, so that the register holding
+ * it can keep its indexes up to date.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+interface TrainDepartureObserver {
+  /**
+   * Called after the delay of a train departure has been changed.
+   *
+   * @param trainDeparture the train departure that changed.
+   * @param oldDelay       the delay the train departure had before the change.
+   */
+  void delayChanged(TrainDeparture trainDeparture, LocalTime oldDelay);
+
+  /**
+   * Called after the track of a train departure has been changed.
+   *
+   * @param trainDeparture the train departure that changed.
+   * @param oldTrack       the track the train departure had before the change.
+   */
+  default void trackChanged(TrainDeparture trainDeparture, int oldTrack) {
+  }
+
+  /**
+   * Checks if the observer still follows the train departure. An observer that no longer does,
+   * because the departure has left the register, may be replaced by another register.
+   *
+   * @return true if the observer still follows the train departure, else false.
+   */
+  default boolean isAttached() {
+    return true;
+  }
+}
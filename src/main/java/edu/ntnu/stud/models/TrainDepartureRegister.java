@@ -1,9 +1,22 @@
 package edu.ntnu.stud.models;
 
+import edu.ntnu.stud.monitoring.ExpirySweepEvent;
+import edu.ntnu.stud.monitoring.RegisterMetrics;
+import edu.ntnu.stud.monitoring.RegisterMetrics.Operation;
+import edu.ntnu.stud.monitoring.RegisterMutationEvent;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.stream.Collectors;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
 
 /**
  * The TrainDepartureRegister class manages a collection of train departures,
@@ -13,46 +26,284 @@ import java.util.stream.Collectors;
  * searching for departures by train number or destination, updating departure times, deleting
  * trains and obtaining a sorted list of departures based on their departure times.
  *
+ * <p>The departures are stored in a {@link TrainNumberIndex}, so lookups, duplicate checks and
+ * removals by train number do not scan the register. A tree ordered by departure time is kept
+ * up to date on every registration and removal, so reading the board never sorts. The same
+ * ordering is kept per destination, so destination searches neither scan nor sort. Departures
+ * are also ordered on departure time plus delay, in the whole register and per track and per line,
+ * and moved when their delay or track changes, so advancing the clock only visits the trains
+ * that leave, and time-window and next departure queries only visit the trains they return.
+ *
+ * <p>The register is changed by one dispatcher thread. After every change it publishes an
+ * immutable {@link TrainDepartureRegisterSnapshot}, which other threads, such as departure
+ * boards, can read through {@link #getSnapshot()} without locking. Listeners added with
+ * {@link #addListener(TrainDepartureRegisterListener)} are told about every change as it happens.
+ * A burst of changes can be applied with {@link #applyUpdate(TrainDepartureUpdate)}, which
+ * publishes one snapshot for the whole burst.
+ * The latency of every public operation can be measured through {@link #getMetrics()}, and
+ * slow changes and expiry sweeps are recorded as Flight Recorder events.
+ *
  * @author SigurSp
  * @version 3.0
  * @since 0.2
  */
-public class TrainDepartureRegister {
-  private final ArrayList<TrainDeparture> trainDepartures = new ArrayList<>();
+public class TrainDepartureRegister implements DepartureRegister {
+  /**
+   * Order of the departures on the board, by departure time and then by train number.
+   */
+  static final Comparator<TrainDeparture> DEPARTURE_ORDER = (a, b) -> {
+    int compare = a.getDepartureTime().compareTo(b.getDepartureTime());
+    return compare != 0 ? compare : a.getTrainNumber().compareTo(b.getTrainNumber());
+  };
+  private static final NavigableMap<DepartureKey, TrainDeparture> EMPTY_INDEX =
+      Collections.emptyNavigableMap();
+  private final TrainNumberIndex trainDepartures = new TrainNumberIndex();
+  private final TreeSet<TrainDeparture> departuresByTime = new TreeSet<>(DEPARTURE_ORDER);
+  private final HashMap<String, TreeSet<TrainDeparture>> departuresByDestination =
+      new HashMap<>();
+  private final TreeMap<DepartureKey, TrainDeparture> departuresByEffectiveTime = new TreeMap<>();
+  private final HashMap<Integer, NavigableMap<DepartureKey, TrainDeparture>> departuresByTrack =
+      new HashMap<>();
+  private final HashMap<String, NavigableMap<DepartureKey, TrainDeparture>> departuresByLine =
+      new HashMap<>();
+  private final DestinationIndex destinationIndex = new DestinationIndex();
+  private final TrainDepartureObserver observer = new TrainDepartureObserver() {
+    @Override
+    public void delayChanged(TrainDeparture trainDeparture, LocalTime oldDelay) {
+      RegisterMutationEvent event = new RegisterMutationEvent();
+      event.begin();
+      rekeyDelayedTrainDeparture(trainDeparture, oldDelay);
+      for (TrainDepartureRegisterListener listener : listeners) {
+        listener.onDelayed(trainDeparture, oldDelay);
+      }
+      updateSnapshot(trainDeparture);
+      event.finish("DELAY", trainDeparture.getTrainNumber(), 1);
+    }
+
+    @Override
+    public void trackChanged(TrainDeparture trainDeparture, int oldTrack) {
+      RegisterMutationEvent event = new RegisterMutationEvent();
+      event.begin();
+      DepartureKey key = effectiveKey(trainDeparture);
+      removeFromIndex(departuresByTrack, oldTrack, key);
+      departuresByTrack.computeIfAbsent(trainDeparture.getTrack(), t -> new TreeMap<>())
+          .put(key, trainDeparture);
+      for (TrainDepartureRegisterListener listener : listeners) {
+        listener.onTrackAssigned(trainDeparture, oldTrack);
+      }
+      updateSnapshot(trainDeparture);
+      event.finish("TRACK", trainDeparture.getTrainNumber(), 1);
+    }
+  };
+  private final ArrayList<TrainDepartureRegisterListener> listeners = new ArrayList<>();
+  private final RegisterMetrics metrics = new RegisterMetrics();
   private LocalTime time = LocalTime.of(0, 0);
+  private TrainDepartureRegisterSnapshot pendingSnapshot = TrainDepartureRegisterSnapshot.EMPTY;
+  private volatile TrainDepartureRegisterSnapshot snapshot = TrainDepartureRegisterSnapshot.EMPTY;
+  private boolean publishDeferred;
 
   /**
    * Registers a train in the register.
    *
    * @param trainDeparture The train departure to be registered.
-   * @throws IllegalArgumentException If a train with the same already exists or if the departure
-   *                                  time is before the current time.
+   * @throws IllegalArgumentException If a train with the same already exists, if the departure
+   *                                  time is before the current time or if the train departure
+   *                                  is registered in another register.
    */
+  @Override
   public void registerTrainDeparture(TrainDeparture trainDeparture)
       throws IllegalArgumentException {
-    if (trainDepartures.contains(trainDeparture)) {
+    long start = metrics.start();
+    RegisterMutationEvent event = new RegisterMutationEvent();
+    event.begin();
+    try {
+      addTrainDeparture(trainDeparture);
+      event.finish("REGISTER", trainDeparture.getTrainNumber(), 1);
+    } catch (IllegalArgumentException e) {
+      metrics.rejected(1);
+      throw e;
+    } finally {
+      metrics.record(Operation.REGISTER, start);
+    }
+  }
+
+  /**
+   * Checks a train departure and adds it to the register.
+   *
+   * @param trainDeparture The train departure to be registered.
+   * @throws IllegalArgumentException If the train departure can not be registered.
+   */
+  private void addTrainDeparture(TrainDeparture trainDeparture) throws IllegalArgumentException {
+    if (trainDepartures.contains(trainDeparture.getTrainNumber())) {
       throw new IllegalArgumentException("The train could not be registered."
           + " Since the register already contains a train with matching number");
     } else if (trainDeparture.getDepartureTime().isBefore(time.plusMinutes(1))) {
       throw new IllegalArgumentException("The train could not be added to the register."
           + " Since its departure time is before " + time.plusMinutes(1));
+    } else if (!trainDeparture.attachObserver(observer)) {
+      throw new IllegalArgumentException("The train could not be registered."
+          + " Since it is already registered in another register");
     } else {
       try {
         trainDepartures.add(trainDeparture);
+        addToIndexes(trainDeparture);
+        for (TrainDepartureRegisterListener listener : listeners) {
+          listener.onRegistered(trainDeparture);
+        }
+        pendingSnapshot = pendingSnapshot.withTrainDeparture(
+            new TrainDepartureSnapshot(trainDeparture));
+        publishSnapshot();
       } catch (IllegalArgumentException e) {
         throw new IllegalArgumentException(e.getMessage());
       }
     }
   }
 
+  /**
+   * Registers a batch of train departures, such as an imported timetable. The batch is validated
+   * and checked for duplicates in one pass, then the indexes are updated and a single snapshot
+   * is published for the whole batch. Departures that can not be registered, because the train
+   * number is taken, the departure time is before the current time or the departure is
+   * registered in another register, are skipped.
+   *
+   * @param trainDepartures the train departures to register.
+   * @return the number of train departures that were registered.
+   */
+  @Override
+  public int registerTrainDepartures(Collection<TrainDeparture> trainDepartures) {
+    RegisterMutationEvent event = new RegisterMutationEvent();
+    event.begin();
+    LocalTime earliestDepartureTime = time.plusMinutes(1);
+    ArrayList<TrainDeparture> accepted = new ArrayList<>(trainDepartures.size());
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      if (!trainDeparture.getDepartureTime().isBefore(earliestDepartureTime)
+          && this.trainDepartures.add(trainDeparture)) {
+        if (trainDeparture.attachObserver(observer)) {
+          accepted.add(trainDeparture);
+        } else {
+          this.trainDepartures.remove(trainDeparture.getTrainNumber());
+        }
+      }
+    }
+    addBatch(accepted);
+    metrics.rejected(trainDepartures.size() - accepted.size());
+    event.finish("REGISTER_BATCH", null, accepted.size());
+    return accepted.size();
+  }
+
+  /**
+   * Registers rows of train departures that have not been validated, such as a timetable that
+   * may hold invalid rows. Every row is checked without throwing: missing or blank fields, an
+   * invalid track, a departure time before the current time and a train number that is taken,
+   * also by an earlier row of the batch. The rows that pass are added in one pass that updates
+   * the indexes and publishes a single snapshot, like
+   * {@link #registerTrainDepartures(Collection)}.
+   *
+   * @param batch the rows to register.
+   * @return the outcome of every row, by the index of the row in the batch.
+   */
+  public RegistrationReport registerTrainDepartures(TrainDepartureBatch batch) {
+    RegisterMutationEvent event = new RegisterMutationEvent();
+    event.begin();
+    LocalTime earliestDepartureTime = time.plusMinutes(1);
+    byte[] codes = new byte[batch.size()];
+    ArrayList<TrainDeparture> accepted = new ArrayList<>(batch.size());
+    for (int row = 0; row < batch.size(); row++) {
+      RegistrationReport.Code code = batch.check(row);
+      if (code != RegistrationReport.Code.REGISTERED) {
+        codes[row] = (byte) code.ordinal();
+      } else if (batch.getDepartureTime(row).isBefore(earliestDepartureTime)) {
+        codes[row] = (byte) RegistrationReport.Code.DEPARTURE_PASSED.ordinal();
+      } else if (trainDepartures.contains(batch.getTrainNumber(row))) {
+        codes[row] = (byte) RegistrationReport.Code.DUPLICATE_TRAIN_NUMBER.ordinal();
+      } else {
+        TrainDeparture trainDeparture = batch.toTrainDeparture(row);
+        trainDeparture.attachObserver(observer);
+        trainDepartures.add(trainDeparture);
+        accepted.add(trainDeparture);
+      }
+    }
+    addBatch(accepted);
+    metrics.rejected(batch.size() - accepted.size());
+    event.finish("REGISTER_BATCH", null, accepted.size());
+    return new RegistrationReport(codes, accepted.size());
+  }
+
+  /**
+   * Adds train departures that are already in the train number index to the other indexes,
+   * tells the listeners and publishes one snapshot for all of them.
+   *
+   * @param accepted the train departures, in any order.
+   */
+  private void addBatch(ArrayList<TrainDeparture> accepted) {
+    accepted = sortByDepartureTime(accepted);
+    ArrayList<TrainDepartureSnapshot> snapshots = new ArrayList<>(accepted.size());
+    HashMap<String, ArrayList<TrainDeparture>> acceptedByDestination = new HashMap<>();
+    for (TrainDeparture trainDeparture : accepted) {
+      addToEffectiveIndexes(effectiveKey(trainDeparture), trainDeparture);
+      acceptedByDestination
+          .computeIfAbsent(trainDeparture.getDestination(), d -> new ArrayList<>())
+          .add(trainDeparture);
+      snapshots.add(new TrainDepartureSnapshot(trainDeparture));
+    }
+    // Filling an empty TreeSet from a sorted set builds the tree in linear time.
+    departuresByTime.addAll(new SortedListView<>(accepted, DEPARTURE_ORDER));
+    acceptedByDestination.forEach((destination, departures) -> destinationSet(destination)
+        .addAll(new SortedListView<>(departures, DEPARTURE_ORDER)));
+    for (TrainDepartureRegisterListener listener : listeners) {
+      accepted.forEach(listener::onRegistered);
+    }
+    pendingSnapshot = pendingSnapshot.withTrainDepartures(snapshots);
+    publishSnapshot();
+  }
+
+  /**
+   * Sorts train departures in board order. The departures are first distributed into one bucket
+   * per minute of the day, so only departures in the same minute are compared.
+   *
+   * @param trainDepartures the train departures to sort.
+   * @return a new list with the train departures in board order.
+   */
+  private static ArrayList<TrainDeparture> sortByDepartureTime(
+      ArrayList<TrainDeparture> trainDepartures) {
+    int[] starts = new int[24 * 60 + 1];
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      starts[minuteOfDay(trainDeparture.getDepartureTime()) + 1]++;
+    }
+    for (int minute = 1; minute < starts.length; minute++) {
+      starts[minute] += starts[minute - 1];
+    }
+    TrainDeparture[] sorted = new TrainDeparture[trainDepartures.size()];
+    int[] next = starts.clone();
+    for (TrainDeparture trainDeparture : trainDepartures) {
+      sorted[next[minuteOfDay(trainDeparture.getDepartureTime())]++] = trainDeparture;
+    }
+    for (int minute = 0; minute + 1 < starts.length; minute++) {
+      if (starts[minute + 1] - starts[minute] > 1) {
+        Arrays.sort(sorted, starts[minute], starts[minute + 1], DEPARTURE_ORDER);
+      }
+    }
+    return new ArrayList<>(Arrays.asList(sorted));
+  }
+
+  private static int minuteOfDay(LocalTime localTime) {
+    return localTime.getHour() * 60 + localTime.getMinute();
+  }
+
   /**
    * Checks if a train with the given train number is already in the register.
    *
    * @param trainNumber The train number to be checked.
    * @return True if a train with the given number exists. Otherwise, false.
    */
+  @Override
   public boolean checkTrainNumber(String trainNumber) {
-    return trainDepartures.stream().anyMatch(e -> e.getTrainNumber().equals(trainNumber));
+    long start = metrics.start();
+    try {
+      return trainDepartures.contains(trainNumber);
+    } finally {
+      metrics.record(Operation.LOOKUP, start);
+    }
   }
 
   /**
@@ -61,8 +312,14 @@ public class TrainDepartureRegister {
    * @param trainDestination The destination to check.
    * @return True if there is a train departure with the destination. Otherwise, false.
    */
+  @Override
   public boolean checkTrainDestination(String trainDestination) {
-    return trainDepartures.stream().anyMatch(e -> e.getDestination().equals(trainDestination));
+    long start = metrics.start();
+    try {
+      return departuresByDestination.containsKey(trainDestination);
+    } finally {
+      metrics.record(Operation.DESTINATION_SEARCH, start);
+    }
   }
 
   /**
@@ -71,24 +328,300 @@ public class TrainDepartureRegister {
    * @param trainNumber The train number to be retrieved.
    * @return The train departure with the corresponding train number.
    */
+  @Override
   public TrainDeparture getTrainDepartureNumber(String trainNumber) {
-    return trainDepartures.stream()
-        .filter(departure -> departure.getTrainNumber().equals(trainNumber))
-        .findFirst()
-        .orElse(null);
+    long start = metrics.start();
+    try {
+      return trainDepartures.get(trainNumber);
+    } finally {
+      metrics.record(Operation.LOOKUP, start);
+    }
   }
 
   /**
    * Retrieves a list of the train departures going to the given destination.
    *
    * @param destination the destination to be searched for.
-   * @return A list of train departures with the specific destination.
+   * @return A list of train departures with the specific destination, sorted on departure time.
    */
+  @Override
   public ArrayList<TrainDeparture> getTrainDeparturesDestination(String destination) {
-    sortTrainDepartures();
-    return trainDepartures.stream().filter(train ->
-        train.getDestination().equals(destination)).collect(
-        Collectors.toCollection(ArrayList::new));
+    long start = metrics.start();
+    try {
+      TreeSet<TrainDeparture> departures = departuresByDestination.get(destination);
+      if (departures == null) {
+        return new ArrayList<>();
+      }
+      return new ArrayList<>(departures);
+    } finally {
+      metrics.record(Operation.DESTINATION_SEARCH, start);
+    }
+  }
+
+  /**
+   * Finds the destinations that match what a user typed, ignoring case, "æ", "ø" and accents,
+   * and allowing one typing error in short queries and two in longer ones. Destinations that
+   * match exactly come first, then destinations that start with the query, then destinations
+   * with a word that starts with it, then the closest misspellings.
+   *
+   * @param query what the user typed.
+   * @return the matching destinations, best match first.
+   */
+  public List<String> searchDestinations(String query) {
+    long start = metrics.start();
+    try {
+      int maxDistance = query == null || query.length() < 5 ? 1 : 2;
+      return destinationIndex.search(query, maxDistance);
+    } finally {
+      metrics.record(Operation.DESTINATION_SEARCH, start);
+    }
+  }
+
+  /**
+   * Retrieves the train departures to the destinations that match what a user typed, as found by
+   * {@link #searchDestinations(String)}. The departures to the best matching destination come
+   * first, and the departures to each destination are sorted on departure time.
+   *
+   * @param query what the user typed.
+   * @return a new list with the train departures to the matching destinations.
+   */
+  public ArrayList<TrainDeparture> searchTrainDeparturesDestination(String query) {
+    return getTrainDeparturesDestinations(searchDestinations(query));
+  }
+
+  /**
+   * Retrieves the train departures to several destinations, such as the matches already found by
+   * {@link #searchDestinations(String)}, without searching again. The departures to each
+   * destination are sorted on departure time, in the order of the destinations.
+   *
+   * @param destinations the destinations, as written on the departures.
+   * @return a new list with the train departures to the destinations.
+   */
+  public ArrayList<TrainDeparture> getTrainDeparturesDestinations(List<String> destinations) {
+    ArrayList<TrainDeparture> result = new ArrayList<>();
+    for (String destination : destinations) {
+      TreeSet<TrainDeparture> departures = departuresByDestination.get(destination);
+      if (departures != null) {
+        result.addAll(departures);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Retrieves the train departures that actually depart in a time window, counting their delay,
+   * ordered on actual departure time. Costs O(log n + k) for k departures in the window.
+   *
+   * @param from the start of the window, inclusive.
+   * @param to   the end of the window, inclusive.
+   * @return a new list with the train departures in the window.
+   */
+  public ArrayList<TrainDeparture> getTrainDeparturesBetween(LocalTime from, LocalTime to) {
+    return new ArrayList<>(window(departuresByEffectiveTime, from, to, null).values());
+  }
+
+  /**
+   * Retrieves one page of the train departures that actually depart in a time window and match a
+   * filter, ordered on actual departure time. Costs O(log n) to find the start of the page, and
+   * then one step for every departure looked at. Without a filter that is O(log n + k) for a page
+   * of k departures, but a filter also looks at every departure in the window it rejects, so a
+   * selective filter costs up to O(log n + w) for w departures in the window. Use
+   * {@link #getTrainDeparturesOnTrack(LocalTime, LocalTime, int, String, int)} or
+   * {@link #getTrainDeparturesOnLine(LocalTime, LocalTime, String, String, int)} to page one
+   * track or line in O(log n + k).
+   *
+   * <pre>{@code
+   * DeparturePage page = register.getTrainDeparturesBetween(from, to,
+   *     trainDeparture -> trainDeparture.getTrack() == 2, null, 20);
+   * }</pre>
+   *
+   * @param from   the start of the window, inclusive.
+   * @param to     the end of the window, inclusive.
+   * @param filter the departures to include, or null for every departure.
+   * @param cursor the cursor of the previous page, or null for the first page.
+   * @param limit  the largest number of departures on the page.
+   * @return the page.
+   * @throws IllegalArgumentException if the cursor is not valid or the limit is not positive.
+   */
+  public DeparturePage getTrainDeparturesBetween(LocalTime from, LocalTime to,
+                                                 Predicate<TrainDeparture> filter, String cursor,
+                                                 int limit) throws IllegalArgumentException {
+    return page(departuresByEffectiveTime, from, to, filter, cursor, limit);
+  }
+
+  /**
+   * Retrieves one page of the train departures on a track that actually depart in a time window,
+   * ordered on actual departure time. Every track has its own index ordered on actual departure
+   * time, so this costs O(log n + k) for a page of k departures.
+   *
+   * @param from   the start of the window, inclusive.
+   * @param to     the end of the window, inclusive.
+   * @param track  the track, or -1 for the departures without a track.
+   * @param cursor the cursor of the previous page, or null for the first page.
+   * @param limit  the largest number of departures on the page.
+   * @return the page.
+   * @throws IllegalArgumentException if the cursor is not valid or the limit is not positive.
+   */
+  public DeparturePage getTrainDeparturesOnTrack(LocalTime from, LocalTime to, int track,
+                                                 String cursor, int limit)
+      throws IllegalArgumentException {
+    return page(departuresByTrack.getOrDefault(track, EMPTY_INDEX), from, to, null, cursor,
+        limit);
+  }
+
+  /**
+   * Retrieves one page of the train departures on a line that actually depart in a time window,
+   * ordered on actual departure time. Every line has its own index ordered on actual departure
+   * time, so this costs O(log n + k) for a page of k departures.
+   *
+   * @param from   the start of the window, inclusive.
+   * @param to     the end of the window, inclusive.
+   * @param line   the line.
+   * @param cursor the cursor of the previous page, or null for the first page.
+   * @param limit  the largest number of departures on the page.
+   * @return the page.
+   * @throws IllegalArgumentException if the cursor is not valid or the limit is not positive.
+   */
+  public DeparturePage getTrainDeparturesOnLine(LocalTime from, LocalTime to, String line,
+                                                String cursor, int limit)
+      throws IllegalArgumentException {
+    return page(departuresByLine.getOrDefault(line, EMPTY_INDEX), from, to, null, cursor, limit);
+  }
+
+  /**
+   * Collects one page of the departures in a time window of an index ordered on actual departure
+   * time.
+   *
+   * @param index  the index.
+   * @param from   the start of the window, inclusive.
+   * @param to     the end of the window, inclusive.
+   * @param filter the departures to include, or null for every departure.
+   * @param cursor the cursor of the previous page, or null for the first page.
+   * @param limit  the largest number of departures on the page.
+   * @return the page.
+   * @throws IllegalArgumentException if the cursor is not valid or the limit is not positive.
+   */
+  private static DeparturePage page(NavigableMap<DepartureKey, TrainDeparture> index,
+                                    LocalTime from, LocalTime to,
+                                    Predicate<TrainDeparture> filter, String cursor, int limit)
+      throws IllegalArgumentException {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("The page must hold at least one train departure");
+    }
+    ArrayList<TrainDeparture> page = new ArrayList<>(Math.min(limit, 64));
+    DepartureKey last = null;
+    for (Map.Entry<DepartureKey, TrainDeparture> entry
+        : window(index, from, to, parseCursor(cursor)).entrySet()) {
+      if (filter == null || filter.test(entry.getValue())) {
+        if (page.size() == limit) {
+          return new DeparturePage(page, last.getMinute() + "/" + last.getTrainNumber());
+        }
+        page.add(entry.getValue());
+        last = entry.getKey();
+      }
+    }
+    return new DeparturePage(page, null);
+  }
+
+  /**
+   * Retrieves the next train departures after the current time, counting their delay. Costs
+   * O(count) without a filter, but a filter also looks at every departure it rejects on the way.
+   *
+   * @param count  the largest number of departures to return.
+   * @param filter the departures to include, or null for every departure.
+   * @return a new list with at most count departures, ordered on actual departure time.
+   */
+  public ArrayList<TrainDeparture> getNextTrainDepartures(int count,
+                                                          Predicate<TrainDeparture> filter) {
+    return next(departuresByEffectiveTime.values(), count, filter);
+  }
+
+  /**
+   * Retrieves the next train departures from a track after the current time, counting their
+   * delay. Costs O(count), as only the index of the track is visited.
+   *
+   * @param count the largest number of departures to return.
+   * @param track the track, or -1 for the departures without a track.
+   * @return a new list with at most count departures, ordered on actual departure time.
+   */
+  public ArrayList<TrainDeparture> getNextTrainDeparturesOnTrack(int count, int track) {
+    return next(departuresByTrack.getOrDefault(track, EMPTY_INDEX).values(), count, null);
+  }
+
+  /**
+   * Retrieves the next train departures on a line after the current time, counting their delay.
+   * Costs O(count), as only the index of the line is visited.
+   *
+   * @param count the largest number of departures to return.
+   * @param line  the line.
+   * @return a new list with at most count departures, ordered on actual departure time.
+   */
+  public ArrayList<TrainDeparture> getNextTrainDeparturesOnLine(int count, String line) {
+    return next(departuresByLine.getOrDefault(line, EMPTY_INDEX).values(), count, null);
+  }
+
+  /**
+   * Collects the first departures of an index ordered on actual departure time.
+   *
+   * @param departures the departures of the index, in order.
+   * @param count      the largest number of departures to return.
+   * @param filter     the departures to include, or null for every departure.
+   * @return a new list with at most count departures.
+   */
+  private static ArrayList<TrainDeparture> next(Collection<TrainDeparture> departures, int count,
+                                                Predicate<TrainDeparture> filter) {
+    ArrayList<TrainDeparture> next = new ArrayList<>(Math.min(Math.max(count, 0), 64));
+    for (TrainDeparture trainDeparture : departures) {
+      if (next.size() >= count) {
+        break;
+      }
+      if (filter == null || filter.test(trainDeparture)) {
+        next.add(trainDeparture);
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Returns the part of an index ordered on actual departure time that lies in a window.
+   *
+   * @param index the index.
+   * @param from  the start of the window, inclusive.
+   * @param to    the end of the window, inclusive. 23:59 also includes the departures delayed
+   *              past midnight.
+   * @param after the key to start after, or null to start at the start of the window.
+   * @return a view of the index.
+   */
+  private static NavigableMap<DepartureKey, TrainDeparture> window(
+      NavigableMap<DepartureKey, TrainDeparture> index, LocalTime from, LocalTime to,
+      DepartureKey after) {
+    int toMinute = to.getHour() * 60 + to.getMinute();
+    DepartureKey end = new DepartureKey(toMinute == 23 * 60 + 59 ? Integer.MAX_VALUE
+        : toMinute + 1, "");
+    DepartureKey start = new DepartureKey(from.getHour() * 60 + from.getMinute(), "");
+    if (after != null && after.compareTo(start) >= 0) {
+      if (after.compareTo(end) >= 0) {
+        return Collections.emptyNavigableMap();
+      }
+      return index.subMap(after, false, end, false);
+    }
+    if (start.compareTo(end) >= 0) {
+      return Collections.emptyNavigableMap();
+    }
+    return index.subMap(start, true, end, false);
+  }
+
+  private static DepartureKey parseCursor(String cursor) throws IllegalArgumentException {
+    if (cursor == null) {
+      return null;
+    }
+    int slash = cursor.indexOf('/');
+    try {
+      return new DepartureKey(Integer.parseInt(cursor.substring(0, Math.max(slash, 0))),
+          cursor.substring(slash + 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cursor " + cursor);
+    }
   }
 
   /**
@@ -96,10 +629,10 @@ public class TrainDepartureRegister {
    *
    * @return String containing train numbers.
    */
+  @Override
   public String getTrainNumbers() {
     return "The register contains the following train numbers: \n"
-        + trainDepartures.stream().sorted(Comparator.comparing(TrainDeparture::getTrainNumber))
-        .map(TrainDeparture::getTrainNumber).toList();
+        + trainDepartures.values().stream().map(TrainDeparture::getTrainNumber).sorted().toList();
   }
 
   /**
@@ -108,12 +641,25 @@ public class TrainDepartureRegister {
    * @param timeNow The current time.
    * @throws IllegalArgumentException If the provided time is before the current time.
    */
+  @Override
   public void updateTimeTrainDepartureRegister(LocalTime timeNow) throws IllegalArgumentException {
     if (timeNow.isBefore(time)) {
       throw new IllegalArgumentException("Time must be before " + time.toString());
     } else {
+      long start = metrics.start();
+      LocalTime oldTime = time;
       time = timeNow;
-      removeDepartedTrains();
+      ExpirySweepEvent sweep = new ExpirySweepEvent();
+      sweep.begin();
+      int removed = removeDepartedTrains();
+      sweep.finish(removed, trainDepartures.size(), timeNow.toString());
+      metrics.expired(removed);
+      for (TrainDepartureRegisterListener listener : listeners) {
+        listener.onClockAdvanced(oldTime, timeNow);
+      }
+      pendingSnapshot = pendingSnapshot.withTime(time);
+      publishSnapshot();
+      metrics.record(Operation.TIME_UPDATE, start);
     }
   }
 
@@ -122,19 +668,102 @@ public class TrainDepartureRegister {
    *
    * @return The current time.
    */
+  @Override
   public LocalTime getTime() {
     return time;
   }
 
   /**
-   * Removes departed trains with departure time earlier than the current time in the register.
+   * Removes departed trains with departure time plus delay earlier than the current time in the
+   * register. Only the departures that leave are visited, taken from the front of the index
+   * ordered on effective departure time.
+   *
+   * @return the number of removed train departures.
+   */
+  private int removeDepartedTrains() {
+    int nextMinute = time.getHour() * 60 + time.getMinute() + 1;
+    int removed = 0;
+    while (!departuresByEffectiveTime.isEmpty()
+        && departuresByEffectiveTime.firstKey().getMinute() < nextMinute) {
+      TrainDeparture departed = departuresByEffectiveTime.firstEntry().getValue();
+      trainDepartures.remove(departed.getTrainNumber());
+      removeFromIndexes(departed);
+      for (TrainDepartureRegisterListener listener : listeners) {
+        listener.onExpired(departed);
+      }
+      removed++;
+    }
+    return removed;
+  }
+
+  /**
+   * Moves a train departure to its new place in the index ordered on effective departure time
+   * after its delay has changed.
+   *
+   * @param trainDeparture the train departure that was delayed.
+   * @param oldDelay       the delay before the change.
+   */
+  private void rekeyDelayedTrainDeparture(TrainDeparture trainDeparture, LocalTime oldDelay) {
+    removeFromEffectiveIndexes(new DepartureKey(
+        TrainDeparture.effectiveMinute(trainDeparture.getDepartureTime(), oldDelay),
+        trainDeparture.getTrainNumber()), trainDeparture);
+    addToEffectiveIndexes(effectiveKey(trainDeparture), trainDeparture);
+  }
+
+  /**
+   * Adds a train departure to the indexes ordered on effective departure time, both the one
+   * for the whole register and the ones for its track and its line.
+   *
+   * @param key            the key of the train departure.
+   * @param trainDeparture the train departure.
+   */
+  private void addToEffectiveIndexes(DepartureKey key, TrainDeparture trainDeparture) {
+    departuresByEffectiveTime.put(key, trainDeparture);
+    departuresByTrack.computeIfAbsent(trainDeparture.getTrack(), t -> new TreeMap<>())
+        .put(key, trainDeparture);
+    departuresByLine.computeIfAbsent(trainDeparture.getLine(), l -> new TreeMap<>())
+        .put(key, trainDeparture);
+  }
+
+  /**
+   * Removes a train departure from the indexes ordered on effective departure time.
+   *
+   * @param key            the key the train departure is stored under.
+   * @param trainDeparture the train departure.
    */
-  private void removeDepartedTrains() {
-    trainDepartures.removeIf(
-        departure -> departure.getDepartureTime()
-            .plusHours(departure.getDelay().getHour())
-            .plusMinutes(departure.getDelay().getMinute())
-            .isBefore(time.plusMinutes(1)));
+  private void removeFromEffectiveIndexes(DepartureKey key, TrainDeparture trainDeparture) {
+    departuresByEffectiveTime.remove(key);
+    removeFromIndex(departuresByTrack, trainDeparture.getTrack(), key);
+    removeFromIndex(departuresByLine, trainDeparture.getLine(), key);
+  }
+
+  /**
+   * Removes a key from one of the track or line indexes, and drops the index when it is empty.
+   *
+   * @param indexes the indexes, by track or by line.
+   * @param name    the track or line the key is stored under.
+   * @param key     the key to remove.
+   * @param <T>     the type of the track or line.
+   */
+  private static <T> void removeFromIndex(
+      HashMap<T, NavigableMap<DepartureKey, TrainDeparture>> indexes, T name, DepartureKey key) {
+    NavigableMap<DepartureKey, TrainDeparture> index = indexes.get(name);
+    if (index != null) {
+      index.remove(key);
+      if (index.isEmpty()) {
+        indexes.remove(name);
+      }
+    }
+  }
+
+  /**
+   * Returns the key of a train departure in the index ordered on effective departure time.
+   *
+   * @param trainDeparture the train departure.
+   * @return key made of the effective departure minute and the train number.
+   */
+  private static DepartureKey effectiveKey(TrainDeparture trainDeparture) {
+    return new DepartureKey(trainDeparture.getEffectiveMinute(), trainDeparture.getTrainNumber());
   }
 
   /**
@@ -142,33 +771,210 @@ public class TrainDepartureRegister {
    *
    * @param trainNumber The train number to be removed.
    */
+  @Override
   public void removeTrainDepartureNumber(String trainNumber) {
-    trainDepartures.removeIf(
-        departure -> departure.getTrainNumber().equals(trainNumber)
-    );
+    long start = metrics.start();
+    RegisterMutationEvent event = new RegisterMutationEvent();
+    event.begin();
+    TrainDeparture removed = trainDepartures.remove(trainNumber);
+    if (removed != null) {
+      removeFromIndexes(removed);
+      for (TrainDepartureRegisterListener listener : listeners) {
+        listener.onRemoved(removed);
+      }
+      publishSnapshot();
+      event.finish("REMOVE", trainNumber, 1);
+    }
+    metrics.record(Operation.REMOVE, start);
   }
 
   /**
-   * Retrieves a sorted list of train departures ascending from departure time.
+   * Applies a burst of track, delay and removal changes as one transaction. Every train in the
+   * update is checked before anything is changed, so either the whole update is applied or
+   * nothing is. Each train is changed and moved in the indexes once, listeners are told about
+   * every change as usual, and a single snapshot is published for the whole update, so readers
+   * of the snapshot never see half of it and listeners get one
+   * {@link TrainDepartureRegisterListener#onPublished(TrainDepartureRegisterSnapshot)}.
    *
-   * @return List of sorted train departures.
+   * @param update the changes to apply.
+   * @return the snapshot published with the changes.
+   * @throws IllegalArgumentException if a train in the update is not in the register.
    */
-  public ArrayList<TrainDeparture> getSortedTrainDepartures() {
-    if (trainDepartures.isEmpty()) {
-      return null;
+  public TrainDepartureRegisterSnapshot applyUpdate(TrainDepartureUpdate update)
+      throws IllegalArgumentException {
+    RegisterMutationEvent event = new RegisterMutationEvent();
+    event.begin();
+    ArrayList<TrainDeparture> targets = new ArrayList<>(update.size());
+    for (TrainDepartureUpdate.Change change : update.getChanges()) {
+      TrainDeparture trainDeparture = trainDepartures.get(change.getTrainNumber());
+      if (trainDeparture == null) {
+        throw new IllegalArgumentException("No train departure with number "
+            + change.getTrainNumber());
+      }
+      targets.add(trainDeparture);
     }
-    sortTrainDepartures();
-    return trainDepartures;
+    publishDeferred = true;
+    try {
+      int i = 0;
+      for (TrainDepartureUpdate.Change change : update.getChanges()) {
+        TrainDeparture trainDeparture = targets.get(i++);
+        if (change.isRemove()) {
+          removeTrainDepartureNumber(change.getTrainNumber());
+        } else {
+          if (change.getTrack() != -1) {
+            trainDeparture.setTrack(change.getTrack());
+          }
+          if (change.getDelay() != null) {
+            trainDeparture.setDelay(change.getDelay());
+          }
+        }
+      }
+    } finally {
+      publishDeferred = false;
+      publishSnapshot();
+    }
+    event.finish("UPDATE", null, update.size());
+    return snapshot;
+  }
+
+  /**
+   * Adds a train departure to the time, destination and effective time indexes.
+   *
+   * @param trainDeparture the train departure to add.
+   */
+  private void addToIndexes(TrainDeparture trainDeparture) {
+    departuresByTime.add(trainDeparture);
+    addToEffectiveIndexes(effectiveKey(trainDeparture), trainDeparture);
+    destinationSet(trainDeparture.getDestination()).add(trainDeparture);
   }
 
   /**
-   * Sorts the train departures based on their departure time.
+   * Returns the departures to a destination, creating the set and adding the destination to the
+   * search index the first time it is used.
+   *
+   * @param destination the destination.
+   * @return the set of departures to the destination.
    */
-  private void sortTrainDepartures() {
-    if (trainDepartures.isEmpty()) {
+  private TreeSet<TrainDeparture> destinationSet(String destination) {
+    return departuresByDestination.computeIfAbsent(destination, d -> {
+      destinationIndex.add(d);
+      return new TreeSet<>(DEPARTURE_ORDER);
+    });
+  }
+
+  /**
+   * Removes a train departure from the indexes and the pending snapshot, and stops observing it.
+   * A destination without any departures left is removed from the destination index.
+   *
+   * @param trainDeparture the train departure to remove.
+   */
+  private void removeFromIndexes(TrainDeparture trainDeparture) {
+    trainDeparture.detachObserver();
+    departuresByTime.remove(trainDeparture);
+    removeFromEffectiveIndexes(effectiveKey(trainDeparture), trainDeparture);
+    TreeSet<TrainDeparture> departures =
+        departuresByDestination.get(trainDeparture.getDestination());
+    if (departures != null) {
+      departures.remove(trainDeparture);
+      if (departures.isEmpty()) {
+        departuresByDestination.remove(trainDeparture.getDestination());
+        destinationIndex.remove(trainDeparture.getDestination());
+      }
+    }
+    pendingSnapshot = pendingSnapshot.withoutTrainDeparture(
+        new TrainDepartureSnapshot(trainDeparture));
+  }
+
+  /**
+   * Copies the current state of a changed train departure into the snapshot and publishes it.
+   *
+   * @param trainDeparture the train departure that changed.
+   */
+  private void updateSnapshot(TrainDeparture trainDeparture) {
+    pendingSnapshot = pendingSnapshot.withTrainDeparture(
+        new TrainDepartureSnapshot(trainDeparture));
+    publishSnapshot();
+  }
+
+  /**
+   * Publishes the pending changes as a new snapshot version, if there are any, and tells the
+   * listeners about it. While an update is applied the changes are only collected, and the
+   * update publishes them together when it is done. Changes the listeners make when they are
+   * told, such as propagated delays, are published together in the next version.
+   */
+  private void publishSnapshot() {
+    if (publishDeferred) {
       return;
     }
-    trainDepartures.sort(Comparator.comparing(TrainDeparture::getDepartureTime));
+    while (pendingSnapshot != snapshot) {
+      pendingSnapshot = pendingSnapshot.withVersion(snapshot.getVersion() + 1);
+      snapshot = pendingSnapshot;
+      publishDeferred = true;
+      try {
+        for (TrainDepartureRegisterListener listener : listeners) {
+          listener.onPublished(snapshot);
+        }
+      } finally {
+        publishDeferred = false;
+      }
+    }
+  }
+
+  /**
+   * Adds a listener that is told about every later change to the register.
+   *
+   * @param listener the listener to add.
+   */
+  public void addListener(TrainDepartureRegisterListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener, so it is no longer told about changes.
+   *
+   * @param listener the listener to remove.
+   */
+  public void removeListener(TrainDepartureRegisterListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Returns the latency histograms and counters of the register. Measuring is off until it is
+   * turned on with {@link RegisterMetrics#setEnabled(boolean)}.
+   *
+   * @return the metrics of the register.
+   */
+  public RegisterMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Returns the latest published snapshot of the register. The snapshot never changes, so it can
+   * be read from any thread while the register is being changed.
+   *
+   * @return the latest snapshot.
+   */
+  public TrainDepartureRegisterSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Retrieves a sorted list of train departures ascending from departure time. Departures with
+   * the same departure time are ordered by train number.
+   *
+   * @return List of sorted train departures.
+   */
+  @Override
+  public ArrayList<TrainDeparture> getSortedTrainDepartures() {
+    long start = metrics.start();
+    try {
+      if (departuresByTime.isEmpty()) {
+        return null;
+      }
+      return new ArrayList<>(departuresByTime);
+    } finally {
+      metrics.record(Operation.SORTED_LISTING, start);
+    }
   }
 
   /**
@@ -178,8 +984,7 @@ public class TrainDepartureRegister {
    */
   @Override
   public String toString() {
-    sortTrainDepartures();
     return "The register contains the following train departures: \n"
-        + String.join("\n", trainDepartures.stream().map(TrainDeparture::toString).toList());
+        + String.join("\n", departuresByTime.stream().map(TrainDeparture::toString).toList());
   }
 }
@@ -0,0 +1,80 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+
+/**
+ * Listener that is told about every change made to a {@link TrainDepartureRegister}.
+ *
+ * <p>The methods are called on the dispatcher thread, after the register has been changed and
+ * before the new snapshot is published, which is then announced by
+ * {@link #onPublished(TrainDepartureRegisterSnapshot)}. All methods do nothing by default, so a
+ * listener only overrides the changes it cares about.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public interface TrainDepartureRegisterListener {
+
+  /**
+   * Called when a train departure has been registered.
+   *
+   * @param trainDeparture the registered train departure.
+   */
+  default void onRegistered(TrainDeparture trainDeparture) {
+  }
+
+  /**
+   * Called when a registered train departure has been given a new track.
+   *
+   * @param trainDeparture the train departure.
+   * @param oldTrack       the track before the change.
+   */
+  default void onTrackAssigned(TrainDeparture trainDeparture, int oldTrack) {
+  }
+
+  /**
+   * Called when the delay of a registered train departure has changed.
+   *
+   * @param trainDeparture the train departure.
+   * @param oldDelay       the delay before the change.
+   */
+  default void onDelayed(TrainDeparture trainDeparture, LocalTime oldDelay) {
+  }
+
+  /**
+   * Called when a train departure has been removed by its train number.
+   *
+   * @param trainDeparture the removed train departure.
+   */
+  default void onRemoved(TrainDeparture trainDeparture) {
+  }
+
+  /**
+   * Called when a train departure has been removed because it departed when the clock advanced.
+   *
+   * @param trainDeparture the departed train departure.
+   */
+  default void onExpired(TrainDeparture trainDeparture) {
+  }
+
+  /**
+   * Called when the time of the register has been updated, after the departed trains have been
+   * removed.
+   *
+   * @param oldTime the time before the update.
+   * @param newTime the new time.
+   */
+  default void onClockAdvanced(LocalTime oldTime, LocalTime newTime) {
+  }
+
+  /**
+   * Called when a new snapshot has been published, after the calls for the changes it contains.
+   * A single call can follow several changes, such as a batch registration or a clock update
+   * that removes departed trains.
+   *
+   * @param snapshot the published snapshot.
+   */
+  default void onPublished(TrainDepartureRegisterSnapshot snapshot) {
+  }
+}
@@ -0,0 +1,292 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Immutable, versioned view of a {@link TrainDepartureRegister}.
+ *
+ * <p>The register publishes a new snapshot after every change. Readers such as departure boards
+ * and searches take the latest snapshot and get a consistent view of the whole register without
+ * taking any locks, however long they keep it. The departures are kept in persistent trees, so a
+ * new version shares everything but the changed path with the previous one, and a single change
+ * of track or delay costs O(log n) instead of a copy of the register.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class TrainDepartureRegisterSnapshot {
+  private static final Comparator<TrainDepartureSnapshot> TIME_ORDER = (a, b) -> {
+    int compare = a.getDepartureTime().compareTo(b.getDepartureTime());
+    return compare != 0 ? compare : a.getTrainNumber().compareTo(b.getTrainNumber());
+  };
+  private static final Comparator<TrainDepartureSnapshot> NUMBER_ORDER =
+      (a, b) -> a.getTrainNumber().compareTo(b.getTrainNumber());
+  private static final Comparator<TrainDepartureSnapshot> DESTINATION_ORDER = (a, b) -> {
+    int compare = a.getDestination().compareTo(b.getDestination());
+    return compare != 0 ? compare : TIME_ORDER.compare(a, b);
+  };
+  private static final Comparator<TrainDepartureSnapshot> EFFECTIVE_ORDER = (a, b) -> {
+    int compare = Integer.compare(a.getEffectiveMinute(), b.getEffectiveMinute());
+    return compare != 0 ? compare : a.getTrainNumber().compareTo(b.getTrainNumber());
+  };
+  private static final int LAST_MINUTE = 23 * 60 + 59;
+
+  /**
+   * The snapshot of an empty register at midnight.
+   */
+  static final TrainDepartureRegisterSnapshot EMPTY = new TrainDepartureRegisterSnapshot(0,
+      LocalTime.of(0, 0), PersistentSortedSet.empty(TIME_ORDER),
+      PersistentSortedSet.empty(NUMBER_ORDER), PersistentSortedSet.empty(DESTINATION_ORDER),
+      PersistentSortedSet.empty(EFFECTIVE_ORDER));
+
+  private final long version;
+  private final LocalTime time;
+  private final PersistentSortedSet<TrainDepartureSnapshot> departuresByTime;
+  private final PersistentSortedSet<TrainDepartureSnapshot> departuresByNumber;
+  private final PersistentSortedSet<TrainDepartureSnapshot> departuresByDestination;
+  private final PersistentSortedSet<TrainDepartureSnapshot> departuresByEffectiveTime;
+
+  private TrainDepartureRegisterSnapshot(long version, LocalTime time,
+      PersistentSortedSet<TrainDepartureSnapshot> departuresByTime,
+      PersistentSortedSet<TrainDepartureSnapshot> departuresByNumber,
+      PersistentSortedSet<TrainDepartureSnapshot> departuresByDestination,
+      PersistentSortedSet<TrainDepartureSnapshot> departuresByEffectiveTime) {
+    this.version = version;
+    this.time = time;
+    this.departuresByTime = departuresByTime;
+    this.departuresByNumber = departuresByNumber;
+    this.departuresByDestination = departuresByDestination;
+    this.departuresByEffectiveTime = departuresByEffectiveTime;
+  }
+
+  /**
+   * Returns the version of the snapshot. A register publishes snapshots with increasing versions,
+   * so two snapshots with the same version have the same content.
+   *
+   * @return the version.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the time of the register when the snapshot was published.
+   *
+   * @return the current time of the register.
+   */
+  public LocalTime getTime() {
+    return time;
+  }
+
+  /**
+   * Returns the number of train departures in the snapshot.
+   *
+   * @return the number of train departures.
+   */
+  public int size() {
+    return departuresByTime.size();
+  }
+
+  /**
+   * Checks if the snapshot has no train departures.
+   *
+   * @return true if there are no train departures, else false.
+   */
+  public boolean isEmpty() {
+    return departuresByTime.isEmpty();
+  }
+
+  /**
+   * Returns the train departures ascending from departure time, then train number.
+   *
+   * @return a new list with the train departures.
+   */
+  public List<TrainDepartureSnapshot> getSortedTrainDepartures() {
+    return departuresByTime.toList();
+  }
+
+  /**
+   * Performs the action for every train departure, ascending from departure time, without
+   * creating a list.
+   *
+   * @param action the action to perform.
+   */
+  public void forEachTrainDeparture(Consumer<TrainDepartureSnapshot> action) {
+    departuresByTime.forEach(action);
+  }
+
+  /**
+   * Retrieves a train departure based on the unique train number, in O(log n).
+   *
+   * @param trainNumber The train number to be retrieved.
+   * @return The train departure, or null if it is not in the snapshot.
+   */
+  public TrainDepartureSnapshot getTrainDepartureNumber(String trainNumber) {
+    if (trainNumber == null) {
+      return null;
+    }
+    return departuresByNumber.find(departure ->
+        trainNumber.compareTo(departure.getTrainNumber()));
+  }
+
+  /**
+   * Retrieves the train departures going to a destination, ascending from departure time, in
+   * O(log n + k).
+   *
+   * @param destination the destination to be searched for.
+   * @return a new list with the train departures going to the destination.
+   */
+  public List<TrainDepartureSnapshot> getTrainDeparturesDestination(String destination) {
+    List<TrainDepartureSnapshot> departures = new ArrayList<>();
+    if (destination == null) {
+      return departures;
+    }
+    departuresByDestination.forEachFrom(
+        departure -> destination.compareTo(departure.getDestination()) <= 0 ? -1 : 1,
+        departure -> {
+          if (!departure.getDestination().equals(destination)) {
+            return false;
+          }
+          departures.add(departure);
+          return true;
+        });
+    return departures;
+  }
+
+  /**
+   * Retrieves the train departures that actually depart in a time window, counting their delay,
+   * ordered on actual departure time, in O(log n + k). Like
+   * {@link TrainDepartureRegister#getTrainDeparturesBetween(LocalTime, LocalTime)}, a window
+   * ending at 23:59 also includes the departures delayed past midnight.
+   *
+   * @param from the start of the window, inclusive.
+   * @param to   the end of the window, inclusive.
+   * @return a new list with the train departures in the window.
+   */
+  public List<TrainDepartureSnapshot> getTrainDeparturesBetween(LocalTime from, LocalTime to) {
+    List<TrainDepartureSnapshot> departures = new ArrayList<>();
+    if (from == null || to == null) {
+      return departures;
+    }
+    int fromMinute = from.getHour() * 60 + from.getMinute();
+    int toMinute = to.getHour() * 60 + to.getMinute();
+    int lastMinute = toMinute == LAST_MINUTE ? Integer.MAX_VALUE : toMinute;
+    departuresByEffectiveTime.forEachFrom(
+        departure -> fromMinute <= departure.getEffectiveMinute() ? -1 : 1,
+        departure -> {
+          if (departure.getEffectiveMinute() > lastMinute) {
+            return false;
+          }
+          departures.add(departure);
+          return true;
+        });
+    return departures;
+  }
+
+  /**
+   * Returns a snapshot that also contains the given departure, replacing an earlier version of
+   * the same departure.
+   *
+   * @param departure the departure to add.
+   * @return the new snapshot.
+   */
+  TrainDepartureRegisterSnapshot withTrainDeparture(TrainDepartureSnapshot departure) {
+    // The earlier version may have another delay, and with it another place in the effective
+    // time order, so it is looked up and removed first.
+    return new TrainDepartureRegisterSnapshot(version, time, departuresByTime.add(departure),
+        departuresByNumber.add(departure), departuresByDestination.add(departure),
+        withoutStored(departure).add(departure));
+  }
+
+  /**
+   * Returns a snapshot that also contains the given departures, which must be sorted on
+   * departure time and train number and have train numbers that are not in this snapshot. If
+   * this snapshot is empty the trees are built bottom-up from sorted lists, instead of adding the
+   * departures one by one.
+   *
+   * @param departures the departures to add, in board order.
+   * @return the new snapshot.
+   */
+  TrainDepartureRegisterSnapshot withTrainDepartures(List<TrainDepartureSnapshot> departures) {
+    if (!isEmpty()) {
+      TrainDepartureRegisterSnapshot snapshot = this;
+      for (TrainDepartureSnapshot departure : departures) {
+        snapshot = snapshot.withTrainDeparture(departure);
+      }
+      return snapshot;
+    }
+    PersistentSortedSet<TrainDepartureSnapshot> byTime =
+        PersistentSortedSet.fromSorted(TIME_ORDER, departures);
+    // Grouping the board by destination keeps each group in board order, so only the few
+    // distinct destinations need sorting.
+    TreeMap<String, List<TrainDepartureSnapshot>> byDestinationGroups = new TreeMap<>();
+    for (TrainDepartureSnapshot departure : departures) {
+      byDestinationGroups.computeIfAbsent(departure.getDestination(), d -> new ArrayList<>())
+          .add(departure);
+    }
+    List<TrainDepartureSnapshot> sorted = new ArrayList<>(departures.size());
+    byDestinationGroups.values().forEach(sorted::addAll);
+    PersistentSortedSet<TrainDepartureSnapshot> byDestination =
+        PersistentSortedSet.fromSorted(DESTINATION_ORDER, sorted);
+    sorted.sort(NUMBER_ORDER);
+    PersistentSortedSet<TrainDepartureSnapshot> byNumber =
+        PersistentSortedSet.fromSorted(NUMBER_ORDER, sorted);
+    sorted.sort(EFFECTIVE_ORDER);
+    PersistentSortedSet<TrainDepartureSnapshot> byEffectiveTime =
+        PersistentSortedSet.fromSorted(EFFECTIVE_ORDER, sorted);
+    return new TrainDepartureRegisterSnapshot(version, time, byTime, byNumber, byDestination,
+        byEffectiveTime);
+  }
+
+  /**
+   * Returns a snapshot without the given departure.
+   *
+   * @param departure the departure to remove.
+   * @return the new snapshot.
+   */
+  TrainDepartureRegisterSnapshot withoutTrainDeparture(TrainDepartureSnapshot departure) {
+    return new TrainDepartureRegisterSnapshot(version, time, departuresByTime.remove(departure),
+        departuresByNumber.remove(departure), departuresByDestination.remove(departure),
+        withoutStored(departure));
+  }
+
+  /**
+   * Returns the effective time index without the version of a departure this snapshot holds.
+   *
+   * @param departure a version of the departure.
+   * @return the index without the departure, or the index itself if it does not hold it.
+   */
+  private PersistentSortedSet<TrainDepartureSnapshot> withoutStored(
+      TrainDepartureSnapshot departure) {
+    TrainDepartureSnapshot stored = getTrainDepartureNumber(departure.getTrainNumber());
+    return stored == null ? departuresByEffectiveTime : departuresByEffectiveTime.remove(stored);
+  }
+
+  /**
+   * Returns a snapshot with a new current time.
+   *
+   * @param time the current time.
+   * @return the new snapshot.
+   */
+  TrainDepartureRegisterSnapshot withTime(LocalTime time) {
+    return new TrainDepartureRegisterSnapshot(version, time, departuresByTime, departuresByNumber,
+        departuresByDestination, departuresByEffectiveTime);
+  }
+
+  /**
+   * Returns a snapshot with a new version.
+   *
+   * @param version the version.
+   * @return the new snapshot.
+   */
+  TrainDepartureRegisterSnapshot withVersion(long version) {
+    return new TrainDepartureRegisterSnapshot(version, time, departuresByTime, departuresByNumber,
+        departuresByDestination, departuresByEffectiveTime);
+  }
+}
@@ -0,0 +1,116 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+
+/**
+ * Immutable copy of a train departure, as it was when a register snapshot was published.
+ *
+ * <p>Unlike {@link TrainDeparture} the track and delay can not change, so a snapshot can be read
+ * from any thread without locking.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class TrainDepartureSnapshot {
+  private final LocalTime departureTime;
+  private final String line;
+  private final String trainNumber;
+  private final String destination;
+  private final int track;
+  private final LocalTime delay;
+
+  /**
+   * Creates a copy of the current state of a train departure.
+   *
+   * @param trainDeparture the train departure to copy.
+   */
+  TrainDepartureSnapshot(TrainDeparture trainDeparture) {
+    this.departureTime = trainDeparture.getDepartureTime();
+    this.line = trainDeparture.getLine();
+    this.trainNumber = trainDeparture.getTrainNumber();
+    this.destination = trainDeparture.getDestination();
+    this.track = trainDeparture.getTrack();
+    this.delay = trainDeparture.getDelay();
+  }
+
+  /**
+   * Return the LocalTime representing the time the train departs.
+   *
+   * @return LocalTime of the train departing.
+   */
+  public LocalTime getDepartureTime() {
+    return departureTime;
+  }
+
+  /**
+   * Returns the String representing the line the train travels.
+   *
+   * @return a String with a combination of integers and letters.
+   */
+  public String getLine() {
+    return line;
+  }
+
+  /**
+   * Returns a String representing the unique train number.
+   *
+   * @return String consisting of integer and letters.
+   */
+  public String getTrainNumber() {
+    return trainNumber;
+  }
+
+  /**
+   * Returns a String representing the destination of the train.
+   *
+   * @return String with destination name.
+   */
+  public String getDestination() {
+    return destination;
+  }
+
+  /**
+   * Returns the track the train departs from, or -1 if no track has been assigned.
+   *
+   * @return Integer representing track number.
+   */
+  public int getTrack() {
+    return track;
+  }
+
+  /**
+   * Returns LocalTime representing how long the train is delayed.
+   *
+   * @return LocalTime.
+   */
+  public LocalTime getDelay() {
+    return delay;
+  }
+
+  /**
+   * Returns the minute of the day the train actually departs, its departure time plus delay.
+   *
+   * @return minutes since midnight, more than a day's minutes if delayed past midnight.
+   */
+  int getEffectiveMinute() {
+    return TrainDeparture.effectiveMinute(departureTime, delay);
+  }
+
+  /**
+   * Returns a string that represent the train departure with all its attribute information.
+   *
+   * @return a string that represent the train departure information.
+   */
+  @Override
+  public String toString() {
+    return "TrainDeparture{"
+        + "trainNumber= " + trainNumber + '\''
+        + ", departureTime= " + departureTime
+        + ", line= " + line + '\''
+        + ", destination= " + destination + '\''
+        + ", track= " + track
+        + ", delay= " + delay
+        + '}';
+  }
+}
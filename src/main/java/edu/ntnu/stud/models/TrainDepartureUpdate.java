@@ -0,0 +1,119 @@
+package edu.ntnu.stud.models;
+
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+
+/**
+ * A burst of track, delay and removal changes, to be applied to a register as one transaction
+ * with {@link TrainDepartureRegister#applyUpdate(TrainDepartureUpdate)}.
+ *
+ * <p>Changes to the same train are combined while the update is built: a later track or delay
+ * replaces an earlier one, and a removal makes the other changes to the train pointless. Every
+ * train is therefore changed once when the update is applied, however many changes the burst
+ * held for it.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class TrainDepartureUpdate {
+  private final LinkedHashMap<String, Change> changes = new LinkedHashMap<>();
+
+  /**
+   * The combined changes to one train.
+   */
+  static final class Change {
+    private final String trainNumber;
+    private int track = -1;
+    private LocalTime delay;
+    private boolean remove;
+
+    private Change(String trainNumber) {
+      this.trainNumber = trainNumber;
+    }
+
+    String getTrainNumber() {
+      return trainNumber;
+    }
+
+    int getTrack() {
+      return track;
+    }
+
+    LocalTime getDelay() {
+      return delay;
+    }
+
+    boolean isRemove() {
+      return remove;
+    }
+  }
+
+  /**
+   * Assigns a track to a train.
+   *
+   * @param trainNumber the train number.
+   * @param track       the new track.
+   * @return this update.
+   * @throws IllegalArgumentException if the track is less than 0.
+   */
+  public TrainDepartureUpdate setTrack(String trainNumber, int track)
+      throws IllegalArgumentException {
+    if (track < 0) {
+      throw new IllegalArgumentException("Track cant be less than 0");
+    }
+    change(trainNumber).track = track;
+    return this;
+  }
+
+  /**
+   * Sets the delay of a train.
+   *
+   * @param trainNumber the train number.
+   * @param delay       the new delay.
+   * @return this update.
+   * @throws IllegalArgumentException if the delay is null.
+   */
+  public TrainDepartureUpdate setDelay(String trainNumber, LocalTime delay)
+      throws IllegalArgumentException {
+    if (delay == null) {
+      throw new IllegalArgumentException("The time can not be null");
+    }
+    change(trainNumber).delay = delay;
+    return this;
+  }
+
+  /**
+   * Removes a train.
+   *
+   * @param trainNumber the train number.
+   * @return this update.
+   */
+  public TrainDepartureUpdate remove(String trainNumber) {
+    change(trainNumber).remove = true;
+    return this;
+  }
+
+  /**
+   * Returns the number of trains the update changes.
+   *
+   * @return the number of trains.
+   */
+  public int size() {
+    return changes.size();
+  }
+
+  /**
+   * Returns the combined changes, one per train, in the order the trains were first changed.
+   *
+   * @return the changes.
+   */
+  Collection<Change> getChanges() {
+    return changes.values();
+  }
+
+  private Change change(String trainNumber) {
+    return changes.computeIfAbsent(trainNumber, Change::new);
+  }
+}
@@ -0,0 +1,233 @@
+package edu.ntnu.stud.models;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Hash index mapping unique train numbers to their train departures.
+ *
+ * <p>The index uses open addressing with linear probing. The hash of every train number is kept
+ * in a primitive int array next to the departure, so a probe compares ints before it compares
+ * strings and no boxed keys or entry objects are allocated. Removal shifts the following entries
+ * of the probe sequence backwards instead of leaving tombstones, which keeps lookups short after
+ * many removals.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+class TrainNumberIndex {
+  private static final int MINIMUM_CAPACITY = 16;
+  private int[] hashes;
+  private TrainDeparture[] departures;
+  private int mask;
+  private int size;
+
+  /**
+   * Creates an empty index.
+   */
+  TrainNumberIndex() {
+    this(MINIMUM_CAPACITY);
+  }
+
+  /**
+   * Creates an empty index that can hold the expected number of departures without resizing.
+   *
+   * @param expectedSize the number of departures the index is expected to hold.
+   */
+  TrainNumberIndex(int expectedSize) {
+    allocate(tableSizeFor(expectedSize));
+  }
+
+  /**
+   * Returns the number of departures in the index.
+   *
+   * @return number of departures.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Checks if a train departure with the given train number is in the index.
+   *
+   * @param trainNumber the train number to look for.
+   * @return true if the train number is in the index, else false.
+   */
+  boolean contains(String trainNumber) {
+    return get(trainNumber) != null;
+  }
+
+  /**
+   * Returns the train departure with the given train number.
+   *
+   * @param trainNumber the train number to look for.
+   * @return the train departure, or null if no departure has the train number.
+   */
+  TrainDeparture get(String trainNumber) {
+    if (trainNumber == null) {
+      return null;
+    }
+    int hash = hash(trainNumber);
+    int slot = hash & mask;
+    while (departures[slot] != null) {
+      if (hashes[slot] == hash && departures[slot].getTrainNumber().equals(trainNumber)) {
+        return departures[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Adds a train departure to the index if its train number is not already present.
+   *
+   * @param trainDeparture the train departure to add.
+   * @return true if the departure was added, false if the train number already exists.
+   */
+  boolean add(TrainDeparture trainDeparture) {
+    String trainNumber = trainDeparture.getTrainNumber();
+    int hash = hash(trainNumber);
+    int slot = hash & mask;
+    while (departures[slot] != null) {
+      if (hashes[slot] == hash && departures[slot].getTrainNumber().equals(trainNumber)) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    hashes[slot] = hash;
+    departures[slot] = trainDeparture;
+    size++;
+    if (size * 2 > departures.length) {
+      resize(departures.length * 2);
+    }
+    return true;
+  }
+
+  /**
+   * Removes the train departure with the given train number from the index.
+   *
+   * @param trainNumber the train number to remove.
+   * @return the removed train departure, or null if no departure had the train number.
+   */
+  TrainDeparture remove(String trainNumber) {
+    if (trainNumber == null) {
+      return null;
+    }
+    int hash = hash(trainNumber);
+    int slot = hash & mask;
+    while (departures[slot] != null) {
+      if (hashes[slot] == hash && departures[slot].getTrainNumber().equals(trainNumber)) {
+        TrainDeparture removed = departures[slot];
+        deleteSlot(slot);
+        size--;
+        return removed;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Performs the given action for every train departure in the index, in no particular order.
+   *
+   * @param action the action to perform.
+   */
+  void forEach(Consumer<TrainDeparture> action) {
+    for (TrainDeparture departure : departures) {
+      if (departure != null) {
+        action.accept(departure);
+      }
+    }
+  }
+
+  /**
+   * Returns the train departures in the index as a new list, in no particular order.
+   *
+   * @return ArrayList with every departure in the index.
+   */
+  ArrayList<TrainDeparture> values() {
+    ArrayList<TrainDeparture> values = new ArrayList<>(size);
+    forEach(values::add);
+    return values;
+  }
+
+  /**
+   * Empties a slot and moves later entries of the same probe sequence back, so that every
+   * remaining entry can still be reached from its home slot.
+   *
+   * @param slot the slot to empty.
+   */
+  private void deleteSlot(int slot) {
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (departures[next] != null) {
+      int home = hashes[next] & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        hashes[gap] = hashes[next];
+        departures[gap] = departures[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    hashes[gap] = 0;
+    departures[gap] = null;
+  }
+
+  /**
+   * Moves all entries into a new table with the given capacity.
+   *
+   * @param capacity the new capacity, a power of two.
+   */
+  private void resize(int capacity) {
+    int[] oldHashes = hashes;
+    TrainDeparture[] oldDepartures = departures;
+    allocate(capacity);
+    for (int i = 0; i < oldDepartures.length; i++) {
+      if (oldDepartures[i] != null) {
+        int slot = oldHashes[i] & mask;
+        while (departures[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        hashes[slot] = oldHashes[i];
+        departures[slot] = oldDepartures[i];
+      }
+    }
+  }
+
+  /**
+   * Allocates empty arrays with the given capacity.
+   *
+   * @param capacity the capacity, a power of two.
+   */
+  private void allocate(int capacity) {
+    hashes = new int[capacity];
+    departures = new TrainDeparture[capacity];
+    mask = capacity - 1;
+  }
+
+  /**
+   * Returns the smallest power of two table size that keeps the load factor at or below one half.
+   *
+   * @param expectedSize the number of departures the table should hold.
+   * @return the table size.
+   */
+  private static int tableSizeFor(int expectedSize) {
+    int capacity = MINIMUM_CAPACITY;
+    while (capacity < expectedSize * 2 && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  /**
+   * Spreads the String hash code so that the low bits used for the slot depend on all bits.
+   *
+   * @param trainNumber the train number to hash.
+   * @return the spread hash.
+   */
+  private static int hash(String trainNumber) {
+    int h = trainNumber.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
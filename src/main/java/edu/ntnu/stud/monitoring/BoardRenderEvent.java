@@ -0,0 +1,42 @@
+package edu.ntnu.stud.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for printing a table of train departures. Only renders that take longer
+ * than 10 ms are recorded unless the recording sets another threshold.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+@Name("edu.ntnu.stud.BoardRender")
+@Label("Board Render")
+@Description("Printing of a table of train departures")
+@Category({"Train Dispatch", "User Interface"})
+@Threshold("10 ms")
+@StackTrace(false)
+public final class BoardRenderEvent extends Event {
+  @Label("Rows")
+  @Description("The number of train departures printed")
+  int rows;
+
+  /**
+   * Ends the event and commits it with the given row count if it is recorded.
+   *
+   * @param rows the number of printed train departures.
+   */
+  public void finish(int rows) {
+    end();
+    if (shouldCommit()) {
+      this.rows = rows;
+      commit();
+    }
+  }
+}
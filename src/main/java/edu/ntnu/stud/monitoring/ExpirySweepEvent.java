@@ -0,0 +1,55 @@
+package edu.ntnu.stud.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for removing the departed trains when the clock of a register advances.
+ * Only sweeps that take longer than 1 ms are recorded unless the recording sets another
+ * threshold.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+@Name("edu.ntnu.stud.ExpirySweep")
+@Label("Expiry Sweep")
+@Description("Removal of the departed trains after a time update")
+@Category({"Train Dispatch", "Register"})
+@Threshold("1 ms")
+@StackTrace(false)
+public final class ExpirySweepEvent extends Event {
+  @Label("Removed")
+  @Description("The number of departed trains removed")
+  int removed;
+
+  @Label("Remaining")
+  @Description("The number of train departures left in the register")
+  int remaining;
+
+  @Label("Time")
+  @Description("The new time of the register")
+  String time;
+
+  /**
+   * Ends the event and commits it with the given values if it is recorded.
+   *
+   * @param removed   the number of removed train departures.
+   * @param remaining the number of train departures left.
+   * @param time      the new time of the register.
+   */
+  public void finish(int removed, int remaining, String time) {
+    end();
+    if (shouldCommit()) {
+      this.removed = removed;
+      this.remaining = remaining;
+      this.time = time;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package edu.ntnu.stud.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with a fixed relative precision, in the style of
+ * HdrHistogram.
+ *
+ * <p>Values below 32 have a bucket each. Every power of two above that is split into 16 buckets
+ * of equal width, so a recorded value is off by at most 1/16 of itself whatever its size, from
+ * nanoseconds to hours. Recording a value is a few shifts and an atomic increment in a fixed
+ * array, without allocation or locking. Values can be recorded and read from different threads.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value. Negative values are recorded as 0.
+   *
+   * @param nanos the latency in nanoseconds.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucket(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return the number of values.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Returns the mean of the recorded values.
+   *
+   * @return the mean in nanoseconds, or 0 if nothing is recorded.
+   */
+  public double getMean() {
+    long values = count.get();
+    return values == 0 ? 0 : (double) sum.get() / values;
+  }
+
+  /**
+   * Returns the largest recorded value.
+   *
+   * @return the largest value in nanoseconds, or 0 if nothing is recorded.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the value that the given percentage of the recorded values are at or below. The
+   * value is the upper end of its bucket, so it is never below the true value.
+   *
+   * @param percentile the percentage, from 0 to 100.
+   * @return the value in nanoseconds, or 0 if nothing is recorded.
+   * @throws IllegalArgumentException if the percentage is outside 0 to 100.
+   */
+  public long getValueAtPercentile(double percentile) throws IllegalArgumentException {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("The percentile must be from 0 to 100");
+    }
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += counts.get(i);
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return Math.min(highestValue(i), max.get());
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Removes all recorded values.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    max.set(0);
+  }
+
+  /**
+   * Returns the bucket of a value that is at least 0.
+   */
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    int subBucket = (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the largest value that falls in a bucket.
+   */
+  static long highestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+    long subBucket = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+    return (subBucket << shift) + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,139 @@
+package edu.ntnu.stud.monitoring;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Summary of a {@link LatencyHistogram} in microseconds, as shown by JMX clients such as
+ * JConsole.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public final class LatencySummary {
+  private final long count;
+  private final double meanMicros;
+  private final double p50Micros;
+  private final double p90Micros;
+  private final double p99Micros;
+  private final double p999Micros;
+  private final double maxMicros;
+
+  /**
+   * Creates a summary with the given values.
+   *
+   * @param count      the number of recorded values.
+   * @param meanMicros the mean.
+   * @param p50Micros  the median.
+   * @param p90Micros  the 90th percentile.
+   * @param p99Micros  the 99th percentile.
+   * @param p999Micros the 99.9th percentile.
+   * @param maxMicros  the largest value.
+   */
+  public LatencySummary(long count, double meanMicros, double p50Micros, double p90Micros,
+                        double p99Micros, double p999Micros, double maxMicros) {
+    this.count = count;
+    this.meanMicros = meanMicros;
+    this.p50Micros = p50Micros;
+    this.p90Micros = p90Micros;
+    this.p99Micros = p99Micros;
+    this.p999Micros = p999Micros;
+    this.maxMicros = maxMicros;
+  }
+
+  /**
+   * Summarizes a histogram.
+   *
+   * @param histogram the histogram.
+   * @return the summary.
+   */
+  public static LatencySummary of(LatencyHistogram histogram) {
+    return new LatencySummary(histogram.getCount(), histogram.getMean() / 1000,
+        histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+        histogram.getValueAtPercentile(99) / 1000.0,
+        histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMax() / 1000.0);
+  }
+
+  /**
+   * Creates a summary from its JMX form. Used by JMX when a client reads it through a proxy.
+   *
+   * @param data the summary as composite data.
+   * @return the summary.
+   */
+  public static LatencySummary from(CompositeData data) {
+    return new LatencySummary((Long) data.get("count"), (Double) data.get("meanMicros"),
+        (Double) data.get("p50Micros"), (Double) data.get("p90Micros"),
+        (Double) data.get("p99Micros"), (Double) data.get("p999Micros"),
+        (Double) data.get("maxMicros"));
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return the count.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the mean.
+   *
+   * @return the mean in microseconds.
+   */
+  public double getMeanMicros() {
+    return meanMicros;
+  }
+
+  /**
+   * Returns the median.
+   *
+   * @return the median in microseconds.
+   */
+  public double getP50Micros() {
+    return p50Micros;
+  }
+
+  /**
+   * Returns the 90th percentile.
+   *
+   * @return the 90th percentile in microseconds.
+   */
+  public double getP90Micros() {
+    return p90Micros;
+  }
+
+  /**
+   * Returns the 99th percentile.
+   *
+   * @return the 99th percentile in microseconds.
+   */
+  public double getP99Micros() {
+    return p99Micros;
+  }
+
+  /**
+   * Returns the 99.9th percentile.
+   *
+   * @return the 99.9th percentile in microseconds.
+   */
+  public double getP999Micros() {
+    return p999Micros;
+  }
+
+  /**
+   * Returns the largest value.
+   *
+   * @return the largest value in microseconds.
+   */
+  public double getMaxMicros() {
+    return maxMicros;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus "
+        + "max=%.1fus", count, meanMicros, p50Micros, p90Micros, p99Micros, p999Micros,
+        maxMicros);
+  }
+}
@@ -0,0 +1,190 @@
+package edu.ntnu.stud.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Latency histograms and counters for the operations of a register.
+ *
+ * <p>Measuring is off until it is turned on, for example from JConsole through
+ * {@link #publish(String)}. While it is off, {@link #start()} is a single read of a volatile
+ * flag and {@link #record(Operation, long)} returns at once, so an instrumented register costs
+ * close to nothing.
+ *
+ * <pre>{@code
+ * long start = metrics.start();
+ * ...
+ * metrics.record(RegisterMetrics.Operation.LOOKUP, start);
+ * }</pre>
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class RegisterMetrics implements RegisterMetricsMXBean {
+  private static final String DOMAIN = "edu.ntnu.stud";
+
+  /**
+   * The operations that are measured.
+   */
+  public enum Operation {
+    REGISTER,
+    LOOKUP,
+    DESTINATION_SEARCH,
+    REMOVE,
+    TIME_UPDATE,
+    SORTED_LISTING
+  }
+
+  private final EnumMap<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+  private final AtomicLong expiredTrains = new AtomicLong();
+  private final AtomicLong rejectedRegistrations = new AtomicLong();
+  private volatile boolean enabled;
+
+  /**
+   * Creates metrics with measuring turned off.
+   */
+  public RegisterMetrics() {
+    for (Operation operation : Operation.values()) {
+      histograms.put(operation, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * Marks the start of an operation.
+   *
+   * @return the start time in nanoseconds, or 0 if measuring is off.
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * Records the latency of an operation that started at the given time.
+   *
+   * @param operation the operation.
+   * @param start     the value returned by {@link #start()} when the operation started.
+   */
+  public void record(Operation operation, long start) {
+    if (start != 0L) {
+      histograms.get(operation).record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Counts trains that were removed because they departed, if measuring is on.
+   *
+   * @param trains the number of trains.
+   */
+  public void expired(int trains) {
+    if (enabled && trains > 0) {
+      expiredTrains.addAndGet(trains);
+    }
+  }
+
+  /**
+   * Counts train departures the register refused to register, if measuring is on.
+   *
+   * @param trainDepartures the number of train departures.
+   */
+  public void rejected(int trainDepartures) {
+    if (enabled && trainDepartures > 0) {
+      rejectedRegistrations.addAndGet(trainDepartures);
+    }
+  }
+
+  /**
+   * Returns the histogram of an operation.
+   *
+   * @param operation the operation.
+   * @return the histogram.
+   */
+  public LatencyHistogram getHistogram(Operation operation) {
+    return histograms.get(operation);
+  }
+
+  /**
+   * Publishes the metrics as an MXBean named "edu.ntnu.stud:type=RegisterMetrics,name=[name]"
+   * in the platform MBean server, replacing metrics published earlier under the same name.
+   *
+   * @param name the name of the register.
+   * @return the name of the MXBean.
+   * @throws IllegalArgumentException if the name is not valid in an object name or the MXBean can
+   *                                  not be registered.
+   */
+  public ObjectName publish(String name) throws IllegalArgumentException {
+    try {
+      ObjectName objectName =
+          new ObjectName(DOMAIN + ":type=RegisterMetrics,name=" + ObjectName.quote(name));
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if (server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+      server.registerMBean(this, objectName);
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalArgumentException("The metrics could not be published as " + name, e);
+    }
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @Override
+  public long getExpiredTrains() {
+    return expiredTrains.get();
+  }
+
+  @Override
+  public long getRejectedRegistrations() {
+    return rejectedRegistrations.get();
+  }
+
+  @Override
+  public LatencySummary getRegisterLatency() {
+    return LatencySummary.of(histograms.get(Operation.REGISTER));
+  }
+
+  @Override
+  public LatencySummary getLookupLatency() {
+    return LatencySummary.of(histograms.get(Operation.LOOKUP));
+  }
+
+  @Override
+  public LatencySummary getDestinationSearchLatency() {
+    return LatencySummary.of(histograms.get(Operation.DESTINATION_SEARCH));
+  }
+
+  @Override
+  public LatencySummary getRemoveLatency() {
+    return LatencySummary.of(histograms.get(Operation.REMOVE));
+  }
+
+  @Override
+  public LatencySummary getTimeUpdateLatency() {
+    return LatencySummary.of(histograms.get(Operation.TIME_UPDATE));
+  }
+
+  @Override
+  public LatencySummary getSortedListingLatency() {
+    return LatencySummary.of(histograms.get(Operation.SORTED_LISTING));
+  }
+
+  @Override
+  public void reset() {
+    histograms.values().forEach(LatencyHistogram::reset);
+    expiredTrains.set(0);
+    rejectedRegistrations.set(0);
+  }
+}
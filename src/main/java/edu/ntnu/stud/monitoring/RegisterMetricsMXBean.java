@@ -0,0 +1,86 @@
+package edu.ntnu.stud.monitoring;
+
+/**
+ * Management interface of {@link RegisterMetrics}, as published through JMX.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public interface RegisterMetricsMXBean {
+
+  /**
+   * Checks if operations are being measured.
+   *
+   * @return true if measuring, else false.
+   */
+  boolean isEnabled();
+
+  /**
+   * Turns measuring on or off.
+   *
+   * @param enabled true to measure operations, false to stop.
+   */
+  void setEnabled(boolean enabled);
+
+  /**
+   * Returns the number of trains removed because they departed.
+   *
+   * @return the number of expired trains.
+   */
+  long getExpiredTrains();
+
+  /**
+   * Returns the number of train departures the register refused to register.
+   *
+   * @return the number of rejected registrations.
+   */
+  long getRejectedRegistrations();
+
+  /**
+   * Returns the latencies of registrations.
+   *
+   * @return the latency summary.
+   */
+  LatencySummary getRegisterLatency();
+
+  /**
+   * Returns the latencies of lookups and checks by train number.
+   *
+   * @return the latency summary.
+   */
+  LatencySummary getLookupLatency();
+
+  /**
+   * Returns the latencies of destination searches and checks.
+   *
+   * @return the latency summary.
+   */
+  LatencySummary getDestinationSearchLatency();
+
+  /**
+   * Returns the latencies of removals by train number.
+   *
+   * @return the latency summary.
+   */
+  LatencySummary getRemoveLatency();
+
+  /**
+   * Returns the latencies of time updates, including removing the departed trains.
+   *
+   * @return the latency summary.
+   */
+  LatencySummary getTimeUpdateLatency();
+
+  /**
+   * Returns the latencies of listing the departures in departure order.
+   *
+   * @return the latency summary.
+   */
+  LatencySummary getSortedListingLatency();
+
+  /**
+   * Removes everything measured so far.
+   */
+  void reset();
+}
@@ -0,0 +1,60 @@
+package edu.ntnu.stud.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a change to a register: a registration, a batch registration, a
+ * track assignment, a delay or a removal. Only changes that take longer than 1 ms are recorded
+ * unless the recording sets another threshold.
+ *
+ * <pre>{@code
+ * RegisterMutationEvent event = new RegisterMutationEvent();
+ * event.begin();
+ * ...
+ * event.finish("REGISTER", trainNumber, 1);
+ * }</pre>
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+@Name("edu.ntnu.stud.RegisterMutation")
+@Label("Register Mutation")
+@Description("A change to the train departure register")
+@Category({"Train Dispatch", "Register"})
+@Threshold("1 ms")
+@StackTrace(false)
+public final class RegisterMutationEvent extends Event {
+  @Label("Operation")
+  String operation;
+
+  @Label("Train Number")
+  String trainNumber;
+
+  @Label("Departures")
+  @Description("The number of train departures changed")
+  int departures;
+
+  /**
+   * Ends the event and commits it with the given values if it is recorded.
+   *
+   * @param operation   the kind of change.
+   * @param trainNumber the train number of the changed departure, or null for a batch.
+   * @param departures  the number of changed train departures.
+   */
+  public void finish(String operation, String trainNumber, int departures) {
+    end();
+    if (shouldCommit()) {
+      this.operation = operation;
+      this.trainNumber = trainNumber;
+      this.departures = departures;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,640 @@
+package edu.ntnu.stud.utils;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import edu.ntnu.stud.models.TrainDepartureRegisterListener;
+import edu.ntnu.stud.models.TrainDepartureRegisterSnapshot;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal that makes a {@link TrainDepartureRegister} survive a restart.
+ *
+ * <p>The journal listens to the register and records every registration, track assignment,
+ * delay, removal and clock update as a binary record with a length and a CRC32 checksum.
+ * Departures that expire when the clock advances are not recorded, since replaying the clock
+ * update expires them again.
+ *
+ * <p>Records are collected in memory and written together by {@link #commit()}, so a burst of
+ * changes, such as an imported timetable, costs one write and at most one fsync instead of one
+ * per change. A commit also happens by itself whenever a group of records is full. When a commit
+ * forces the journal to disk is decided by the {@link SyncPolicy}.
+ *
+ * <p>When the journal has grown past the compaction threshold, the next commit writes the whole
+ * register to a snapshot file and starts a new, empty journal. The snapshot and the journal it
+ * belongs to share a generation number, so a crash in the middle of a compaction never replays a
+ * journal on top of a snapshot that already contains it.
+ *
+ * <p>{@link #open(Path, TrainDepartureRegister)} recovers the register by loading the latest
+ * snapshot and replaying the journal after it. A record that was only partly written when the
+ * application stopped fails its checksum, and the journal is cut off before it.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class RegisterJournal implements TrainDepartureRegisterListener, Closeable {
+  private static final String SNAPSHOT_FILE = "register.snapshot";
+  private static final String JOURNAL_PREFIX = "journal-";
+  private static final String JOURNAL_SUFFIX = ".log";
+  private static final int SNAPSHOT_MAGIC = 0x54445253;
+  private static final int FORMAT_VERSION = 1;
+  private static final byte REGISTER = 1;
+  private static final byte TRACK = 2;
+  private static final byte DELAY = 3;
+  private static final byte REMOVE = 4;
+  private static final byte CLOCK = 5;
+  private static final long SYNC_INTERVAL_MILLIS = 1_000L;
+
+  /**
+   * When a commit forces the journal to disk.
+   */
+  public enum SyncPolicy {
+    /**
+     * Every commit is forced to disk before it returns. A committed change is never lost.
+     */
+    EVERY_COMMIT,
+    /**
+     * Commits are written to the file, and a background thread forces the journal to disk once a
+     * second if anything was written since the last time. At most about a second of committed
+     * changes is lost if the machine stops.
+     */
+    EVERY_SECOND,
+    /**
+     * Commits are written to the file and the operating system decides when they reach the disk.
+     * Committed changes survive the application stopping, but not the machine.
+     */
+    NEVER
+  }
+
+  private final Path directory;
+  private final TrainDepartureRegister register;
+  private final SyncPolicy syncPolicy;
+  private final int groupSize;
+  private final int compactionThreshold;
+  private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+  private final DataOutputStream recordOut = new DataOutputStream(record);
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private final DataOutputStream pendingOut = new DataOutputStream(pending);
+  private final CRC32 checksum = new CRC32();
+  private volatile FileChannel channel;
+  private volatile boolean unsynced;
+  private ScheduledExecutorService flusher;
+  private long generation;
+  private int pendingRecords;
+  private int journalRecords;
+  private int recoveredRecords;
+
+  private RegisterJournal(Path directory, TrainDepartureRegister register, SyncPolicy syncPolicy,
+                          int groupSize, int compactionThreshold) {
+    this.directory = directory;
+    this.register = register;
+    this.syncPolicy = syncPolicy;
+    this.groupSize = groupSize;
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  /**
+   * Opens the journal in a directory with fsync on every commit, groups of 256 records and
+   * compaction after 10 000 records. See
+   * {@link #open(Path, TrainDepartureRegister, SyncPolicy, int, int)}.
+   *
+   * @param directory the directory holding the snapshot and journal files.
+   * @param register  the register to recover into and record.
+   * @return the open journal.
+   * @throws IOException if the files can not be read or written, or are inconsistent.
+   */
+  public static RegisterJournal open(Path directory, TrainDepartureRegister register)
+      throws IOException {
+    return open(directory, register, SyncPolicy.EVERY_COMMIT, 256, 10_000);
+  }
+
+  /**
+   * Opens the journal in a directory and starts recording the register.
+   *
+   * <p>If the directory already holds a journal, the register is recovered from it, and must
+   * therefore be new: empty and at midnight. Otherwise the current content of the register is
+   * written as the first snapshot.
+   *
+   * @param directory           the directory holding the snapshot and journal files.
+   * @param register            the register to recover into and record.
+   * @param syncPolicy          when commits are forced to disk.
+   * @param groupSize           the number of records that are committed together at most.
+   * @param compactionThreshold the number of journal records after which a commit compacts.
+   * @return the open journal.
+   * @throws IOException              if the files can not be read or written, or are
+   *                                  inconsistent.
+   * @throws IllegalArgumentException if the group size or compaction threshold is less than 1,
+   *                                  or the directory holds a journal and the register is not
+   *                                  new.
+   */
+  public static RegisterJournal open(Path directory, TrainDepartureRegister register,
+                                     SyncPolicy syncPolicy, int groupSize,
+                                     int compactionThreshold)
+      throws IOException, IllegalArgumentException {
+    if (groupSize < 1 || compactionThreshold < 1) {
+      throw new IllegalArgumentException(
+          "The group size and compaction threshold must be at least 1");
+    }
+    RegisterJournal journal = new RegisterJournal(directory, register, syncPolicy, groupSize,
+        compactionThreshold);
+    Files.createDirectories(directory);
+    if (exists(directory)) {
+      if (!register.getSnapshot().isEmpty() || !register.getTime().equals(LocalTime.MIDNIGHT)) {
+        throw new IllegalArgumentException("The register can not be recovered from "
+            + directory + ". Since it is not empty");
+      }
+      journal.recover();
+    } else {
+      journal.compact();
+    }
+    if (syncPolicy == SyncPolicy.EVERY_SECOND) {
+      journal.startFlusher();
+    }
+    register.addListener(journal);
+    return journal;
+  }
+
+  /**
+   * Checks if a directory holds a journal to recover from.
+   *
+   * @param directory the directory to check.
+   * @return true if the directory holds a snapshot, else false.
+   */
+  public static boolean exists(Path directory) {
+    return Files.exists(directory.resolve(SNAPSHOT_FILE));
+  }
+
+  @Override
+  public void onRegistered(TrainDeparture trainDeparture) {
+    append(() -> {
+      recordOut.writeByte(REGISTER);
+      writeTrainDeparture(recordOut, trainDeparture.getDepartureTime(), trainDeparture.getLine(),
+          trainDeparture.getTrainNumber(), trainDeparture.getDestination(),
+          trainDeparture.getTrack(), trainDeparture.getDelay());
+    });
+  }
+
+  @Override
+  public void onTrackAssigned(TrainDeparture trainDeparture, int oldTrack) {
+    append(() -> {
+      recordOut.writeByte(TRACK);
+      recordOut.writeUTF(trainDeparture.getTrainNumber());
+      recordOut.writeInt(trainDeparture.getTrack());
+    });
+  }
+
+  @Override
+  public void onDelayed(TrainDeparture trainDeparture, LocalTime oldDelay) {
+    append(() -> {
+      recordOut.writeByte(DELAY);
+      recordOut.writeUTF(trainDeparture.getTrainNumber());
+      recordOut.writeInt(trainDeparture.getDelay().toSecondOfDay());
+    });
+  }
+
+  @Override
+  public void onRemoved(TrainDeparture trainDeparture) {
+    append(() -> {
+      recordOut.writeByte(REMOVE);
+      recordOut.writeUTF(trainDeparture.getTrainNumber());
+    });
+  }
+
+  @Override
+  public void onClockAdvanced(LocalTime oldTime, LocalTime newTime) {
+    append(() -> {
+      recordOut.writeByte(CLOCK);
+      recordOut.writeInt(newTime.toSecondOfDay());
+    });
+  }
+
+  /**
+   * Writes the records collected since the last commit to the journal as one group, and forces
+   * them to disk as decided by the sync policy. Compacts the journal if it has grown past the
+   * compaction threshold.
+   *
+   * @throws IOException if the journal can not be written.
+   */
+  public void commit() throws IOException {
+    if (journalRecords + pendingRecords >= compactionThreshold) {
+      compact();
+    } else {
+      writePending();
+    }
+  }
+
+  /**
+   * Writes the whole register to a new snapshot and starts a new, empty journal. The records
+   * that have not been committed are contained in the snapshot, and are dropped.
+   *
+   * @throws IOException if the snapshot or the new journal can not be written.
+   */
+  public void compact() throws IOException {
+    long nextGeneration = generation + 1;
+    writeSnapshot(register.getSnapshot(), nextGeneration);
+    Path oldJournal = journalFile(generation);
+    if (channel != null) {
+      channel.close();
+    }
+    channel = FileChannel.open(journalFile(nextGeneration), StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    Files.deleteIfExists(oldJournal);
+    forceDirectory();
+    generation = nextGeneration;
+    pending.reset();
+    pendingRecords = 0;
+    journalRecords = 0;
+  }
+
+  /**
+   * Commits the pending records, forces the journal to disk and stops recording the register.
+   *
+   * @throws IOException if the journal can not be written.
+   */
+  @Override
+  public void close() throws IOException {
+    register.removeListener(this);
+    if (flusher != null) {
+      stopFlusher();
+    }
+    writePending();
+    channel.force(false);
+    channel.close();
+  }
+
+  /**
+   * Returns the number of records that were replayed from the journal when it was opened.
+   *
+   * @return the number of replayed records.
+   */
+  public int getRecoveredRecords() {
+    return recoveredRecords;
+  }
+
+  /**
+   * Returns the number of records in the current journal, committed or not.
+   *
+   * @return the number of records since the last compaction.
+   */
+  public int getJournalRecords() {
+    return journalRecords + pendingRecords;
+  }
+
+  /**
+   * Returns the generation of the current snapshot and journal, which grows by one on every
+   * compaction.
+   *
+   * @return the generation.
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Writes one record to {@link #recordOut}.
+   */
+  private interface RecordWriter {
+    void write() throws IOException;
+  }
+
+  /**
+   * Frames a record with its length and checksum and adds it to the pending group. A full group
+   * is committed.
+   *
+   * @param writer writes the content of the record.
+   */
+  private void append(RecordWriter writer) {
+    try {
+      record.reset();
+      writer.write();
+      checksum.reset();
+      byte[] bytes = record.toByteArray();
+      checksum.update(bytes);
+      pendingOut.writeInt(bytes.length);
+      pendingOut.writeInt((int) checksum.getValue());
+      pendingOut.write(bytes);
+      pendingRecords++;
+      if (pendingRecords >= groupSize) {
+        writePending();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("The register change could not be journaled", e);
+    }
+  }
+
+  /**
+   * Writes the pending group to the journal file.
+   *
+   * @throws IOException if the journal can not be written.
+   */
+  private void writePending() throws IOException {
+    if (pendingRecords == 0) {
+      return;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    if (syncPolicy == SyncPolicy.EVERY_COMMIT) {
+      channel.force(false);
+    } else {
+      unsynced = true;
+    }
+    journalRecords += pendingRecords;
+    pendingRecords = 0;
+    pending.reset();
+  }
+
+  /**
+   * Starts the daemon thread that forces the journal to disk once a second for the
+   * {@link SyncPolicy#EVERY_SECOND} policy.
+   */
+  private void startFlusher() {
+    flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "register-journal-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    flusher.scheduleWithFixedDelay(this::flush, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the flusher and waits for a flush that is running to finish. The flusher thread is
+   * never interrupted, since an interrupt during a force closes the journal channel.
+   *
+   * @throws IOException if the flusher does not stop, or the wait is interrupted.
+   */
+  private void stopFlusher() throws IOException {
+    flusher.shutdown();
+    try {
+      if (!flusher.awaitTermination(SYNC_INTERVAL_MILLIS * 10, TimeUnit.MILLISECONDS)) {
+        throw new IOException("The journal in " + directory + " could not be closed."
+            + " Since its flusher did not stop");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("The journal in " + directory + " could not be closed."
+          + " Since the wait for its flusher was interrupted");
+    }
+  }
+
+  /**
+   * Forces the journal to disk if anything was written since the last time. Runs on the flusher
+   * thread, so a failure is not thrown but retried on the next run.
+   */
+  private void flush() {
+    if (!unsynced) {
+      return;
+    }
+    unsynced = false;
+    try {
+      channel.force(false);
+    } catch (ClosedChannelException e) {
+      // A compaction replaced the journal, and has forced the snapshot holding its records.
+    } catch (IOException e) {
+      unsynced = true;
+    }
+  }
+
+  /**
+   * Loads the snapshot into the register, replays the journal of the same generation and
+   * deletes journals of other generations.
+   *
+   * @throws IOException if the files can not be read or do not match the register.
+   */
+  private void recover() throws IOException {
+    generation = readSnapshot();
+    Path journal = journalFile(generation);
+    long validLength = Files.exists(journal) ? replay(Files.readAllBytes(journal)) : 0;
+    try (DirectoryStream<Path> journals =
+             Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+      for (Path file : journals) {
+        if (!file.getFileName().equals(journal.getFileName())) {
+          Files.delete(file);
+        }
+      }
+    }
+    channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    channel.truncate(validLength);
+    channel.position(validLength);
+  }
+
+  /**
+   * Loads the snapshot file into the register.
+   *
+   * @return the generation of the snapshot.
+   * @throws IOException if the snapshot can not be read or is damaged.
+   */
+  private long readSnapshot() throws IOException {
+    byte[] bytes = Files.readAllBytes(directory.resolve(SNAPSHOT_FILE));
+    checksum.reset();
+    checksum.update(bytes, 0, Math.max(0, bytes.length - Long.BYTES));
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    if (bytes.length < Long.BYTES || in.readInt() != SNAPSHOT_MAGIC
+        || in.readInt() != FORMAT_VERSION
+        || ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong()
+        != checksum.getValue()) {
+      throw new IOException("The snapshot in " + directory + " is damaged");
+    }
+    long snapshotGeneration = in.readLong();
+    LocalTime time = LocalTime.ofSecondOfDay(in.readInt());
+    int count = in.readInt();
+    List<TrainDeparture> trainDepartures = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      trainDepartures.add(readTrainDeparture(in));
+    }
+    // Delayed departures may have a departure time before the snapshot time, so the clock is
+    // set after registering them.
+    if (register.registerTrainDepartures(trainDepartures) != count) {
+      throw new IOException("The snapshot in " + directory + " does not match the register");
+    }
+    register.updateTimeTrainDepartureRegister(time);
+    return snapshotGeneration;
+  }
+
+  /**
+   * Replays the records of a journal on the register, up to the first record that is cut off
+   * or fails its checksum.
+   *
+   * @param bytes the content of the journal file.
+   * @return the length of the journal up to the end of the last valid record.
+   * @throws IOException if a valid record can not be applied to the register.
+   */
+  private long replay(byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.remaining() >= 2 * Integer.BYTES) {
+      int start = buffer.position();
+      int length = buffer.getInt();
+      int expected = buffer.getInt();
+      if (length <= 0 || length > buffer.remaining()) {
+        buffer.position(start);
+        break;
+      }
+      checksum.reset();
+      checksum.update(bytes, buffer.position(), length);
+      if ((int) checksum.getValue() != expected) {
+        buffer.position(start);
+        break;
+      }
+      try {
+        apply(new DataInputStream(new ByteArrayInputStream(bytes, buffer.position(), length)));
+      } catch (IllegalArgumentException | NullPointerException e) {
+        throw new IOException("Journal record " + (recoveredRecords + 1) + " in " + directory
+            + " does not match the register", e);
+      }
+      buffer.position(buffer.position() + length);
+      recoveredRecords++;
+    }
+    journalRecords = recoveredRecords;
+    return buffer.position();
+  }
+
+  /**
+   * Applies one journal record to the register.
+   *
+   * @param in the content of the record.
+   * @throws IOException if the record can not be read.
+   */
+  private void apply(DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case REGISTER:
+        register.registerTrainDeparture(readTrainDeparture(in));
+        break;
+      case TRACK:
+        register.getTrainDepartureNumber(in.readUTF()).setTrack(in.readInt());
+        break;
+      case DELAY:
+        register.getTrainDepartureNumber(in.readUTF())
+            .setDelay(LocalTime.ofSecondOfDay(in.readInt()));
+        break;
+      case REMOVE:
+        register.removeTrainDepartureNumber(in.readUTF());
+        break;
+      case CLOCK:
+        register.updateTimeTrainDepartureRegister(LocalTime.ofSecondOfDay(in.readInt()));
+        break;
+      default:
+        throw new IOException("Unknown journal record type " + type);
+    }
+  }
+
+  /**
+   * Writes the register to a temporary file and moves it over the snapshot file, so the snapshot
+   * file is always either the old or the new snapshot. The move is forced to disk with the
+   * directory.
+   *
+   * @param snapshot           the register content to write.
+   * @param snapshotGeneration the generation of the new snapshot.
+   * @throws IOException if the snapshot can not be written.
+   */
+  private void writeSnapshot(TrainDepartureRegisterSnapshot snapshot, long snapshotGeneration)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(SNAPSHOT_MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    out.writeLong(snapshotGeneration);
+    out.writeInt(snapshot.getTime().toSecondOfDay());
+    out.writeInt(snapshot.size());
+    IOException[] failure = new IOException[1];
+    snapshot.forEachTrainDeparture(departure -> {
+      try {
+        writeTrainDeparture(out, departure.getDepartureTime(), departure.getLine(),
+            departure.getTrainNumber(), departure.getDestination(), departure.getTrack(),
+            departure.getDelay());
+      } catch (IOException e) {
+        failure[0] = e;
+      }
+    });
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+    checksum.reset();
+    checksum.update(bytes.toByteArray());
+    out.writeLong(checksum.getValue());
+    Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+    try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+      while (buffer.hasRemaining()) {
+        file.write(buffer);
+      }
+      file.force(true);
+    }
+    Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    forceDirectory();
+  }
+
+  /**
+   * Forces the directory entries to disk, so a snapshot that was moved into place or a journal
+   * that was created or deleted stays that way if the machine stops. Platforms that can not open
+   * a directory as a file, such as Windows, are skipped.
+   *
+   * @throws IOException if the directory can not be forced to disk.
+   */
+  private void forceDirectory() throws IOException {
+    FileChannel directoryChannel;
+    try {
+      directoryChannel = FileChannel.open(directory, StandardOpenOption.READ);
+    } catch (IOException e) {
+      return;
+    }
+    try (directoryChannel) {
+      directoryChannel.force(true);
+    }
+  }
+
+  private static void writeTrainDeparture(DataOutputStream out, LocalTime departureTime,
+                                          String line, String trainNumber, String destination,
+                                          int track, LocalTime delay) throws IOException {
+    out.writeInt(departureTime.toSecondOfDay());
+    out.writeUTF(line);
+    out.writeUTF(trainNumber);
+    out.writeUTF(destination);
+    out.writeInt(track);
+    out.writeInt(delay.toSecondOfDay());
+  }
+
+  private static TrainDeparture readTrainDeparture(DataInputStream in) throws IOException {
+    TrainDeparture trainDeparture = new TrainDeparture(LocalTime.ofSecondOfDay(in.readInt()),
+        in.readUTF(), in.readUTF(), in.readUTF());
+    int track = in.readInt();
+    if (track >= 0) {
+      trainDeparture.setTrack(track);
+    }
+    int delay = in.readInt();
+    if (delay > 0) {
+      trainDeparture.setDelay(LocalTime.ofSecondOfDay(delay));
+    }
+    return trainDeparture;
+  }
+
+  private Path journalFile(long journalGeneration) {
+    return directory.resolve(JOURNAL_PREFIX + journalGeneration + JOURNAL_SUFFIX);
+  }
+}
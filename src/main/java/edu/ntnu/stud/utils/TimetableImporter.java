@@ -0,0 +1,342 @@
+package edu.ntnu.stud.utils;
+
+import edu.ntnu.stud.models.DepartureRegister;
+import edu.ntnu.stud.models.TrainDeparture;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports a timetable of train departures from a comma or tab separated file into a register.
+ *
+ * <p>Each line holds the departure time as HH:mm, the line, the train number, the destination
+ * and optionally the track, separated by the delimiter. A first line that does not start with a
+ * digit is treated as a header and skipped. Empty lines are ignored.
+ *
+ * <p>Files are memory-mapped and parsed byte by byte, without regular expressions or splitting
+ * lines into arrays. Malformed lines are counted and reported by line number without throwing.
+ * The valid departures are handed to the register as one batch, so the register validates
+ * duplicates and builds its indexes once for the whole timetable.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class TimetableImporter {
+  private static final int MAX_REPORTED_LINES = 100;
+  private static final LocalTime[] MINUTES_OF_DAY = new LocalTime[24 * 60];
+
+  static {
+    for (int minute = 0; minute < MINUTES_OF_DAY.length; minute++) {
+      MINUTES_OF_DAY[minute] = LocalTime.of(minute / 60, minute % 60);
+    }
+  }
+
+  private final char delimiter;
+  private byte[] field = new byte[64];
+
+  /**
+   * The outcome of an import.
+   */
+  public static class Result {
+    private final int rowsRead;
+    private final int rowsRegistered;
+    private final int malformedRows;
+    private final List<Integer> malformedLines;
+
+    private Result(int rowsRead, int rowsRegistered, int malformedRows,
+                   List<Integer> malformedLines) {
+      this.rowsRead = rowsRead;
+      this.rowsRegistered = rowsRegistered;
+      this.malformedRows = malformedRows;
+      this.malformedLines = malformedLines;
+    }
+
+    /**
+     * Returns the number of non-empty data lines read.
+     *
+     * @return number of rows read.
+     */
+    public int getRowsRead() {
+      return rowsRead;
+    }
+
+    /**
+     * Returns the number of departures the register accepted.
+     *
+     * @return number of rows registered.
+     */
+    public int getRowsRegistered() {
+      return rowsRegistered;
+    }
+
+    /**
+     * Returns the number of lines that could not be parsed.
+     *
+     * @return number of malformed rows.
+     */
+    public int getMalformedRows() {
+      return malformedRows;
+    }
+
+    /**
+     * Returns the line numbers of the first malformed lines, counting from 1.
+     *
+     * @return line numbers of malformed lines.
+     */
+    public List<Integer> getMalformedLines() {
+      return malformedLines;
+    }
+
+    /**
+     * Returns the number of well-formed rows the register rejected, because the train number was
+     * taken or the train had already departed.
+     *
+     * @return number of rejected rows.
+     */
+    public int getRejectedRows() {
+      return rowsRead - malformedRows - rowsRegistered;
+    }
+
+    @Override
+    public String toString() {
+      return rowsRegistered + " of " + rowsRead + " train departures were imported. "
+          + malformedRows + " lines were malformed"
+          + (malformedLines.isEmpty() ? "" : " " + malformedLines)
+          + " and " + getRejectedRows() + " were rejected by the register.";
+    }
+  }
+
+  /**
+   * Creates an importer for files with the given delimiter.
+   *
+   * @param delimiter the character separating the fields, such as ',' or '\t'.
+   */
+  public TimetableImporter(char delimiter) {
+    this.delimiter = delimiter;
+  }
+
+  /**
+   * Creates an importer with the delimiter matching the file name: tab for ".tsv" files and
+   * comma for anything else.
+   *
+   * @param path the timetable file.
+   * @return an importer for the file.
+   */
+  public static TimetableImporter forFile(Path path) {
+    return new TimetableImporter(path.toString().endsWith(".tsv") ? '\t' : ',');
+  }
+
+  /**
+   * Imports a timetable file into the register. The file is memory-mapped.
+   *
+   * @param path     the timetable file.
+   * @param register the register to import into.
+   * @return the outcome of the import.
+   * @throws IOException if the file can not be read.
+   */
+  public Result importFile(Path path, DepartureRegister register) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return importBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+          register);
+    }
+  }
+
+  /**
+   * Imports a timetable from a stream into the register, for example a pipe on standard input.
+   *
+   * @param in       the stream to read.
+   * @param register the register to import into.
+   * @return the outcome of the import.
+   * @throws IOException if the stream can not be read.
+   */
+  public Result importStream(InputStream in, DepartureRegister register) throws IOException {
+    return importBuffer(ByteBuffer.wrap(in.readAllBytes()), register);
+  }
+
+  /**
+   * Parses every line of the buffer and registers the valid departures as one batch.
+   */
+  private Result importBuffer(ByteBuffer buffer, DepartureRegister register) {
+    ArrayList<TrainDeparture> trainDepartures = new ArrayList<>();
+    ArrayList<Integer> malformedLines = new ArrayList<>();
+    int malformedRows = 0;
+    int rowsRead = 0;
+    int lineNumber = 0;
+    int position = buffer.position();
+    int limit = buffer.limit();
+    while (position < limit) {
+      int end = position;
+      while (end < limit && buffer.get(end) != '\n') {
+        end++;
+      }
+      lineNumber++;
+      int lineEnd = end > position && buffer.get(end - 1) == '\r' ? end - 1 : end;
+      boolean header = lineNumber == 1 && lineEnd > position && !isDigit(buffer.get(position));
+      if (lineEnd > position && !header) {
+        rowsRead++;
+        TrainDeparture trainDeparture = parseLine(buffer, position, lineEnd);
+        if (trainDeparture == null) {
+          malformedRows++;
+          if (malformedLines.size() < MAX_REPORTED_LINES) {
+            malformedLines.add(lineNumber);
+          }
+        } else {
+          trainDepartures.add(trainDeparture);
+        }
+      }
+      position = end + 1;
+    }
+    int registered = register.registerTrainDepartures(trainDepartures);
+    return new Result(rowsRead, registered, malformedRows, malformedLines);
+  }
+
+  /**
+   * Parses one line into a train departure.
+   *
+   * @return the train departure, or null if the line is malformed.
+   */
+  private TrainDeparture parseLine(ByteBuffer buffer, int start, int end) {
+    int timeEnd = nextDelimiter(buffer, start, end);
+    LocalTime departureTime = parseTime(buffer, start, timeEnd);
+    if (departureTime == null || timeEnd == end) {
+      return null;
+    }
+    int lineEnd = nextDelimiter(buffer, timeEnd + 1, end);
+    String line = decode(buffer, timeEnd + 1, lineEnd);
+    if (lineEnd == end) {
+      return null;
+    }
+    int numberEnd = nextDelimiter(buffer, lineEnd + 1, end);
+    String trainNumber = decode(buffer, lineEnd + 1, numberEnd);
+    if (numberEnd == end) {
+      return null;
+    }
+    int destinationEnd = nextDelimiter(buffer, numberEnd + 1, end);
+    String destination = decode(buffer, numberEnd + 1, destinationEnd);
+    int track = -1;
+    if (destinationEnd < end) {
+      int trackEnd = nextDelimiter(buffer, destinationEnd + 1, end);
+      if (trackEnd != end) {
+        return null;
+      }
+      track = parseTrack(buffer, destinationEnd + 1, end);
+      if (track == -2) {
+        return null;
+      }
+    }
+    if (line.isBlank() || trainNumber.isBlank() || destination.isBlank()) {
+      return null;
+    }
+    TrainDeparture trainDeparture = new TrainDeparture(departureTime, line, trainNumber,
+        destination);
+    if (track >= 0) {
+      trainDeparture.setTrack(track);
+    }
+    return trainDeparture;
+  }
+
+  private int nextDelimiter(ByteBuffer buffer, int from, int end) {
+    int position = from;
+    while (position < end && buffer.get(position) != delimiter) {
+      position++;
+    }
+    return position;
+  }
+
+  /**
+   * Parses a time written as H:mm or HH:mm.
+   *
+   * @return the time, or null if the field is not a valid time.
+   */
+  private static LocalTime parseTime(ByteBuffer buffer, int start, int end) {
+    int from = skipSpaces(buffer, start, end);
+    int to = trimSpaces(buffer, from, end);
+    int length = to - from;
+    if (length != 4 && length != 5 || buffer.get(to - 3) != ':') {
+      return null;
+    }
+    int hours = 0;
+    for (int i = from; i < to - 3; i++) {
+      if (!isDigit(buffer.get(i))) {
+        return null;
+      }
+      hours = hours * 10 + buffer.get(i) - '0';
+    }
+    byte tens = buffer.get(to - 2);
+    byte ones = buffer.get(to - 1);
+    if (!isDigit(tens) || !isDigit(ones)) {
+      return null;
+    }
+    int minutes = (tens - '0') * 10 + ones - '0';
+    if (hours > 23 || minutes > 59) {
+      return null;
+    }
+    return MINUTES_OF_DAY[hours * 60 + minutes];
+  }
+
+  /**
+   * Parses the optional track field.
+   *
+   * @return the track, -1 if the field is empty, or -2 if it is not a number.
+   */
+  private static int parseTrack(ByteBuffer buffer, int start, int end) {
+    int from = skipSpaces(buffer, start, end);
+    int to = trimSpaces(buffer, from, end);
+    if (from == to) {
+      return -1;
+    }
+    if (to - from > 9) {
+      return -2;
+    }
+    int track = 0;
+    for (int i = from; i < to; i++) {
+      if (!isDigit(buffer.get(i))) {
+        return -2;
+      }
+      track = track * 10 + buffer.get(i) - '0';
+    }
+    return track;
+  }
+
+  /**
+   * Decodes a field as UTF-8 without leading and trailing spaces.
+   */
+  private String decode(ByteBuffer buffer, int start, int end) {
+    int from = skipSpaces(buffer, start, end);
+    int to = trimSpaces(buffer, from, end);
+    int length = to - from;
+    if (length > field.length) {
+      field = new byte[Math.max(length, field.length * 2)];
+    }
+    buffer.get(from, field, 0, length);
+    return new String(field, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private static int skipSpaces(ByteBuffer buffer, int start, int end) {
+    int position = start;
+    while (position < end && buffer.get(position) == ' ') {
+      position++;
+    }
+    return position;
+  }
+
+  private static int trimSpaces(ByteBuffer buffer, int start, int end) {
+    int position = end;
+    while (position > start && buffer.get(position - 1) == ' ') {
+      position--;
+    }
+    return position;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+}
@@ -8,11 +8,21 @@ import java.util.Scanner;
  * Utility class with methods that utilize the java.util.Scanner to receive user input from
  * the terminal. The class also contains often printed string for the user menu.
  *
+ * <p>All input is read through one Scanner shared by the whole application, so input that one
+ * Scanner has buffered is never lost to the next, for example when the input is piped in.
+ *
  * @author SigurSp
  * @version 3.0
  * @since 2.5
  */
 public class Utils {
+  /**
+   * The header printed above a table of train departures.
+   */
+  public static final String BOARD_HEADER = """
+      |--------------------Train departure found-------------------------|
+      |-Departure Time-|-Line-|-Number-|---Destination---|-Track | Delay-|""";
+  private static final Scanner IN = new Scanner(System.in);
 
   /**
    * Scans for user int input. If the input does not contain a valid int the user is asked to
@@ -21,12 +31,13 @@ public class Utils {
    * @return Int which the user has inputted.
    */
   public int inputInt() {
-    Scanner in = new Scanner(System.in);
-    while (!in.hasNextInt()) {
+    while (!IN.hasNextInt()) {
       System.out.println("Invalid number, try again");
-      in.next();
+      IN.next();
     }
-    return in.nextInt();
+    int value = IN.nextInt();
+    skipRestOfLine();
+    return value;
   }
 
   /**
@@ -36,12 +47,11 @@ public class Utils {
    * @return String that the user has inputted
    */
   public String inputString() {
-    Scanner in = new Scanner(System.in);
-    while (!in.hasNextLine()) {
+    while (!IN.hasNextLine()) {
       System.out.println("Invalid input");
-      in.nextLine();
+      IN.nextLine();
     }
-    return in.nextLine();
+    return IN.nextLine();
   }
 
   /**
@@ -53,17 +63,17 @@ public class Utils {
   public LocalTime inputLocalTime() {
     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
     System.out.println("Enter time HH:mm");
-    Scanner scanner = new Scanner(System.in);
-    String userInput = scanner.next();
+    String userInput = IN.next();
     LocalTime localTime = null;
     while (localTime == null) {
       try {
         localTime = LocalTime.parse(userInput, formatter);
       } catch (Exception e) {
         System.out.println("Invalid input format. Please enter time in HH:mm format.");
-        userInput = scanner.next();
+        userInput = IN.next();
       }
     }
+    skipRestOfLine();
     return localTime;
   }
 
@@ -76,22 +86,30 @@ public class Utils {
   public int showMenu() {
     int menuChoice = -1;
     printMenu();
-    Scanner sc = new Scanner(System.in);
-    if (sc.hasNextInt()) {
-      menuChoice = sc.nextInt();
+    if (IN.hasNextInt()) {
+      menuChoice = IN.nextInt();
     } else {
       System.out.println("You must enter a number, not text");
     }
+    skipRestOfLine();
     return menuChoice;
   }
 
+  /**
+   * Skips what is left of the current input line after a number or time, so the next call to
+   * {@link #inputString()} reads the next line.
+   */
+  private void skipRestOfLine() {
+    if (IN.hasNextLine()) {
+      IN.nextLine();
+    }
+  }
+
   /**
    * Prints the header for the different train departure categories.
    */
   public void printHeader() {
-    System.out.println("""
-        |--------------------Train departure found-------------------------|
-        |-Departure Time-|-Line-|-Number-|---Destination---|-Track | Delay-|""");
+    System.out.println(BOARD_HEADER);
   }
 
   /**
@@ -0,0 +1,306 @@
+package edu.ntnu.stud.views;
+
+import edu.ntnu.stud.models.DepartureRegister;
+import edu.ntnu.stud.models.RegistrationReport;
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureBatch;
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import edu.ntnu.stud.utils.Utils;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalTime;
+import java.util.ArrayList;
+
+/**
+ * Runs dispatcher commands from a command file or a pipe against a register, without the menu.
+ *
+ * <p>Every line holds one command. Words are separated by spaces, and the destination of "add" is
+ * the rest of the line, so it may contain spaces. Empty lines and lines starting with '#' are
+ * skipped.
+ * <pre>
+ * add 12:00 L1 23 Oslo S      registers a train departure
+ * track 23 4                  assigns track 4 to train 23
+ * delay 23 00:15              delays train 23 by 15 minutes
+ * remove 23                   removes train 23
+ * tick 12:30                  sets the time and removes departed trains
+ * list                        prints all train departures
+ * </pre>
+ *
+ * <p>A command that fails prints its line number and the reason, and the run continues. Lines
+ * are split by hand and times are looked up in a table instead of parsed, and all output goes
+ * through the given writer, which should be buffered, so a run is not slowed down by the
+ * terminal. Consecutive "add" commands to a {@link TrainDepartureRegister} are registered as one
+ * batch when the next command of another kind is reached, so a long list of departures is
+ * indexed and published once, and departures the register refuses are reported without
+ * exceptions.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class BatchCommandRunner {
+  private static final LocalTime[] MINUTES_OF_DAY = new LocalTime[24 * 60];
+
+  static {
+    for (int minute = 0; minute < MINUTES_OF_DAY.length; minute++) {
+      MINUTES_OF_DAY[minute] = LocalTime.of(minute / 60, minute % 60);
+    }
+  }
+
+  private final DepartureRegister register;
+  private final Writer out;
+  private final boolean batchAdds;
+  private final TrainDepartureBatch pendingAdds = new TrainDepartureBatch();
+  private final ArrayList<Integer> pendingAddLines = new ArrayList<>();
+  private int commandsRun;
+  private int commandsFailed;
+
+  /**
+   * Creates a runner for a register.
+   *
+   * @param register the register the commands change.
+   * @param out      where listings and errors are written.
+   */
+  public BatchCommandRunner(DepartureRegister register, Writer out) {
+    this.register = register;
+    this.out = out;
+    this.batchAdds = register instanceof TrainDepartureRegister;
+  }
+
+  /**
+   * Runs every command read from the reader and flushes the output.
+   *
+   * @param in the commands.
+   * @throws IOException if the commands can not be read or the output can not be written.
+   */
+  public void run(BufferedReader in) throws IOException {
+    int lineNumber = 0;
+    String line;
+    while ((line = in.readLine()) != null) {
+      lineNumber++;
+      int start = skipSpaces(line, 0);
+      if (start == line.length() || line.charAt(start) == '#') {
+        continue;
+      }
+      commandsRun++;
+      try {
+        runCommand(line, start, lineNumber);
+      } catch (IllegalArgumentException e) {
+        registerPendingAdds();
+        fail(lineNumber, e.getMessage());
+      }
+    }
+    registerPendingAdds();
+    out.flush();
+  }
+
+  /**
+   * Returns the number of commands that have been run, including the ones that failed.
+   *
+   * @return the number of commands.
+   */
+  public int getCommandsRun() {
+    return commandsRun;
+  }
+
+  /**
+   * Returns the number of commands that failed.
+   *
+   * @return the number of failed commands.
+   */
+  public int getCommandsFailed() {
+    return commandsFailed;
+  }
+
+  /**
+   * Runs one command.
+   *
+   * @param line       the line holding the command.
+   * @param start      the position of the command word.
+   * @param lineNumber the number of the line.
+   * @throws IOException              if the output can not be written.
+   * @throws IllegalArgumentException if the command is unknown, malformed or refused by the
+   *                                  register.
+   */
+  private void runCommand(String line, int start, int lineNumber)
+      throws IOException, IllegalArgumentException {
+    int end = nextSpace(line, start);
+    String command = line.substring(start, end);
+    ArrayList<String> words = new ArrayList<>(4);
+    if (!command.equals("add")) {
+      registerPendingAdds();
+    }
+    switch (command) {
+      case "add" -> {
+        int position = end;
+        for (int i = 0; i < 3; i++) {
+          position = skipSpaces(line, position);
+          int wordEnd = nextSpace(line, position);
+          words.add(line.substring(position, wordEnd));
+          position = wordEnd;
+        }
+        String destination = line.substring(skipSpaces(line, position)).stripTrailing();
+        if (words.get(2).isEmpty() || destination.isEmpty()) {
+          throw new IllegalArgumentException("Usage: add HH:mm line number destination");
+        }
+        LocalTime departureTime = parseTime(words.get(0));
+        if (batchAdds) {
+          pendingAdds.add(departureTime, words.get(1), words.get(2), destination);
+          pendingAddLines.add(lineNumber);
+        } else {
+          register.registerTrainDeparture(
+              new TrainDeparture(departureTime, words.get(1), words.get(2), destination));
+        }
+      }
+      case "track" -> {
+        split(line, end, words, 2, "Usage: track number track");
+        trainDeparture(words.get(0)).setTrack(parseTrack(words.get(1)));
+      }
+      case "delay" -> {
+        split(line, end, words, 2, "Usage: delay number HH:mm");
+        trainDeparture(words.get(0)).setDelay(parseTime(words.get(1)));
+      }
+      case "remove" -> {
+        split(line, end, words, 1, "Usage: remove number");
+        trainDeparture(words.get(0));
+        register.removeTrainDepartureNumber(words.get(0));
+      }
+      case "tick" -> {
+        split(line, end, words, 1, "Usage: tick HH:mm");
+        register.updateTimeTrainDepartureRegister(parseTime(words.get(0)));
+      }
+      case "list" -> list();
+      default -> throw new IllegalArgumentException("Unknown command " + command);
+    }
+  }
+
+  /**
+   * Registers the pending "add" commands as one batch and reports the departures the register
+   * refused.
+   *
+   * @throws IOException if the output can not be written.
+   */
+  private void registerPendingAdds() throws IOException {
+    if (pendingAdds.isEmpty()) {
+      return;
+    }
+    RegistrationReport report =
+        ((TrainDepartureRegister) register).registerTrainDepartures(pendingAdds);
+    for (int row : report.getRejectedRows()) {
+      fail(pendingAddLines.get(row), "The train could not be registered. "
+          + report.getCode(row).getMessage());
+    }
+    pendingAdds.clear();
+    pendingAddLines.clear();
+  }
+
+  /**
+   * Counts a failed command and prints its line number and the reason.
+   *
+   * @throws IOException if the output can not be written.
+   */
+  private void fail(int lineNumber, String reason) throws IOException {
+    commandsFailed++;
+    out.write("Line " + lineNumber + ": " + reason + System.lineSeparator());
+  }
+
+  /**
+   * Prints the time and all train departures in departure order.
+   *
+   * @throws IOException if the output can not be written.
+   */
+  private void list() throws IOException {
+    ArrayList<TrainDeparture> departures = register.getSortedTrainDepartures();
+    out.write("Time now: " + register.getTime() + System.lineSeparator());
+    out.write(Utils.BOARD_HEADER + System.lineSeparator());
+    if (departures != null) {
+      for (TrainDeparture trainDeparture : departures) {
+        out.write(trainDeparture.printTrainDeparture());
+        out.write(System.lineSeparator());
+      }
+    }
+  }
+
+  private TrainDeparture trainDeparture(String trainNumber) throws IllegalArgumentException {
+    TrainDeparture trainDeparture = register.getTrainDepartureNumber(trainNumber);
+    if (trainDeparture == null) {
+      throw new IllegalArgumentException("No train departure with number " + trainNumber);
+    }
+    return trainDeparture;
+  }
+
+  /**
+   * Splits the arguments after the command into words, which must be exactly the expected
+   * number.
+   */
+  private static void split(String line, int from, ArrayList<String> words, int expected,
+                            String usage) throws IllegalArgumentException {
+    int position = skipSpaces(line, from);
+    while (position < line.length()) {
+      int end = nextSpace(line, position);
+      words.add(line.substring(position, end));
+      position = skipSpaces(line, end);
+    }
+    if (words.size() != expected) {
+      throw new IllegalArgumentException(usage);
+    }
+  }
+
+  /**
+   * Parses a time written as H:mm or HH:mm.
+   */
+  private static LocalTime parseTime(String time) throws IllegalArgumentException {
+    int colon = time.length() - 3;
+    if (colon < 1 || colon > 2 || time.charAt(colon) != ':') {
+      throw new IllegalArgumentException("Invalid time " + time + ", use HH:mm");
+    }
+    int hours = digits(time, 0, colon);
+    int minutes = digits(time, colon + 1, time.length());
+    if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+      throw new IllegalArgumentException("Invalid time " + time + ", use HH:mm");
+    }
+    return MINUTES_OF_DAY[hours * 60 + minutes];
+  }
+
+  private static int parseTrack(String track) throws IllegalArgumentException {
+    int value = track.length() > 9 ? -1 : digits(track, 0, track.length());
+    if (value < 0) {
+      throw new IllegalArgumentException("Invalid track " + track);
+    }
+    return value;
+  }
+
+  /**
+   * Reads the decimal number between two positions.
+   *
+   * @return the number, or -1 if there is anything but digits.
+   */
+  private static int digits(String value, int from, int to) {
+    int number = 0;
+    for (int i = from; i < to; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      number = number * 10 + c - '0';
+    }
+    return from < to ? number : -1;
+  }
+
+  private static int skipSpaces(String line, int from) {
+    int position = from;
+    while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+      position++;
+    }
+    return position;
+  }
+
+  private static int nextSpace(String line, int from) {
+    int position = from;
+    while (position < line.length() && !Character.isWhitespace(line.charAt(position))) {
+      position++;
+    }
+    return position;
+  }
+}
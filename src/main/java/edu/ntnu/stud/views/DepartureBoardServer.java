@@ -0,0 +1,282 @@
+package edu.ntnu.stud.views;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.ntnu.stud.models.TrainDepartureRegisterSnapshot;
+import edu.ntnu.stud.models.TrainDepartureSnapshot;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Serves the departure board as JSON over HTTP, for the screens at the station.
+ *
+ * <ul>
+ *   <li>GET /departures returns every departure in departure order.</li>
+ *   <li>GET /departures?from=HH:mm&amp;to=HH:mm returns the departures that actually depart
+ *   in a time window, counting their delay.</li>
+ *   <li>GET /departures?destination=name returns the departures going to a destination.</li>
+ *   <li>GET /departures/number returns one departure, or 404 if there is none.</li>
+ * </ul>
+ *
+ * <p>Every request reads the latest published snapshot of the register, so the screens never
+ * lock the register or wait for the dispatcher. The version of the snapshot is sent as the ETag
+ * and in an X-Register-Version header, and a request whose If-None-Match matches the current
+ * version gets 304 Not Modified without a body. Paths other than the ones above get 404, whatever
+ * the If-None-Match. The whole board is serialized once per version
+ * and the bytes are shared between requests. Each request runs on its own virtual thread, so
+ * thousands of screens polling at once only cost memory.
+ *
+ * @author SigurSp
+ * @version 3.1
+ * @since 3.1
+ */
+public class DepartureBoardServer implements AutoCloseable {
+  private static final String PATH = "/departures";
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Supplier<TrainDepartureRegisterSnapshot> snapshots;
+  private volatile CachedBoard board = new CachedBoard(-1, new byte[0]);
+
+  /**
+   * The serialized board of one snapshot version.
+   */
+  private static final class CachedBoard {
+    private final long version;
+    private final byte[] body;
+
+    private CachedBoard(long version, byte[] body) {
+      this.version = version;
+      this.body = body;
+    }
+  }
+
+  private DepartureBoardServer(HttpServer server,
+                               Supplier<TrainDepartureRegisterSnapshot> snapshots) {
+    this.server = server;
+    this.snapshots = snapshots;
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext(PATH, this::handle);
+  }
+
+  /**
+   * Starts a server on the given address.
+   *
+   * @param address   the address to listen on. Port 0 picks a free port.
+   * @param snapshots returns the latest snapshot of the register, for example
+   *                  {@code register::getSnapshot}.
+   * @return the started server.
+   * @throws IOException if the server can not listen on the address.
+   */
+  public static DepartureBoardServer start(InetSocketAddress address,
+                                           Supplier<TrainDepartureRegisterSnapshot> snapshots)
+      throws IOException {
+    DepartureBoardServer boardServer =
+        new DepartureBoardServer(HttpServer.create(address, 0), snapshots);
+    boardServer.server.start();
+    return boardServer;
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops the server. Requests that are being answered are given a second to finish.
+   */
+  @Override
+  public void close() {
+    server.stop(1);
+    executor.close();
+  }
+
+  /**
+   * Answers one request.
+   *
+   * @param exchange the request and its response.
+   * @throws IOException if the response can not be sent.
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String method = exchange.getRequestMethod();
+      if (!method.equals("GET") && !method.equals("HEAD")) {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        send(exchange, 405, null, error("Only GET and HEAD are supported"));
+        return;
+      }
+      String path = exchange.getRequestURI().getRawPath();
+      if (path.length() > PATH.length() && path.charAt(PATH.length()) != '/') {
+        send(exchange, 404, null, error("Not found"));
+        return;
+      }
+      TrainDepartureRegisterSnapshot snapshot = snapshots.get();
+      String etag = "\"" + snapshot.getVersion() + "\"";
+      exchange.getResponseHeaders().set("ETag", etag);
+      exchange.getResponseHeaders().set("X-Register-Version",
+          Long.toString(snapshot.getVersion()));
+      exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+      if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        exchange.sendResponseHeaders(304, -1);
+        return;
+      }
+      try {
+        answer(exchange, snapshot);
+      } catch (IllegalArgumentException e) {
+        send(exchange, 400, null, error(e.getMessage()));
+      }
+    }
+  }
+
+  /**
+   * Sends the part of the snapshot the request asks for.
+   *
+   * @throws IOException              if the response can not be sent.
+   * @throws IllegalArgumentException if a query parameter is not valid.
+   */
+  private void answer(HttpExchange exchange, TrainDepartureRegisterSnapshot snapshot)
+      throws IOException, IllegalArgumentException {
+    String path = exchange.getRequestURI().getRawPath();
+    if (path.length() > PATH.length() + 1) {
+      String trainNumber = URLDecoder.decode(path.substring(PATH.length() + 1),
+          StandardCharsets.UTF_8);
+      TrainDepartureSnapshot departure = snapshot.getTrainDepartureNumber(trainNumber);
+      if (departure == null) {
+        send(exchange, 404, null, error("No train departure with number " + trainNumber));
+      } else {
+        StringBuilder json = new StringBuilder(160);
+        appendDeparture(json, departure);
+        send(exchange, 200, null, json.toString());
+      }
+      return;
+    }
+    HashMap<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    if (query.containsKey("destination")) {
+      send(exchange, 200, null, board(snapshot,
+          snapshot.getTrainDeparturesDestination(query.get("destination"))));
+    } else if (query.containsKey("from") || query.containsKey("to")) {
+      LocalTime from = parseTime(query.getOrDefault("from", "00:00"));
+      LocalTime to = parseTime(query.getOrDefault("to", "23:59"));
+      send(exchange, 200, null, board(snapshot, snapshot.getTrainDeparturesBetween(from, to)));
+    } else {
+      send(exchange, 200, fullBoard(snapshot), null);
+    }
+  }
+
+  /**
+   * Returns the serialized board of the snapshot, serializing it only if the version changed.
+   */
+  private byte[] fullBoard(TrainDepartureRegisterSnapshot snapshot) {
+    CachedBoard cached = board;
+    if (cached.version != snapshot.getVersion()) {
+      cached = new CachedBoard(snapshot.getVersion(),
+          board(snapshot, snapshot.getSortedTrainDepartures()).getBytes(StandardCharsets.UTF_8));
+      if (cached.version > board.version) {
+        board = cached;
+      }
+    }
+    return cached.body;
+  }
+
+  /**
+   * Sends a JSON response, given either as bytes or as a string.
+   */
+  private static void send(HttpExchange exchange, int status, byte[] bytes, String json)
+      throws IOException {
+    byte[] body = bytes != null ? bytes : json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    if (exchange.getRequestMethod().equals("HEAD")) {
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static String board(TrainDepartureRegisterSnapshot snapshot,
+                              List<TrainDepartureSnapshot> departures) {
+    StringBuilder json = new StringBuilder(64 + departures.size() * 128);
+    json.append("{\"version\":").append(snapshot.getVersion())
+        .append(",\"time\":\"").append(snapshot.getTime()).append("\",\"departures\":[");
+    for (int i = 0; i < departures.size(); i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      appendDeparture(json, departures.get(i));
+    }
+    return json.append("]}").toString();
+  }
+
+  private static void appendDeparture(StringBuilder json, TrainDepartureSnapshot departure) {
+    json.append("{\"departureTime\":\"").append(departure.getDepartureTime())
+        .append("\",\"line\":");
+    appendString(json, departure.getLine());
+    json.append(",\"trainNumber\":");
+    appendString(json, departure.getTrainNumber());
+    json.append(",\"destination\":");
+    appendString(json, departure.getDestination());
+    json.append(",\"track\":").append(departure.getTrack())
+        .append(",\"delay\":\"").append(departure.getDelay()).append("\"}");
+  }
+
+  private static void appendString(StringBuilder json, String value) {
+    json.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (c < 0x20) {
+        json.append(String.format("\\u%04x", (int) c));
+      } else {
+        json.append(c);
+      }
+    }
+    json.append('"');
+  }
+
+  private static String error(String message) {
+    StringBuilder json = new StringBuilder("{\"error\":");
+    appendString(json, message);
+    return json.append('}').toString();
+  }
+
+  private static HashMap<String, String> parseQuery(String rawQuery) {
+    HashMap<String, String> query = new HashMap<>();
+    if (rawQuery == null) {
+      return query;
+    }
+    for (String parameter : rawQuery.split("&")) {
+      int equals = parameter.indexOf('=');
+      if (equals > 0) {
+        query.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+            URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return query;
+  }
+
+  private static LocalTime parseTime(String time) throws IllegalArgumentException {
+    try {
+      return LocalTime.parse(time);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid time " + time + ", use HH:mm");
+    }
+  }
+}
@@ -1,10 +1,25 @@
 package edu.ntnu.stud.views;
 
+import edu.ntnu.stud.models.DepartureRegister;
+import edu.ntnu.stud.models.MappedTrainDepartureRegister;
 import edu.ntnu.stud.models.TrainDeparture;
 import edu.ntnu.stud.models.TrainDepartureRegister;
+import edu.ntnu.stud.monitoring.BoardRenderEvent;
+import edu.ntnu.stud.utils.RegisterJournal;
+import edu.ntnu.stud.utils.TimetableImporter;
 import edu.ntnu.stud.utils.Utils;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The TrainDepartureRegister class manages a collection of train departures,
@@ -30,7 +45,11 @@ public class UserInterface {
   private static final int UPDATE_TIME_OF_DAY = 8;
   private static final int EXIT = 0;
   private final Utils utils = new Utils();
-  private TrainDepartureRegister trainDepartureRegister;
+  private final StringBuilder screen = new StringBuilder();
+  private DepartureRegister trainDepartureRegister;
+  private RegisterJournal journal;
+  private MappedTrainDepartureRegister store;
+  private DepartureBoardServer boardServer;
 
   /**
    * Initializes the application by creating a TrainDepartureRegister.
@@ -38,8 +57,32 @@ public class UserInterface {
   public void init() {
     //Her legger du inn all kode som er nødvendig for å initialisere applikasjonen ved
     //oppstart, som f.eks. å opprette instansen av register-klassen.
-    this.trainDepartureRegister = new TrainDepartureRegister();
+    TrainDepartureRegister register = createSampleRegister();
+    publishMetrics(register);
+    this.trainDepartureRegister = register;
+  }
 
+  /**
+   * Publishes the latency metrics of the register through JMX, where they can be turned on and
+   * read with a client such as JConsole.
+   *
+   * @param register the register in use.
+   */
+  private void publishMetrics(TrainDepartureRegister register) {
+    try {
+      register.getMetrics().publish("dispatcher");
+    } catch (IllegalArgumentException e) {
+      System.out.println("The register metrics could not be published: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Creates a register with a few sample train departures.
+   *
+   * @return the register.
+   */
+  private TrainDepartureRegister createSampleRegister() {
+    TrainDepartureRegister trainDepartureRegister = new TrainDepartureRegister();
     try {
       trainDepartureRegister.registerTrainDeparture(
           new TrainDeparture(LocalTime.of(12, 0), "L1", "23", "Trondheim"));
@@ -54,6 +97,135 @@ public class UserInterface {
           + "for the following reason: \n"
           + e.getMessage());
     }
+    return trainDepartureRegister;
+  }
+
+  /**
+   * Keeps the register in a journal in the given directory, so it survives a restart. If the
+   * directory already holds a journal, the register is recovered from it. Otherwise the journal
+   * starts with the sample train departures.
+   *
+   * @param directory the directory holding the journal.
+   */
+  public void openJournal(Path directory) {
+    try {
+      TrainDepartureRegister register = RegisterJournal.exists(directory)
+          ? new TrainDepartureRegister() : createSampleRegister();
+      journal = RegisterJournal.open(directory, register);
+      publishMetrics(register);
+      trainDepartureRegister = register;
+      System.out.println("The journal in " + directory + " is open. "
+          + journal.getRecoveredRecords() + " changes were recovered.");
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("The journal in " + directory + " could not be opened: "
+          + e.getMessage());
+    }
+  }
+
+  /**
+   * Keeps the register in memory-mapped files in the given directory instead of on the heap. If
+   * the directory already holds a register, it is used as it is. Otherwise the sample train
+   * departures are copied into it.
+   *
+   * @param directory the directory holding the register files.
+   */
+  public void openStore(Path directory) {
+    try {
+      store = MappedTrainDepartureRegister.open(directory);
+      if (store.size() == 0) {
+        createSampleRegister().getSortedTrainDepartures().forEach(trainDeparture ->
+            store.registerTrainDeparture(new TrainDeparture(trainDeparture.getDepartureTime(),
+                trainDeparture.getLine(), trainDeparture.getTrainNumber(),
+                trainDeparture.getDestination())));
+      }
+      trainDepartureRegister = store;
+      System.out.println("The register in " + directory + " is open with " + store.size()
+          + " train departures.");
+    } catch (IOException e) {
+      System.out.println("The register in " + directory + " could not be opened: "
+          + e.getMessage());
+    }
+  }
+
+  /**
+   * Serves the departure board over HTTP on the given port, see {@link DepartureBoardServer}.
+   * The board is read from the snapshots of the register, so it is not available for a register
+   * kept in memory-mapped files.
+   *
+   * @param port the port to listen on, from 0 to 65535. Port 0 picks a free port.
+   */
+  public void startBoardServer(int port) {
+    if (!(trainDepartureRegister instanceof TrainDepartureRegister register)) {
+      System.out.println("The departure board can not be served from a memory-mapped register.");
+      return;
+    }
+    if (port < 0 || port > 65535) {
+      System.out.println("The departure board could not be served."
+          + " Since " + port + " is not a port number");
+      return;
+    }
+    try {
+      boardServer = DepartureBoardServer.start(new InetSocketAddress(port), register::getSnapshot);
+      System.out.println("The departure board is served on http://localhost:"
+          + boardServer.getPort() + "/departures");
+    } catch (IOException e) {
+      System.out.println("The departure board could not be served on port " + port + ": "
+          + e.getMessage());
+    }
+  }
+
+  /**
+   * Commits the changes made by the last menu choice to the journal, if there is one.
+   */
+  private void commitJournal() {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.commit();
+    } catch (IOException e) {
+      System.out.println("The changes could not be written to the journal: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Imports a timetable file into the register and prints how many departures were imported.
+   *
+   * @param path the timetable file, tab separated if the name ends with .tsv, else comma separated.
+   */
+  public void importTimetable(Path path) {
+    try {
+      System.out.println(TimetableImporter.forFile(path).importFile(path, trainDepartureRegister));
+    } catch (IOException e) {
+      System.out.println("The timetable " + path + " could not be read: " + e.getMessage());
+    }
+    commitJournal();
+  }
+
+  /**
+   * Runs the commands in a command file against the register instead of showing the menu, and
+   * closes the journal and the memory-mapped register afterwards. See {@link BatchCommandRunner}
+   * for the commands.
+   *
+   * @param path the command file, or "-" to read the commands from standard input.
+   */
+  public void runBatch(String path) {
+    BufferedWriter out = new BufferedWriter(
+        new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+    BatchCommandRunner runner = new BatchCommandRunner(trainDepartureRegister, out);
+    try (BufferedReader in = path.equals("-")
+        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+        : Files.newBufferedReader(Path.of(path), StandardCharsets.UTF_8)) {
+      runner.run(in);
+    } catch (IOException e) {
+      System.out.println("The commands in " + path + " could not be run: " + e.getMessage());
+    }
+    System.out.println(runner.getCommandsRun() + " commands were run, "
+        + runner.getCommandsFailed() + " of them failed.");
+    commitJournal();
+    closeBoardServer();
+    closeJournal();
+    closeStore();
   }
 
   /**
@@ -106,6 +278,47 @@ public class UserInterface {
           finished = true;
           break;
       }
+      commitJournal();
+    }
+    closeBoardServer();
+    closeJournal();
+    closeStore();
+  }
+
+  /**
+   * Stops serving the departure board, if it is served.
+   */
+  private void closeBoardServer() {
+    if (boardServer != null) {
+      boardServer.close();
+    }
+  }
+
+  /**
+   * Closes the memory-mapped register, if there is one, so every change is on disk.
+   */
+  private void closeStore() {
+    if (store == null) {
+      return;
+    }
+    try {
+      store.close();
+    } catch (IOException e) {
+      System.out.println("The register could not be closed: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Closes the journal, if there is one, so every change is on disk.
+   */
+  private void closeJournal() {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.close();
+    } catch (IOException e) {
+      System.out.println("The journal could not be closed: " + e.getMessage());
     }
   }
 
@@ -217,13 +430,34 @@ public class UserInterface {
     }
     System.out.println("What destination do you want to check: ");
     String trainDestination = utils.inputString();
-    if (!trainDepartureRegister.checkTrainDestination(trainDestination)) {
-      System.out.println("|--------------No trains going to this destination-----------------|");
-    } else {
+    if (trainDepartureRegister.checkTrainDestination(trainDestination)) {
       utils.printHeader();
       printListTrainDeparture(
           trainDepartureRegister.getTrainDeparturesDestination(trainDestination));
+    } else if (trainDepartureRegister instanceof TrainDepartureRegister register) {
+      searchMatchingDestinations(register, trainDestination);
+    } else {
+      System.out.println("|--------------No trains going to this destination-----------------|");
+    }
+  }
+
+  /**
+   * Searches the destinations that match what the user typed once, and prints the departures
+   * going to them. If no destination matches it gets printed to the console.
+   *
+   * @param register the register to search.
+   * @param query    what the user typed.
+   */
+  private void searchMatchingDestinations(TrainDepartureRegister register, String query) {
+    List<String> destinations = register.searchDestinations(query);
+    if (destinations.isEmpty()) {
+      System.out.println("|--------------No trains going to this destination-----------------|");
+      return;
     }
+    System.out.println("Destinations matching \"" + query + "\": "
+        + String.join(", ", destinations));
+    utils.printHeader();
+    printListTrainDeparture(register.getTrainDeparturesDestinations(destinations));
   }
 
   /**
@@ -293,13 +527,21 @@ public class UserInterface {
   }
 
   /**
-   * Prints out a list of train departures by using the method.
-   * {@link #printTrainDeparture(TrainDeparture)}
+   * Prints out a list of train departures, using the cached row of each departure. The rows are
+   * collected in one reused buffer and written to the terminal at once.
    *
    * @param trainDeparture Arraylist of train departure to be printed.
    */
   public void printListTrainDeparture(ArrayList<TrainDeparture> trainDeparture) {
-    trainDeparture.forEach(this::printTrainDeparture);
+    BoardRenderEvent event = new BoardRenderEvent();
+    event.begin();
+    screen.setLength(0);
+    for (TrainDeparture train : trainDeparture) {
+      screen.append(train.printTrainDeparture()).append(System.lineSeparator());
+    }
+    System.out.print(screen);
+    System.out.flush();
+    event.finish(trainDeparture.size());
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TestColumnarTrainDepartureRegister {
+
+  ColumnarTrainDepartureRegister trainDepartureRegister;
+
+  /**
+   * Makes an instance of ColumnarTrainDepartureRegister with three train departures before each
+   * test.
+   */
+  @BeforeEach
+  public void setup() {
+    trainDepartureRegister = new ColumnarTrainDepartureRegister();
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "01", "Trondheim"));
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(11, 0), "R3", "02", "Oslo S"));
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(13, 0), "L1", "03", "Trondheim"));
+  }
+
+  private static List<String> trainNumbers(List<TrainDeparture> departures) {
+    return departures.stream().map(TrainDeparture::getTrainNumber).toList();
+  }
+
+  @Nested
+  @DisplayName("Negative tests for ColumnarTrainDepartureRegister")
+  public class methodThrowsExceptions {
+
+    @Test
+    @DisplayName("ColumnarTrainDepartureRegister.registerTrainDeparture() throws Ill.Arg.Exc. on "
+        + "duplicate trainNumber")
+    void registerTrainDepartureThrowsOnDuplicateTrainNumber() {
+      try {
+        trainDepartureRegister.registerTrainDeparture(
+            new TrainDeparture(LocalTime.of(10, 0), "L1", "01", "Trondheim"));
+        fail("The method registerTrainDepartureThrowsOnDuplicateTrainNumber did not throw on "
+            + "duplicate trainNumber");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The train could not be registered. Since the register already contains a "
+            + "train with matching number", e.getMessage());
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Positive tests for ColumnarTrainDepartureRegister")
+  public class methodsDoesNotThrowException {
+
+    @Test
+    @DisplayName("The register lists, looks up and searches departures in departure order")
+    void registerReadsInOrder() {
+      assertEquals(List.of("02", "01", "03"),
+          trainNumbers(trainDepartureRegister.getSortedTrainDepartures()));
+      assertEquals(List.of("01", "03"),
+          trainNumbers(trainDepartureRegister.getTrainDeparturesDestination("Trondheim")));
+      assertEquals("R3", trainDepartureRegister.getTrainDepartureNumber("02").getLine());
+      assertEquals("The register contains the following train numbers: \n[01, 02, 03]",
+          trainDepartureRegister.getTrainNumbers());
+    }
+
+    @Test
+    @DisplayName("Track and delay set on a view are written to the columns")
+    void viewWritesThrough() {
+      trainDepartureRegister.getTrainDepartureNumber("01").setTrack(3);
+      trainDepartureRegister.getTrainDepartureNumber("01").setDelay(LocalTime.of(1, 0));
+      TrainDeparture train = trainDepartureRegister.getTrainDepartureNumber("01");
+      assertEquals(3, train.getTrack());
+      assertEquals(LocalTime.of(1, 0), train.getDelay());
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(12, 30));
+      assertTrue(trainDepartureRegister.checkTrainNumber("01"));
+      assertFalse(trainDepartureRegister.checkTrainNumber("02"));
+      assertFalse(trainDepartureRegister.checkTrainDestination("Oslo S"));
+    }
+
+    @Test
+    @DisplayName("A view of a removed departure does not write to a reused row")
+    void staleViewDoesNotWrite() {
+      TrainDeparture stale = trainDepartureRegister.getTrainDepartureNumber("03");
+      trainDepartureRegister.removeTrainDepartureNumber("03");
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(14, 0), "L2", "04", "Bodø"));
+      stale.setTrack(9);
+      assertEquals(-1, trainDepartureRegister.getTrainDepartureNumber("04").getTrack());
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(23, 0));
+      assertNull(trainDepartureRegister.getSortedTrainDepartures());
+      assertEquals(0, trainDepartureRegister.size());
+    }
+
+    @Test
+    @DisplayName("Removed and departed trains and their views can be registered again")
+    void removedTrainsCanBeRegisteredAgain() {
+      TrainDeparture view = trainDepartureRegister.getTrainDepartureNumber("01");
+      trainDepartureRegister.removeTrainDepartureNumber("01");
+      trainDepartureRegister.registerTrainDeparture(view);
+      assertEquals(3, trainDepartureRegister.size());
+
+      TrainDeparture departed = new TrainDeparture(LocalTime.of(11, 30), "L1", "05", "Bodø");
+      trainDepartureRegister.registerTrainDeparture(departed);
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(11, 45));
+      TrainDepartureRegister other = new TrainDepartureRegister();
+      other.registerTrainDeparture(departed);
+      assertTrue(other.checkTrainNumber("05"));
+      assertEquals(List.of("01", "03"),
+          trainNumbers(trainDepartureRegister.getSortedTrainDepartures()));
+    }
+
+    @Test
+    @DisplayName("A batch is merged into the order and departures that can not be registered "
+        + "are skipped")
+    void batchIsMergedIntoOrder() {
+      int registered = trainDepartureRegister.registerTrainDepartures(List.of(
+          new TrainDeparture(LocalTime.of(12, 30), "L1", "06", "Bodø"),
+          new TrainDeparture(LocalTime.of(10, 0), "L1", "04", "Bodø"),
+          new TrainDeparture(LocalTime.of(12, 0), "L1", "00", "Bodø"),
+          new TrainDeparture(LocalTime.of(9, 0), "L1", "01", "Bodø")));
+      assertEquals(3, registered);
+      assertEquals(List.of("04", "02", "00", "01", "06", "03"),
+          trainNumbers(trainDepartureRegister.getSortedTrainDepartures()));
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(12, 0));
+      assertEquals(List.of("06", "03"),
+          trainNumbers(trainDepartureRegister.getSortedTrainDepartures()));
+      assertEquals(List.of("06"),
+          trainNumbers(trainDepartureRegister.getTrainDeparturesDestination("Bodø")));
+    }
+  }
+}
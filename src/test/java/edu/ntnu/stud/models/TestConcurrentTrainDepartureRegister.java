@@ -0,0 +1,222 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TestConcurrentTrainDepartureRegister {
+  private static final int THREADS = 8;
+  private static final int TRAINS = 2_000;
+
+  ConcurrentTrainDepartureRegister trainDepartureRegister;
+  ExecutorService executor;
+
+  /**
+   * Makes an instance of ConcurrentTrainDepartureRegister with one train departure and a thread
+   * pool before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    trainDepartureRegister = new ConcurrentTrainDepartureRegister();
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "01", "Trondheim"));
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @AfterEach
+  public void tearDown() throws InterruptedException {
+    executor.shutdownNow();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Runs the task on every thread at the same time and returns the summed results.
+   */
+  private int runOnAllThreads(Callable<Integer> task) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      futures.add(executor.submit(() -> {
+        start.await();
+        return task.call();
+      }));
+    }
+    start.countDown();
+    int sum = 0;
+    for (Future<Integer> future : futures) {
+      sum += future.get(30, TimeUnit.SECONDS);
+    }
+    return sum;
+  }
+
+  private static LocalTime departureTime(int i) {
+    return LocalTime.of(13 + (i % 10), i % 60);
+  }
+
+  @Nested
+  @DisplayName("Negative tests for ConcurrentTrainDepartureRegister")
+  public class methodThrowsExceptions {
+
+    @Test
+    @DisplayName("ConcurrentTrainDepartureRegister.registerTrainDeparture() throws Ill.Arg.Exc. "
+        + "on duplicate trainNumber")
+    void registerTrainDepartureThrowsOnDuplicateTrainNumber() {
+      try {
+        trainDepartureRegister.registerTrainDeparture(
+            new TrainDeparture(LocalTime.of(10, 0), "L1", "01", "Trondheim"));
+        fail("The method registerTrainDepartureThrowsOnDuplicateTrainNumber did not throw on "
+            + "duplicate trainNumber");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The train could not be registered. Since the register already contains a "
+            + "train with matching number", e.getMessage());
+      }
+    }
+
+    @Test
+    @DisplayName("ConcurrentTrainDepartureRegister.updateTimeTrainDepartureRegister() throws "
+        + "Ill.Arg.Exc. if the time goes backwards")
+    void updateTimeTrainDepartureRegisterThrowsOnTimeTooEarly() {
+      try {
+        trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(12, 0));
+        trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(0, 0));
+        fail("The method updateTimeTrainDepartureRegister did not throw on time being before "
+            + "timeNow");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Time must be before 12:00", e.getMessage());
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Positive tests for ConcurrentTrainDepartureRegister")
+  public class methodsDoesNotThrowException {
+
+    @Test
+    @DisplayName("Lookups, destination search and expiry work like TrainDepartureRegister")
+    void registerBehavesLikeTrainDepartureRegister() {
+      TrainDeparture train = trainDepartureRegister.getTrainDepartureNumber("01");
+      assertTrue(trainDepartureRegister.checkTrainDestination("Trondheim"));
+      assertEquals(1, trainDepartureRegister.getTrainDeparturesDestination("Trondheim").size());
+      train.setDelay(LocalTime.of(1, 0));
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(12, 30));
+      assertTrue(trainDepartureRegister.checkTrainNumber("01"));
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(13, 0));
+      assertFalse(trainDepartureRegister.checkTrainNumber("01"));
+      assertFalse(trainDepartureRegister.checkTrainDestination("Trondheim"));
+      assertNull(trainDepartureRegister.getSortedTrainDepartures());
+    }
+
+    @Test
+    @DisplayName("Threads registering the same train numbers never both succeed")
+    void concurrentRegistrationHasExactlyOneWinnerPerTrainNumber() throws Exception {
+      int registered = runOnAllThreads(() -> {
+        int successes = 0;
+        for (int i = 0; i < TRAINS; i++) {
+          try {
+            trainDepartureRegister.registerTrainDeparture(new TrainDeparture(
+                departureTime(i), "L1", "T" + i, "Oslo S"));
+            successes++;
+          } catch (IllegalArgumentException e) {
+            // Another thread registered the number first.
+          }
+        }
+        return successes;
+      });
+      assertEquals(TRAINS, registered);
+      assertEquals(TRAINS + 1, trainDepartureRegister.getSortedTrainDepartures().size());
+      assertEquals(TRAINS, trainDepartureRegister.getTrainDeparturesDestination("Oslo S").size());
+    }
+
+    @Test
+    @DisplayName("Concurrent registration, delays, removal and clock updates leave every index "
+        + "consistent")
+    void concurrentMutationsKeepIndexesConsistent() throws Exception {
+      runOnAllThreads(() -> {
+        long id = Thread.currentThread().threadId();
+        for (int i = 0; i < TRAINS; i++) {
+          String trainNumber = id + "-" + i;
+          try {
+            trainDepartureRegister.registerTrainDeparture(
+                new TrainDeparture(departureTime(i), "L1", trainNumber, "Oslo S"));
+          } catch (IllegalArgumentException e) {
+            // The clock has passed the departure time.
+          }
+          TrainDeparture train = trainDepartureRegister.getTrainDepartureNumber(trainNumber);
+          if (train != null) {
+            train.setDelay(LocalTime.of(0, i % 30));
+          }
+          if (i % 3 == 0) {
+            trainDepartureRegister.removeTrainDepartureNumber(trainNumber);
+          }
+          if (i % 500 == 0) {
+            try {
+              trainDepartureRegister.updateTimeTrainDepartureRegister(
+                  LocalTime.of(12, 0).plusMinutes(i / 10));
+            } catch (IllegalArgumentException e) {
+              // Another thread moved the clock further.
+            }
+          }
+        }
+        return 0;
+      });
+      int nextMinute = trainDepartureRegister.getTime().getHour() * 60
+          + trainDepartureRegister.getTime().getMinute() + 1;
+      ArrayList<TrainDeparture> sorted = trainDepartureRegister.getSortedTrainDepartures();
+      int remaining = sorted == null ? 0 : sorted.size();
+      assertEquals(remaining,
+          trainDepartureRegister.getTrainDeparturesDestination("Oslo S").size()
+              + (trainDepartureRegister.checkTrainNumber("01") ? 1 : 0));
+      if (sorted != null) {
+        for (TrainDeparture train : sorted) {
+          assertTrue(trainDepartureRegister.checkTrainNumber(train.getTrainNumber()));
+          assertTrue(train.getEffectiveMinute() >= nextMinute);
+        }
+      }
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(23, 58));
+      assertNull(trainDepartureRegister.getSortedTrainDepartures());
+      assertFalse(trainDepartureRegister.checkTrainDestination("Oslo S"));
+    }
+
+    @Test
+    @DisplayName("Removing and registering the same train number from many threads never "
+        + "takes the registered departure out of the indexes")
+    void reregisteringSameNumberKeepsIndexesConsistent() throws Exception {
+      runOnAllThreads(() -> {
+        for (int i = 0; i < TRAINS; i++) {
+          trainDepartureRegister.removeTrainDepartureNumber("X");
+          try {
+            trainDepartureRegister.registerTrainDeparture(
+                new TrainDeparture(LocalTime.of(13, 0), "L1", "X", "Bergen"));
+          } catch (IllegalArgumentException e) {
+            // Another thread registered the number first.
+          }
+        }
+        return 0;
+      });
+      int registered = trainDepartureRegister.checkTrainNumber("X") ? 1 : 0;
+      assertEquals(1 + registered, trainDepartureRegister.getSortedTrainDepartures().size());
+      assertEquals(registered,
+          trainDepartureRegister.getTrainDeparturesDestination("Bergen").size());
+      trainDepartureRegister.removeTrainDepartureNumber("X");
+      assertFalse(trainDepartureRegister.checkTrainDestination("Bergen"));
+      assertEquals(1, trainDepartureRegister.getSortedTrainDepartures().size());
+    }
+  }
+}
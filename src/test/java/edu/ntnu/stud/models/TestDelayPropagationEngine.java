@@ -0,0 +1,149 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TestDelayPropagationEngine {
+
+  TrainDepartureRegister register;
+  DelayPropagationEngine engine;
+
+  /**
+   * Creates a register with three departures on line L1, one of them sharing track 2 with a
+   * departure on line R3, and an engine with a headway of five minutes before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    register = new TrainDepartureRegister();
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "01", "Trondheim"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 10), "L1", "02", "Trondheim"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 30), "L1", "03", "Trondheim"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 20), "R3", "04", "Oslo S"));
+    register.getTrainDepartureNumber("02").setTrack(2);
+    register.getTrainDepartureNumber("04").setTrack(2);
+    engine = new DelayPropagationEngine(register, 5);
+  }
+
+  private LocalTime delay(String trainNumber) {
+    return register.getTrainDepartureNumber(trainNumber).getDelay();
+  }
+
+  @Nested
+  @DisplayName("Positive tests for DelayPropagationEngine")
+  public class methodsDoesNotThrowException {
+
+    @Test
+    @DisplayName("A delay is passed on along the line and the track")
+    void delayIsPassedOn() {
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 20));
+
+      assertEquals(LocalTime.of(0, 15), delay("02"));
+      assertEquals(LocalTime.of(0, 10), delay("04"));
+      assertEquals(LocalTime.of(0, 0), delay("03"));
+      assertTrue(engine.isPropagated("02"));
+      assertFalse(engine.isPropagated("01"));
+      assertEquals(LocalTime.of(0, 0), engine.getPrimaryDelay("02"));
+    }
+
+    @Test
+    @DisplayName("A primary delay larger than the propagated one is kept, and a shorter delay "
+        + "takes back the propagated ones")
+    void primaryDelayIsKept() {
+      register.getTrainDepartureNumber("02").setDelay(LocalTime.of(0, 30));
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 20));
+      assertEquals(LocalTime.of(0, 30), delay("02"));
+      assertEquals(LocalTime.of(0, 15), delay("03"));
+
+      register.getTrainDepartureNumber("02").setDelay(LocalTime.of(0, 0));
+      assertEquals(LocalTime.of(0, 15), delay("02"));
+      assertEquals(LocalTime.of(0, 0), delay("03"));
+      assertEquals(LocalTime.of(0, 10), delay("04"));
+
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 0));
+      assertEquals(LocalTime.of(0, 0), delay("02"));
+      assertEquals(LocalTime.of(0, 0), delay("04"));
+    }
+
+    @Test
+    @DisplayName("DelayPropagationEngine.setPrimaryDelay() confirms a propagated delay, which is "
+        + "kept when the departure before it catches up")
+    void confirmedPropagatedDelayIsKept() {
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 20));
+      assertEquals(LocalTime.of(0, 15), delay("02"));
+
+      engine.setPrimaryDelay("02", LocalTime.of(0, 15));
+      assertEquals(LocalTime.of(0, 15), engine.getPrimaryDelay("02"));
+      assertFalse(engine.isPropagated("02"));
+
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 0));
+      assertEquals(LocalTime.of(0, 15), delay("02"));
+      assertEquals(LocalTime.of(0, 10), delay("04"));
+    }
+
+    @Test
+    @DisplayName("Propagated delays move departures in the expiry index of the register")
+    void propagatedDelaysKeepExpiryConsistent() {
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 20));
+      register.updateTimeTrainDepartureRegister(LocalTime.of(12, 22));
+
+      List<String> remaining = register.getSortedTrainDepartures().stream()
+          .map(TrainDeparture::getTrainNumber).toList();
+      assertEquals(List.of("02", "04", "03"), remaining);
+      assertEquals(LocalTime.of(0, 10), delay("04"));
+    }
+
+    @Test
+    @DisplayName("Removing a train frees the departures after it, a new train is delayed by the "
+        + "one before it")
+    void removalAndRegistrationArePropagated() {
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 20));
+      register.removeTrainDepartureNumber("01");
+      assertEquals(LocalTime.of(0, 0), delay("02"));
+
+      register.getTrainDepartureNumber("03").setDelay(LocalTime.of(0, 30));
+      register.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(12, 40), "L1", "05", "Trondheim"));
+      assertEquals(LocalTime.of(0, 25), delay("05"));
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for DelayPropagationEngine")
+  public class methodThrowsExceptions {
+
+    @Test
+    @DisplayName("The constructor throws Ill.Arg.Exc. on a negative headway")
+    void constructorThrowsOnNegativeHeadway() {
+      try {
+        new DelayPropagationEngine(register, -1);
+        fail("The constructor did not throw on a negative headway");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The headway can not be negative", e.getMessage());
+      }
+    }
+
+    @Test
+    @DisplayName("DelayPropagationEngine.setPrimaryDelay() throws Ill.Arg.Exc. on an unknown train")
+    void setPrimaryDelayThrowsOnUnknownTrain() {
+      try {
+        engine.setPrimaryDelay("99", LocalTime.of(0, 5));
+        fail("The method did not throw on an unknown train");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The register does not contain a train with number 99", e.getMessage());
+      }
+    }
+  }
+}
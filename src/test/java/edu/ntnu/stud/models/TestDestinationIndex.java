@@ -0,0 +1,88 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestDestinationIndex {
+
+  DestinationIndex destinationIndex;
+
+  /**
+   * Makes a DestinationIndex with a few destinations before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    destinationIndex = new DestinationIndex();
+    for (String name : List.of("Trondheim S", "Stjørdal", "Røros", "Oslo S", "Bodø",
+        "Steinkjer")) {
+      destinationIndex.add(name);
+    }
+  }
+
+  @Test
+  @DisplayName("DestinationIndex.normalize() ignores case, Norwegian letters, accents and spaces")
+  void normalizeFoldsNames() {
+    assertEquals("stjordal", DestinationIndex.normalize("STJØRDAL"));
+    assertEquals("aerfugl", DestinationIndex.normalize("Ærfugl"));
+    assertEquals("trondheim s", DestinationIndex.normalize("  Trondheim   S "));
+    assertEquals("cafe", DestinationIndex.normalize("Café"));
+  }
+
+  @Test
+  @DisplayName("DestinationIndex.search() finds prefixes of the name and of its words")
+  void searchFindsPrefixes() {
+    assertEquals(List.of("Steinkjer", "Stjørdal"), destinationIndex.search("st", 1));
+    assertEquals(List.of("Trondheim S"), destinationIndex.search("trondhe", 1));
+    assertEquals(List.of("Steinkjer", "Stjørdal", "Oslo S", "Trondheim S"),
+        destinationIndex.search("s", 1));
+    assertEquals(List.of("Røros"), destinationIndex.search("ROROS", 1));
+  }
+
+  @Test
+  @DisplayName("DestinationIndex.search() ranks an exact match first and finds misspellings")
+  void searchRanksAndFindsMisspellings() {
+    destinationIndex.add("Bodø Sentrum");
+    assertEquals(List.of("Bodø", "Bodø Sentrum"), destinationIndex.search("bodo", 1));
+    assertEquals(List.of("Stjørdal"), destinationIndex.search("stjordl", 1));
+    assertEquals(List.of("Trondheim S"), destinationIndex.search("trondhiem", 2));
+    assertEquals(List.of(), destinationIndex.search("trondhiem", 1));
+    assertEquals(List.of(), destinationIndex.search("  ", 2));
+  }
+
+  @Test
+  @DisplayName("DestinationIndex.search() matches queries of several words")
+  void searchMatchesSeveralWords() {
+    destinationIndex.add("Oslo Sentrum");
+    destinationIndex.add("Oslo Lufthavn");
+    assertEquals(List.of("Oslo S", "Oslo Sentrum"), destinationIndex.search("oslo s", 1));
+    assertEquals(List.of("Oslo Sentrum"), destinationIndex.search("oslo se", 0));
+    assertEquals(List.of("Oslo Lufthavn"), destinationIndex.search("Oslo  luft", 1));
+    assertEquals(List.of("Oslo Lufthavn"), destinationIndex.search("lufthavn", 1));
+    assertEquals(List.of("Oslo Sentrum"), destinationIndex.search("oslo sentrm", 1));
+  }
+
+  @Test
+  @DisplayName("DestinationIndex.remove() takes a name out of the search results")
+  void removeTakesNameOut() {
+    destinationIndex.remove("Stjørdal");
+    assertEquals(List.of("Steinkjer"), destinationIndex.search("st", 1));
+    assertEquals(List.of(), destinationIndex.search("stjordl", 1));
+    destinationIndex.add("Stjørdal");
+    assertEquals(List.of("Stjørdal"), destinationIndex.search("stjø", 1));
+  }
+
+  @Test
+  @DisplayName("DestinationIndex.editDistance() stops at the limit")
+  void editDistanceStopsAtLimit() {
+    assertEquals(1, DestinationIndex.editDistance("roros", "rors", 2));
+    assertEquals(2, DestinationIndex.editDistance("trondhiem", "trondheim", 2));
+    assertEquals(3, DestinationIndex.editDistance("oslo", "trondheim", 2));
+    assertEquals(2, DestinationIndex.editDistance("abcdef", "bcdefg", 2));
+    assertEquals(3, DestinationIndex.editDistance("abcdef", "badcfe", 2));
+    assertEquals(4, DestinationIndex.editDistance("abcdef", "badcfe", 5));
+  }
+}
@@ -0,0 +1,165 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestMappedTrainDepartureRegister {
+
+  MappedTrainDepartureRegister trainDepartureRegister;
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Opens a MappedTrainDepartureRegister in a new directory with three train departures before
+   * each test.
+   */
+  @BeforeEach
+  public void setup() throws IOException {
+    trainDepartureRegister = MappedTrainDepartureRegister.open(directory);
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "01", "Trondheim"));
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(11, 0), "R3", "02", "Oslo S"));
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(13, 0), "L1", "03", "Trondheim"));
+  }
+
+  /**
+   * Closes the register after each test.
+   */
+  @AfterEach
+  public void tearDown() throws IOException {
+    trainDepartureRegister.close();
+  }
+
+  private static List<String> trainNumbers(List<TrainDeparture> departures) {
+    return departures.stream().map(TrainDeparture::getTrainNumber).toList();
+  }
+
+  @Nested
+  @DisplayName("Negative tests for MappedTrainDepartureRegister")
+  public class methodThrowsExceptions {
+
+    @Test
+    @DisplayName("MappedTrainDepartureRegister.registerTrainDeparture() throws Ill.Arg.Exc. on "
+        + "a train number longer than 16 bytes")
+    void registerTrainDepartureThrowsOnLongTrainNumber() {
+      try {
+        trainDepartureRegister.registerTrainDeparture(
+            new TrainDeparture(LocalTime.of(14, 0), "L1", "12345678901234567", "Trondheim"));
+        fail("The method registerTrainDeparture did not throw on a long train number");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The train could not be registered. Since its train number is longer than"
+            + " 16 bytes", e.getMessage());
+      }
+    }
+
+    @Test
+    @DisplayName("MappedTrainDepartureRegister.open() throws on files that are not a register")
+    void openThrowsOnOtherFiles(@TempDir Path other) throws IOException {
+      Files.write(other.resolve("records.bin"), new byte[] {1, 2, 3, 4});
+      try {
+        MappedTrainDepartureRegister.open(other);
+        fail("The method open did not throw on files that are not a register");
+      } catch (IOException e) {
+        assertEquals(other + " does not hold a train departure register", e.getMessage());
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Positive tests for MappedTrainDepartureRegister")
+  public class methodsDoesNotThrowException {
+
+    @Test
+    @DisplayName("The register lists, looks up and searches departures in departure order")
+    void registerReadsInOrder() {
+      assertEquals(List.of("02", "01", "03"),
+          trainNumbers(trainDepartureRegister.getSortedTrainDepartures()));
+      assertEquals(List.of("01", "03"),
+          trainNumbers(trainDepartureRegister.getTrainDeparturesDestination("Trondheim")));
+      assertEquals("R3", trainDepartureRegister.getTrainDepartureNumber("02").getLine());
+      assertEquals("The register contains the following train numbers: \n[01, 02, 03]",
+          trainDepartureRegister.getTrainNumbers());
+    }
+
+    @Test
+    @DisplayName("A reopened register has the departures, tracks, delays and time it was closed "
+        + "with")
+    void reopenedRegisterKeepsState() throws IOException {
+      trainDepartureRegister.getTrainDepartureNumber("01").setTrack(3);
+      trainDepartureRegister.getTrainDepartureNumber("03").setDelay(LocalTime.of(0, 15));
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(11, 30));
+      String expected = trainDepartureRegister.toString();
+      trainDepartureRegister.close();
+
+      trainDepartureRegister = MappedTrainDepartureRegister.open(directory);
+      assertEquals(expected, trainDepartureRegister.toString());
+      assertEquals(LocalTime.of(11, 30), trainDepartureRegister.getTime());
+      assertEquals(3, trainDepartureRegister.getTrainDepartureNumber("01").getTrack());
+      assertEquals(2, trainDepartureRegister.size());
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(12, 30), "R3", "04", "Oslo S"));
+      assertEquals(List.of("01", "04", "03"),
+          trainNumbers(trainDepartureRegister.getSortedTrainDepartures()));
+    }
+
+    @Test
+    @DisplayName("Removed and departed records are reused and the files grow when full")
+    void recordsAreReusedAndFilesGrow() {
+      trainDepartureRegister.removeTrainDepartureNumber("01");
+      assertNull(trainDepartureRegister.getTrainDepartureNumber("01"));
+      assertFalse(trainDepartureRegister.checkTrainNumber("01"));
+      for (int i = 0; i < 3000; i++) {
+        trainDepartureRegister.registerTrainDeparture(new TrainDeparture(
+            LocalTime.of(14 + i % 8, i % 60), "L" + i % 5, "T" + i, "Destination " + i % 7));
+      }
+      assertEquals(3002, trainDepartureRegister.size());
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(17, 59));
+      List<TrainDeparture> departures = trainDepartureRegister.getSortedTrainDepartures();
+      assertEquals(1500, departures.size());
+      for (int i = 1; i < departures.size(); i++) {
+        if (departures.get(i - 1).getDepartureTime()
+            .isAfter(departures.get(i).getDepartureTime())) {
+          fail("The departures are not in departure order");
+        }
+      }
+      assertEquals("L1", trainDepartureRegister.getTrainDepartureNumber("T2996").getLine());
+    }
+
+    @Test
+    @DisplayName("Removed and departed trains and their views can be registered again, and "
+        + "destinations are counted")
+    void removedTrainsCanBeRegisteredAgain() {
+      assertTrue(trainDepartureRegister.checkTrainDestination("Oslo S"));
+      TrainDeparture view = trainDepartureRegister.getTrainDepartureNumber("02");
+      trainDepartureRegister.removeTrainDepartureNumber("02");
+      assertFalse(trainDepartureRegister.checkTrainDestination("Oslo S"));
+      trainDepartureRegister.registerTrainDeparture(view);
+      assertTrue(trainDepartureRegister.checkTrainDestination("Oslo S"));
+
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(11, 30));
+      assertFalse(trainDepartureRegister.checkTrainDestination("Oslo S"));
+      TrainDepartureRegister other = new TrainDepartureRegister();
+      other.registerTrainDeparture(view);
+      assertTrue(other.checkTrainNumber("02"));
+      assertTrue(trainDepartureRegister.checkTrainDestination("Trondheim"));
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestSortedListView {
+
+  private final SortedSet<Integer> view =
+      new SortedListView<>(List.of(10, 20, 30, 40, 50), Comparator.naturalOrder());
+
+  @Test
+  @DisplayName("SortedListView range views use the sorted list")
+  void rangeViewsFollowTheList() {
+    assertEquals(List.of(20, 30), new ArrayList<>(view.subSet(15, 40)));
+    assertEquals(List.of(10, 20), new ArrayList<>(view.headSet(30)));
+    assertEquals(List.of(30, 40, 50), new ArrayList<>(view.tailSet(30)));
+    assertEquals(List.of(40), new ArrayList<>(view.tailSet(25).subSet(40, 45)));
+    assertEquals(30, view.tailSet(21).first());
+    assertTrue(view.contains(40));
+    assertFalse(view.contains(45));
+  }
+
+  @Test
+  @DisplayName("A TreeSet filled from a SortedListView holds the elements in order")
+  void treeSetCopiesTheView() {
+    TreeSet<Integer> tree = new TreeSet<>(Comparator.naturalOrder());
+    tree.addAll(view);
+    assertEquals(List.of(10, 20, 30, 40, 50), new ArrayList<>(tree));
+  }
+
+  @Test
+  @DisplayName("SortedListView.first() throws NoSuchElementException on an empty range")
+  void firstThrowsOnEmptyRange() {
+    try {
+      view.headSet(5).first();
+      fail("The method first did not throw on an empty range");
+    } catch (NoSuchElementException e) {
+      assertEquals(0, view.headSet(5).size());
+    }
+  }
+}
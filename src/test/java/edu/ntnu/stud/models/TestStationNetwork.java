@@ -0,0 +1,171 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TestStationNetwork {
+
+  ForkJoinPool pool;
+  StationNetwork network;
+
+  /**
+   * Creates a network of three stations on its own pool before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    pool = new ForkJoinPool(4);
+    network = new StationNetwork(pool);
+    network.addStation("Trondheim S");
+    network.addStation("Oslo S");
+    network.addStation("Bergen");
+    network.registerTrainDeparture("Trondheim S",
+        new TrainDeparture(LocalTime.of(12, 0), "R70", "23", "Oslo S"));
+    network.registerTrainDeparture("Trondheim S",
+        new TrainDeparture(LocalTime.of(9, 0), "L1", "26", "Steinkjer"));
+    network.registerTrainDeparture("Bergen",
+        new TrainDeparture(LocalTime.of(10, 30), "F4", "23", "Oslo S"));
+    network.registerTrainDeparture("Oslo S",
+        new TrainDeparture(LocalTime.of(8, 0), "R10", "11", "Trondheim S"));
+    network.registerTrainDeparture("Oslo S",
+        new TrainDeparture(LocalTime.of(12, 0), "R20", "12", "Bergen"));
+  }
+
+  /**
+   * Shuts the pool down after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  private static List<String> describe(List<StationDeparture> departures) {
+    return departures.stream().map(departure -> departure.getStation() + " "
+        + departure.getTrainDeparture().getTrainNumber()).toList();
+  }
+
+  @Nested
+  @DisplayName("Positive tests for StationNetwork")
+  public class methodsDoesNotThrowException {
+
+    @Test
+    @DisplayName("The departures of every station are merged in departure order")
+    void departuresAreMergedInOrder() {
+      assertEquals(List.of("Oslo S 11", "Trondheim S 26", "Bergen 23", "Oslo S 12",
+          "Trondheim S 23"), describe(network.getSortedTrainDepartures()));
+      assertEquals(List.of("Bergen 23", "Trondheim S 23"),
+          describe(network.getTrainDeparturesDestination("Oslo S")));
+      assertEquals(5, network.size());
+      assertEquals(List.of("Bergen", "Oslo S", "Trondheim S"), network.getStations());
+    }
+
+    @Test
+    @DisplayName("StationNetwork.updateTime() removes departed trains in every station")
+    void updateTimeExpiresEveryStation() {
+      network.updateTime(LocalTime.of(10, 30));
+
+      assertEquals(LocalTime.of(10, 30), network.getTime());
+      assertEquals(List.of("Oslo S 12", "Trondheim S 23"),
+          describe(network.getSortedTrainDepartures()));
+      for (String station : network.getStations()) {
+        assertEquals(LocalTime.of(10, 30), network.getStation(station).getTime());
+      }
+      assertEquals(LocalTime.of(10, 30), network.addStation("Bodø").getTime());
+    }
+
+    @Test
+    @DisplayName("The routing methods change and read the register of the station")
+    void routingReachesTheStation() {
+      assertEquals("F4", network.getTrainDepartureNumber("Bergen", "23").getLine());
+      network.removeTrainDepartureNumber("Bergen", "23");
+      assertNull(network.getTrainDepartureNumber("Bergen", "23"));
+      assertEquals("R70", network.getTrainDepartureNumber("Trondheim S", "23").getLine());
+    }
+
+    @Test
+    @DisplayName("StationNetwork.merge() merges many sorted lists like a sort")
+    void mergeMatchesSort() {
+      StationNetwork large = new StationNetwork(pool);
+      for (int station = 0; station < 20; station++) {
+        large.addStation("Station " + station);
+        for (int train = 0; train < 50; train++) {
+          large.registerTrainDeparture("Station " + station, new TrainDeparture(
+              LocalTime.of((station * 7 + train * 3) % 23 + 1, (train * 11) % 60),
+              "L" + train, "T" + train, "Destination " + train % 4));
+        }
+      }
+      List<StationDeparture> merged = large.getSortedTrainDepartures();
+      assertEquals(1000, merged.size());
+      for (int i = 1; i < merged.size(); i++) {
+        if (merged.get(i - 1).getTrainDeparture().getDepartureTime()
+            .isAfter(merged.get(i).getTrainDeparture().getDepartureTime())) {
+          fail("The merged departures are not in departure order");
+        }
+      }
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for StationNetwork")
+  public class methodThrowsExceptions {
+
+    @Test
+    @DisplayName("StationNetwork.addStation() throws Ill.Arg.Exc. on a station in the network")
+    void addStationThrowsOnDuplicate() {
+      try {
+        network.addStation("Bergen");
+        fail("The method addStation did not throw on a station in the network");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The network already contains the station Bergen", e.getMessage());
+      }
+    }
+
+    @Test
+    @DisplayName("StationNetwork.registerTrainDeparture() throws Ill.Arg.Exc. on an unknown "
+        + "station")
+    void registerThrowsOnUnknownStation() {
+      try {
+        network.registerTrainDeparture("Bodø",
+            new TrainDeparture(LocalTime.of(12, 0), "R70", "23", "Oslo S"));
+        fail("The method registerTrainDeparture did not throw on an unknown station");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The network does not contain the station Bodø", e.getMessage());
+      }
+    }
+
+    @Test
+    @DisplayName("StationNetwork.updateTime() throws Ill.Arg.Exc. on a time before the current "
+        + "time")
+    void updateTimeThrowsOnEarlierTime() {
+      network.updateTime(LocalTime.of(10, 0));
+      try {
+        network.updateTime(LocalTime.of(9, 0));
+        fail("The method updateTime did not throw on an earlier time");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Time must be after 10:00", e.getMessage());
+      }
+    }
+
+    @Test
+    @DisplayName("StationNetwork.updateTime() keeps the time of the network if a station can not "
+        + "be updated")
+    void updateTimeKeepsTimeWhenAStationFails() {
+      network.getStation("Bergen").updateTimeTrainDepartureRegister(LocalTime.of(11, 0));
+      try {
+        network.updateTime(LocalTime.of(10, 0));
+        fail("The method updateTime did not throw when a station could not be updated");
+      } catch (IllegalArgumentException e) {
+        assertEquals(LocalTime.of(0, 0), network.getTime());
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestStringPool {
+
+  @Test
+  @DisplayName("StringPool.ordinal() numbers equal strings the same and returns one instance")
+  void ordinalNumbersEqualStringsTheSame() {
+    StringPool pool = new StringPool();
+    int oslo = pool.ordinal(new String("Oslo S"));
+    int trondheim = pool.ordinal("Trondheim");
+    String copy = new String("Oslo S");
+
+    assertEquals(oslo, pool.ordinal(copy));
+    assertNotEquals(oslo, trondheim);
+    assertSame(pool.get(oslo), pool.get(pool.ordinal(copy)));
+    assertEquals(-1, pool.find("Bodø"));
+    assertEquals(2, pool.size());
+  }
+
+  @Test
+  @DisplayName("Train departures share the interned line and destination instances")
+  void trainDeparturesShareInternedStrings() {
+    TrainDeparture first = new TrainDeparture(LocalTime.of(12, 0), new String("L1"), "01",
+        new String("Trondheim"));
+    TrainDeparture second = new TrainDeparture(LocalTime.of(12, 10), new String("L1"), "02",
+        new String("Trondheim"));
+
+    assertSame(first.getLine(), second.getLine());
+    assertSame(first.getDestination(), second.getDestination());
+  }
+
+  @Test
+  @DisplayName("Train departures created from pooled names keep the instances they were given")
+  void pooledTrainDeparturesKeepTheirStrings() {
+    String line = new String("L1");
+    String destination = new String("Trondheim");
+    TrainDeparture trainDeparture = new TrainDeparture(LocalTime.of(12, 0), line, "01",
+        destination, true);
+
+    assertSame(line, trainDeparture.getLine());
+    assertSame(destination, trainDeparture.getDestination());
+  }
+}
@@ -0,0 +1,123 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TestTrackAllocator {
+
+  TrainDepartureRegister register;
+  TrackAllocator allocator;
+
+  /**
+   * Creates a register with four departures and an allocator for two tracks where a train
+   * occupies its track for ten minutes before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    register = new TrainDepartureRegister();
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "01", "Trondheim"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 5), "R3", "02", "Oslo S"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 8), "B56", "03", "Stjørdal"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 30), "C5", "04", "Røros"));
+    allocator = new TrackAllocator(register, 2, 10);
+  }
+
+  private int track(String trainNumber) {
+    return register.getTrainDepartureNumber(trainNumber).getTrack();
+  }
+
+  @Nested
+  @DisplayName("Positive tests for TrackAllocator")
+  public class methodsDoesNotThrowException {
+
+    @Test
+    @DisplayName("TrackAllocator.assignTracks() gives free tracks in departure order")
+    void assignTracksUsesFreeTracks() {
+      assertEquals(3, allocator.assignTracks());
+
+      assertEquals(1, track("01"));
+      assertEquals(2, track("02"));
+      assertEquals(-1, track("03"));
+      assertEquals(1, track("04"));
+      assertTrue(allocator.getConflicts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A track given by hand is checked against the trains on the track")
+    void manualTrackIsChecked() {
+      allocator.assignTracks();
+
+      assertEquals(List.of("01"), allocator.findConflicts(
+          register.getTrainDepartureNumber("03"), 1));
+      register.getTrainDepartureNumber("03").setTrack(1);
+      assertEquals(List.of("01", "03"), allocator.getConflicts());
+      register.getTrainDepartureNumber("01").setTrack(0);
+      assertTrue(allocator.getConflicts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A delay that moves a train next to another is found, and cleared when it ends")
+    void delayIsCheckedAgain() {
+      allocator.assignTracks();
+
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 25));
+      assertEquals(List.of("01", "04"), allocator.getConflicts());
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 40));
+      assertTrue(allocator.getConflicts().isEmpty());
+      register.updateTimeTrainDepartureRegister(LocalTime.of(12, 30));
+      assertEquals(List.of("01"), allocator.findConflicts(
+          new TrainDeparture(LocalTime.of(12, 45), "L1", "05", "Trondheim"), 1));
+    }
+
+    @Test
+    @DisplayName("Departed and removed trains free their track")
+    void departedTrainsFreeTheirTrack() {
+      allocator.assignTracks();
+
+      register.removeTrainDepartureNumber("02");
+      assertTrue(allocator.findConflicts(register.getTrainDepartureNumber("03"), 2).isEmpty());
+      register.updateTimeTrainDepartureRegister(LocalTime.of(12, 0));
+      assertTrue(allocator.findConflicts(register.getTrainDepartureNumber("03"), 1).isEmpty());
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for TrackAllocator")
+  public class methodThrowsExceptions {
+
+    @Test
+    @DisplayName("TrackAllocator.findConflicts() throws Ill.Arg.Exc. on a track not at the "
+        + "station")
+    void findConflictsThrowsOnUnknownTrack() {
+      try {
+        allocator.findConflicts(register.getTrainDepartureNumber("01"), 3);
+        fail("The method findConflicts did not throw on track 3");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The station has no track 3", e.getMessage());
+      }
+    }
+
+    @Test
+    @DisplayName("The constructor throws Ill.Arg.Exc. on a station without tracks")
+    void constructorThrowsOnNoTracks() {
+      try {
+        new TrackAllocator(register, 0, 10);
+        fail("The constructor did not throw on a station without tracks");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The station must have at least one track", e.getMessage());
+      }
+    }
+  }
+}
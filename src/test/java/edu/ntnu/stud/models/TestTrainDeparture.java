@@ -2,6 +2,7 @@ package edu.ntnu.stud.models;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.LocalTime;
@@ -189,6 +190,23 @@ public class TestTrainDeparture {
       }
     }
 
+    @Test
+    @DisplayName("printTrainDeparture matches String.format and is updated by setTrack and "
+        + "setDelay")
+    public void printTrainDepartureIsInvalidatedBySetters() {
+      String format = "| %-14.14s | %-4.4s | %-6.6s | %-15.15s | %-5.5s | %-5.5s |";
+      TrainDeparture train = new TrainDeparture(LocalTime.of(23, 59, 30), "LongLine",
+          "1234567", "A destination that is too long");
+      assertEquals(String.format(format, "23:59:30", "LongLine", "1234567",
+          "A destination that is too long", " ", " "), train.printTrainDeparture());
+      String cached = train.printTrainDeparture();
+      assertSame(cached, train.printTrainDeparture());
+      train.setTrack(123456);
+      train.setDelay(LocalTime.of(1, 5));
+      assertEquals(String.format(format, "23:59:30", "LongLine", "1234567",
+          "A destination that is too long", "123456", "01:05"), train.printTrainDeparture());
+    }
+
     @Test
     @DisplayName("TrainDeparture.ToString prints the train departure as expected")
     public void TrainDepartureToStringPrintsCorrectly() {
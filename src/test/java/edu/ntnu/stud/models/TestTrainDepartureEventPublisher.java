@@ -0,0 +1,167 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TestTrainDepartureEventPublisher {
+
+  TrainDepartureRegister register;
+  TrainDepartureEventPublisher publisher;
+
+  /**
+   * Subscriber that keeps the batches it receives and requests a given number of batches when
+   * it subscribes.
+   */
+  static class CollectingSubscriber implements Flow.Subscriber<TrainDepartureEventBatch> {
+    final List<TrainDepartureEventBatch> batches = new ArrayList<>();
+    final long demand;
+    Flow.Subscription subscription;
+    boolean completed;
+
+    CollectingSubscriber(long demand) {
+      this.demand = demand;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (demand > 0) {
+        subscription.request(demand);
+      }
+    }
+
+    @Override
+    public void onNext(TrainDepartureEventBatch batch) {
+      batches.add(batch);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  /**
+   * Creates a register with one train departure and a publisher that delivers on the calling
+   * thread before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    register = new TrainDepartureRegister();
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "23", "Trondheim"));
+    publisher = new TrainDepartureEventPublisher(register, Runnable::run, 2);
+  }
+
+  private static List<TrainDepartureEvent.Type> types(TrainDepartureEventBatch batch) {
+    return batch.getEvents().stream().map(TrainDepartureEvent::getType).toList();
+  }
+
+  @Nested
+  @DisplayName("Positive tests for TrainDepartureEventPublisher")
+  public class methodsDoesNotThrowException {
+
+    @Test
+    @DisplayName("Every change is delivered as a batch with the versions it connects")
+    void changesAreDeliveredAsBatches() {
+      CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+      publisher.subscribe(subscriber);
+      long version = register.getSnapshot().getVersion();
+
+      register.getTrainDepartureNumber("23").setTrack(4);
+      register.getTrainDepartureNumber("23").setDelay(LocalTime.of(0, 10));
+      register.registerTrainDepartures(List.of(
+          new TrainDeparture(LocalTime.of(12, 30), "R3", "26", "Oslo S"),
+          new TrainDeparture(LocalTime.of(13, 0), "B56", "25", "Stjørdal")));
+      register.removeTrainDepartureNumber("25");
+      register.updateTimeTrainDepartureRegister(LocalTime.of(12, 15));
+
+      assertEquals(5, subscriber.batches.size());
+      TrainDepartureEventBatch track = subscriber.batches.get(0);
+      assertEquals(version, track.getPreviousVersion());
+      assertEquals(List.of(TrainDepartureEvent.Type.TRACK_ASSIGNED), types(track));
+      assertEquals(-1, track.getEvents().get(0).getOldTrack());
+      assertEquals(4, track.getEvents().get(0).getTrainDeparture().getTrack());
+      for (int i = 1; i < subscriber.batches.size(); i++) {
+        assertEquals(subscriber.batches.get(i - 1).getVersion(),
+            subscriber.batches.get(i).getPreviousVersion());
+      }
+      assertEquals(List.of(TrainDepartureEvent.Type.DELAYED), types(subscriber.batches.get(1)));
+      assertEquals(List.of(TrainDepartureEvent.Type.REGISTERED,
+          TrainDepartureEvent.Type.REGISTERED), types(subscriber.batches.get(2)));
+      assertEquals(List.of(TrainDepartureEvent.Type.REMOVED), types(subscriber.batches.get(3)));
+      TrainDepartureEventBatch clock = subscriber.batches.get(4);
+      assertEquals(List.of(TrainDepartureEvent.Type.EXPIRED,
+          TrainDepartureEvent.Type.CLOCK_ADVANCED), types(clock));
+      assertEquals("23", clock.getEvents().get(0).getTrainDeparture().getTrainNumber());
+      assertEquals(LocalTime.of(12, 15), clock.getEvents().get(1).getNewTime());
+      assertNull(clock.getEvents().get(1).getTrainDeparture());
+      assertEquals(register.getSnapshot().getVersion(), clock.getVersion());
+    }
+
+    @Test
+    @DisplayName("A subscriber that does not keep up misses batches without holding up the "
+        + "register")
+    void slowSubscriberMissesBatches() {
+      CollectingSubscriber slow = new CollectingSubscriber(0);
+      CollectingSubscriber fast = new CollectingSubscriber(Long.MAX_VALUE);
+      publisher.subscribe(slow);
+      publisher.subscribe(fast);
+
+      for (int track = 1; track <= 5; track++) {
+        register.getTrainDepartureNumber("23").setTrack(track);
+      }
+
+      assertEquals(5, fast.batches.size());
+      assertEquals(3, publisher.getDroppedBatches());
+      slow.subscription.request(Long.MAX_VALUE);
+      assertEquals(2, slow.batches.size());
+      assertEquals(1, slow.batches.get(0).getEvents().get(0).getTrainDeparture().getTrack());
+    }
+
+    @Test
+    @DisplayName("TrainDepartureEventPublisher.close() completes the subscribers and stops "
+        + "listening")
+    void closeCompletesSubscribers() {
+      CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+      publisher.subscribe(subscriber);
+      publisher.close();
+      register.getTrainDepartureNumber("23").setTrack(4);
+
+      assertEquals(0, subscriber.batches.size());
+      assertTrue(subscriber.completed);
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for TrainDepartureEventPublisher")
+  public class methodThrowsExceptions {
+
+    @Test
+    @DisplayName("The constructor throws Ill.Arg.Exc. on a buffer size that is not positive")
+    void constructorThrowsOnBufferSize() {
+      try {
+        new TrainDepartureEventPublisher(register, Runnable::run, 0);
+        fail("The constructor did not throw on a buffer size of 0");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The buffer size must be positive", e.getMessage());
+      }
+    }
+  }
+}
@@ -7,6 +7,9 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -27,10 +30,55 @@ class TestTrainDepartureRegister {
             "01", "Trondheim"));
   }
 
+  private static List<String> trainNumbers(List<TrainDeparture> departures) {
+    return departures.stream().map(TrainDeparture::getTrainNumber).toList();
+  }
+
   @Nested
   @DisplayName("Negative test for the TrainDepartureRegister" +
       ", throws exceptions on wrong input parameters")
   public class methodThrowsExceptions {
+    @Test
+    @DisplayName("TrainDepartureRegister.applyUpdate() throws Ill.Arg.Exc. on an unknown train "
+        + "and changes nothing")
+    void applyUpdateThrowsOnUnknownTrain() {
+      long version = trainDepartureRegister.getSnapshot().getVersion();
+      try {
+        trainDepartureRegister.applyUpdate(new TrainDepartureUpdate()
+            .setTrack("01", 4)
+            .setDelay("99", LocalTime.of(0, 10)));
+        fail("The method applyUpdate did not throw on an unknown train");
+      } catch (IllegalArgumentException e) {
+        assertEquals("No train departure with number 99", e.getMessage());
+      }
+      assertEquals(-1, trainDepartureRegister.getTrainDepartureNumber("01").getTrack());
+      assertEquals(version, trainDepartureRegister.getSnapshot().getVersion());
+    }
+
+    @Test
+    @DisplayName("TrainDepartureUpdate.setTrack() throws Ill.Arg.Exc. on a negative track")
+    void updateSetTrackThrowsOnNegativeTrack() {
+      try {
+        new TrainDepartureUpdate().setTrack("01", -2);
+        fail("The method setTrack did not throw on a negative track");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Track cant be less than 0", e.getMessage());
+      }
+    }
+
+    @Test
+    @DisplayName("TrainDepartureRegister.getTrainDeparturesBetween() throws Ill.Arg.Exc. on an "
+        + "invalid cursor")
+    void getTrainDeparturesBetweenThrowsOnInvalidCursor() {
+      try {
+        trainDepartureRegister.getTrainDeparturesBetween(LocalTime.of(0, 0),
+            LocalTime.of(23, 59), null, "next", 10);
+        fail("The method getTrainDeparturesBetween did not throw on an invalid cursor");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Invalid cursor next", e.getMessage());
+      }
+    }
+
     @Test
     @DisplayName("TrainDepartureRegister.registerTrainDeparture() throws Ill.Arg.Exc. on blank "
         + "departureTime")
@@ -140,6 +188,24 @@ class TestTrainDepartureRegister {
       }
     }
 
+    @Test
+    @DisplayName("TrainDepartureRegister.registerTrainDeparture() throws Ill.Arg.Exc. if the train "
+        + "is registered in another register")
+    void registerTrainDepartureThrowsOnTrainInOtherRegister() {
+      try {
+        TrainDepartureRegister otherRegister = new TrainDepartureRegister();
+        otherRegister.registerTrainDeparture(
+            trainDepartureRegister.getTrainDepartureNumber("01"));
+        fail("The method registerTrainDepartureThrowsOnTrainInOtherRegister did not throw on a "
+            + "train registered in another register");
+      } catch (IllegalArgumentException e) {
+        assertEquals(
+            "The train could not be registered. Since it is already registered in another "
+                + "register",
+            e.getMessage());
+      }
+    }
+
     @Test
     @DisplayName("TrainDepartureRegister.updateTimeTrainDepartureRegister() throws Ill.Arg.Exc. If "
         + "user tries to set time before timeNow")
@@ -237,6 +303,20 @@ class TestTrainDepartureRegister {
       }
     }
 
+    @Test
+    @DisplayName("TrainDepartureRegister.updateTimeTrainDepartureRegister() keeps delayed trains "
+        + "until they depart, and follows changes to the delay")
+    public void TrainDepartureRegisterRemoveDepartedTrainsFollowsDelay() {
+      TrainDeparture train = trainDepartureRegister.getTrainDepartureNumber("01");
+      train.setDelay(LocalTime.of(1, 30));
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(13, 0));
+      assertTrue(trainDepartureRegister.checkTrainNumber("01"));
+      train.setDelay(LocalTime.of(0, 30));
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(13, 1));
+      assertFalse(trainDepartureRegister.checkTrainNumber("01"));
+      assertFalse(trainDepartureRegister.checkTrainDestination("Trondheim"));
+    }
+
     @Test
     @DisplayName("TrainDepartureRegister.removeTrainDepartureNumber() removes the train with a "
         + "number. And checks that the train is gone from the register")
@@ -280,6 +360,242 @@ class TestTrainDepartureRegister {
       }
     }
 
+    @Test
+    @DisplayName("TrainDepartureRegister.getSortedTrainDepartures() orders departures with the "
+        + "same departure time by train number, and forgets removed trains")
+    public void TrainDepartureRegisterGetSortedTrainDeparturesSameTime() {
+      TrainDeparture train03 = new TrainDeparture(
+          LocalTime.of(12, 0), "L2", "03", "Oslo S");
+      TrainDeparture train02 = new TrainDeparture(
+          LocalTime.of(12, 0), "L2", "02", "Oslo S");
+      trainDepartureRegister.registerTrainDeparture(train03);
+      trainDepartureRegister.registerTrainDeparture(train02);
+      trainDepartureRegister.removeTrainDepartureNumber("01");
+      ArrayList<TrainDeparture> expected = new ArrayList<>();
+      expected.add(train02);
+      expected.add(train03);
+      assertEquals(expected, trainDepartureRegister.getSortedTrainDepartures());
+    }
+
+    @Test
+    @DisplayName("TrainDepartureRegister.getTrainDeparturesDestination() returns the sorted trains "
+        + "to the destination, and the destination is forgotten when its last train is removed")
+    public void TrainDepartureRegisterGetTrainDeparturesDestination() {
+      TrainDeparture train02 = new TrainDeparture(
+          LocalTime.of(14, 0), "L2", "02", "Oslo S");
+      TrainDeparture train03 = new TrainDeparture(
+          LocalTime.of(13, 0), "L2", "03", "Oslo S");
+      trainDepartureRegister.registerTrainDeparture(train02);
+      trainDepartureRegister.registerTrainDeparture(train03);
+      ArrayList<TrainDeparture> expected = new ArrayList<>();
+      expected.add(train03);
+      expected.add(train02);
+      assertEquals(expected, trainDepartureRegister.getTrainDeparturesDestination("Oslo S"));
+      trainDepartureRegister.removeTrainDepartureNumber("01");
+      assertFalse(trainDepartureRegister.checkTrainDestination("Trondheim"));
+      assertTrue(trainDepartureRegister.getTrainDeparturesDestination("Trondheim").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Listeners are told about every change to the register")
+    public void listenersAreToldAboutChanges() {
+      ArrayList<String> events = new ArrayList<>();
+      trainDepartureRegister.addListener(new TrainDepartureRegisterListener() {
+        @Override
+        public void onRegistered(TrainDeparture trainDeparture) {
+          events.add("registered " + trainDeparture.getTrainNumber());
+        }
+
+        @Override
+        public void onTrackAssigned(TrainDeparture trainDeparture, int oldTrack) {
+          events.add("track " + oldTrack + " " + trainDeparture.getTrack());
+        }
+
+        @Override
+        public void onDelayed(TrainDeparture trainDeparture, LocalTime oldDelay) {
+          events.add("delayed " + oldDelay + " " + trainDeparture.getDelay());
+        }
+
+        @Override
+        public void onRemoved(TrainDeparture trainDeparture) {
+          events.add("removed " + trainDeparture.getTrainNumber());
+        }
+
+        @Override
+        public void onExpired(TrainDeparture trainDeparture) {
+          events.add("expired " + trainDeparture.getTrainNumber());
+        }
+
+        @Override
+        public void onClockAdvanced(LocalTime oldTime, LocalTime newTime) {
+          events.add("clock " + oldTime + " " + newTime);
+        }
+      });
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(13, 0), "L2", "02", "Oslo S"));
+      trainDepartureRegister.getTrainDepartureNumber("02").setTrack(3);
+      trainDepartureRegister.getTrainDepartureNumber("02").setDelay(LocalTime.of(0, 10));
+      trainDepartureRegister.removeTrainDepartureNumber("02");
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(12, 0));
+      assertEquals(List.of("registered 02", "track -1 3", "delayed 00:00 00:10", "removed 02",
+          "expired 01", "clock 00:00 12:00"), events);
+    }
+
+    @Test
+    @DisplayName("Time-window and next departure queries count the delay and page with cursors")
+    void timeWindowQueriesCountDelay() {
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(11, 0), "L2", "02", "Oslo S"));
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(12, 30), "L1", "03", "Trondheim"));
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(13, 0), "L2", "04", "Oslo S"));
+      trainDepartureRegister.getTrainDepartureNumber("02").setDelay(LocalTime.of(1, 15));
+      trainDepartureRegister.getTrainDepartureNumber("04").setTrack(2);
+
+      assertEquals(List.of("01", "02", "03"), trainNumbers(trainDepartureRegister
+          .getTrainDeparturesBetween(LocalTime.of(12, 0), LocalTime.of(12, 30))));
+      assertEquals(List.of("01", "02"), trainNumbers(
+          trainDepartureRegister.getNextTrainDepartures(2, null)));
+      assertEquals(List.of("02", "04"), trainNumbers(trainDepartureRegister
+          .getNextTrainDepartures(5, trainDeparture -> trainDeparture.getLine().equals("L2"))));
+
+      DeparturePage first = trainDepartureRegister.getTrainDeparturesBetween(LocalTime.of(0, 0),
+          LocalTime.of(23, 59), null, null, 3);
+      assertEquals(List.of("01", "02", "03"), trainNumbers(first.getTrainDepartures()));
+      assertTrue(first.hasNext());
+      DeparturePage second = trainDepartureRegister.getTrainDeparturesBetween(LocalTime.of(0, 0),
+          LocalTime.of(23, 59), null, first.getNextCursor(), 3);
+      assertEquals(List.of("04"), trainNumbers(second.getTrainDepartures()));
+      assertFalse(second.hasNext());
+
+      DeparturePage onTrack = trainDepartureRegister.getTrainDeparturesBetween(
+          LocalTime.of(0, 0), LocalTime.of(23, 59),
+          trainDeparture -> trainDeparture.getTrack() == 2, null, 10);
+      assertEquals(List.of("04"), trainNumbers(onTrack.getTrainDepartures()));
+
+      assertEquals(List.of("04"), trainNumbers(trainDepartureRegister.getTrainDeparturesOnTrack(
+          LocalTime.of(0, 0), LocalTime.of(23, 59), 2, null, 10).getTrainDepartures()));
+      assertEquals(List.of("01", "02", "03"), trainNumbers(trainDepartureRegister
+          .getTrainDeparturesOnTrack(LocalTime.of(12, 0), LocalTime.of(12, 30), -1, null, 10)
+          .getTrainDepartures()));
+      DeparturePage onLine = trainDepartureRegister.getTrainDeparturesOnLine(LocalTime.of(0, 0),
+          LocalTime.of(23, 59), "L2", null, 1);
+      assertEquals(List.of("02"), trainNumbers(onLine.getTrainDepartures()));
+      assertEquals(List.of("04"), trainNumbers(trainDepartureRegister.getTrainDeparturesOnLine(
+          LocalTime.of(0, 0), LocalTime.of(23, 59), "L2", onLine.getNextCursor(), 1)
+          .getTrainDepartures()));
+      assertEquals(List.of("02", "04"), trainNumbers(
+          trainDepartureRegister.getNextTrainDeparturesOnLine(5, "L2")));
+      assertTrue(trainDepartureRegister.getNextTrainDeparturesOnTrack(5, 7).isEmpty());
+
+      trainDepartureRegister.getTrainDepartureNumber("04").setTrack(3);
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(12, 15));
+      assertTrue(trainDepartureRegister.getNextTrainDeparturesOnTrack(5, 2).isEmpty());
+      assertEquals(List.of("04"), trainNumbers(
+          trainDepartureRegister.getNextTrainDeparturesOnTrack(5, 3)));
+      assertEquals(List.of("04"), trainNumbers(
+          trainDepartureRegister.getNextTrainDeparturesOnLine(5, "L2")));
+    }
+
+    @Test
+    @DisplayName("Destination search finds prefixes and misspellings and forgets destinations "
+        + "without departures")
+    void searchDestinationsFindsPrefixesAndMisspellings() {
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(11, 0), "R71", "02", "Stjørdal"));
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(13, 0), "R71", "03", "Steinkjer"));
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(10, 0), "R71", "04", "Steinkjer"));
+
+      assertEquals(List.of("Steinkjer", "Stjørdal"),
+          trainDepartureRegister.searchDestinations("ST"));
+      assertEquals(List.of("04", "03", "02"), trainNumbers(
+          trainDepartureRegister.searchTrainDeparturesDestination("st")));
+      assertEquals(List.of("02", "04", "03"), trainNumbers(trainDepartureRegister
+          .getTrainDeparturesDestinations(List.of("Stjørdal", "Steinkjer", "Bodø"))));
+      assertEquals(List.of("Trondheim"), trainDepartureRegister.searchDestinations("trondhiem"));
+
+      trainDepartureRegister.removeTrainDepartureNumber("02");
+      assertEquals(List.of("Steinkjer"), trainDepartureRegister.searchDestinations("st"));
+    }
+
+    @Test
+    @DisplayName("TrainDepartureRegister.registerTrainDepartures() reports a code for every row "
+        + "of a batch without throwing")
+    void registerBatchReportsEveryRow() {
+      trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(10, 0));
+      TrainDepartureBatch batch = new TrainDepartureBatch();
+      batch.add(LocalTime.of(13, 0), "L2", "02", "Oslo S", 3);
+      batch.add(LocalTime.of(11, 0), "L2", "03", "Oslo S");
+      batch.add(LocalTime.of(12, 30), "L1", "01", "Trondheim");
+      batch.add(LocalTime.of(9, 0), "L1", "04", "Trondheim");
+      batch.add(LocalTime.of(14, 0), " ", "05", "Bodø");
+      batch.add(null, "L1", "06", "Bodø");
+      batch.add(LocalTime.of(14, 0), "L1", "03", "Bodø");
+      batch.add(LocalTime.of(14, 0), "L1", "07", "Bodø", -5);
+
+      RegistrationReport report = trainDepartureRegister.registerTrainDepartures(batch);
+
+      assertEquals(8, report.size());
+      assertEquals(2, report.getRegistered());
+      assertEquals(6, report.getRejected());
+      assertEquals(List.of(RegistrationReport.Code.REGISTERED,
+              RegistrationReport.Code.REGISTERED,
+              RegistrationReport.Code.DUPLICATE_TRAIN_NUMBER,
+              RegistrationReport.Code.DEPARTURE_PASSED,
+              RegistrationReport.Code.BLANK_FIELD,
+              RegistrationReport.Code.MISSING_DEPARTURE_TIME,
+              RegistrationReport.Code.DUPLICATE_TRAIN_NUMBER,
+              RegistrationReport.Code.INVALID_TRACK),
+          IntStream.range(0, report.size()).mapToObj(report::getCode).toList());
+      assertEquals(List.of(2, 3, 4, 5, 6, 7),
+          Arrays.stream(report.getRejectedRows()).boxed().toList());
+      assertEquals(List.of("03", "01", "02"),
+          trainNumbers(trainDepartureRegister.getSortedTrainDepartures()));
+      assertEquals(3, trainDepartureRegister.getTrainDepartureNumber("02").getTrack());
+      assertEquals(List.of("03", "02"), trainDepartureRegister.getSnapshot()
+          .getTrainDeparturesDestination("Oslo S").stream()
+          .map(TrainDepartureSnapshot::getTrainNumber).toList());
+    }
+
+    @Test
+    @DisplayName("TrainDepartureRegister.applyUpdate() applies a burst of changes and publishes "
+        + "one snapshot")
+    void applyUpdatePublishesOneSnapshot() {
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(12, 30), "L2", "02", "Oslo S"));
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(13, 0), "L2", "03", "Oslo S"));
+      ArrayList<Long> published = new ArrayList<>();
+      trainDepartureRegister.addListener(new TrainDepartureRegisterListener() {
+        @Override
+        public void onPublished(TrainDepartureRegisterSnapshot snapshot) {
+          published.add(snapshot.getVersion());
+        }
+      });
+      long version = trainDepartureRegister.getSnapshot().getVersion();
+
+      TrainDepartureRegisterSnapshot snapshot = trainDepartureRegister.applyUpdate(
+          new TrainDepartureUpdate()
+              .setTrack("01", 2)
+              .setDelay("01", LocalTime.of(0, 10))
+              .setDelay("01", LocalTime.of(0, 45))
+              .setTrack("02", 5)
+              .remove("03")
+              .setDelay("03", LocalTime.of(0, 5)));
+
+      assertEquals(List.of(version + 1), published);
+      assertEquals(version + 1, snapshot.getVersion());
+      assertEquals(2, snapshot.getTrainDepartureNumber("01").getTrack());
+      assertEquals(LocalTime.of(0, 45), snapshot.getTrainDepartureNumber("01").getDelay());
+      assertEquals(5, trainDepartureRegister.getTrainDepartureNumber("02").getTrack());
+      assertFalse(trainDepartureRegister.checkTrainNumber("03"));
+      assertEquals(List.of("02", "01"), trainNumbers(trainDepartureRegister
+          .getTrainDeparturesBetween(LocalTime.of(12, 0), LocalTime.of(13, 0))));
+    }
+
     @Test
     @DisplayName("TrainDepartureRegister.toString() returns the correct string")
     public void TrainDepartureRegisterToStringReturnsCorrectInformation() {
@@ -0,0 +1,147 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestTrainDepartureRegisterSnapshot {
+
+  TrainDepartureRegister trainDepartureRegister;
+
+  /**
+   * Makes an instance of TrainDepartureRegister with three train departures before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    trainDepartureRegister = new TrainDepartureRegister();
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "01", "Trondheim"));
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(11, 0), "R3", "02", "Oslo S"));
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(13, 0), "L1", "03", "Trondheim"));
+  }
+
+  private static List<String> trainNumbers(List<TrainDepartureSnapshot> departures) {
+    return departures.stream().map(TrainDepartureSnapshot::getTrainNumber).toList();
+  }
+
+  @Test
+  @DisplayName("The snapshot lists, looks up and searches departures like the register")
+  void snapshotMatchesRegister() {
+    TrainDepartureRegisterSnapshot snapshot = trainDepartureRegister.getSnapshot();
+    assertEquals(3, snapshot.size());
+    assertEquals(List.of("02", "01", "03"), trainNumbers(snapshot.getSortedTrainDepartures()));
+    assertEquals("Oslo S", snapshot.getTrainDepartureNumber("02").getDestination());
+    assertNull(snapshot.getTrainDepartureNumber("04"));
+    assertEquals(List.of("01", "03"),
+        trainNumbers(snapshot.getTrainDeparturesDestination("Trondheim")));
+    assertTrue(snapshot.getTrainDeparturesDestination("Bergen").isEmpty());
+  }
+
+  @Test
+  @DisplayName("The snapshot returns the departures in a time window, inclusive")
+  void snapshotReturnsTimeWindow() {
+    TrainDepartureRegisterSnapshot snapshot = trainDepartureRegister.getSnapshot();
+    assertEquals(List.of("02", "01"), trainNumbers(
+        snapshot.getTrainDeparturesBetween(LocalTime.of(11, 0), LocalTime.of(12, 0))));
+    assertEquals(List.of("03"), trainNumbers(
+        snapshot.getTrainDeparturesBetween(LocalTime.of(12, 1), LocalTime.of(23, 59))));
+    assertTrue(snapshot.getTrainDeparturesBetween(LocalTime.of(14, 0), LocalTime.of(15, 0))
+        .isEmpty());
+  }
+
+  @Test
+  @DisplayName("The time window of the snapshot counts the delay of the departures")
+  void snapshotTimeWindowCountsDelay() {
+    trainDepartureRegister.getTrainDepartureNumber("01").setDelay(LocalTime.of(2, 30));
+    trainDepartureRegister.getTrainDepartureNumber("03").setDelay(LocalTime.of(11, 30));
+    TrainDepartureRegisterSnapshot snapshot = trainDepartureRegister.getSnapshot();
+    assertEquals(List.of("02"), trainNumbers(
+        snapshot.getTrainDeparturesBetween(LocalTime.of(11, 0), LocalTime.of(12, 0))));
+    assertEquals(List.of("01"), trainNumbers(
+        snapshot.getTrainDeparturesBetween(LocalTime.of(14, 0), LocalTime.of(15, 0))));
+    assertEquals(List.of("01", "03"), trainNumbers(
+        snapshot.getTrainDeparturesBetween(LocalTime.of(12, 0), LocalTime.of(23, 59))));
+
+    trainDepartureRegister.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 0));
+    trainDepartureRegister.removeTrainDepartureNumber("03");
+    snapshot = trainDepartureRegister.getSnapshot();
+    assertEquals(List.of("02", "01"), trainNumbers(
+        snapshot.getTrainDeparturesBetween(LocalTime.of(0, 0), LocalTime.of(23, 59))));
+  }
+
+  @Test
+  @DisplayName("A published snapshot does not change when the register changes")
+  void snapshotIsImmutable() {
+    TrainDepartureRegisterSnapshot before = trainDepartureRegister.getSnapshot();
+    trainDepartureRegister.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 10));
+    trainDepartureRegister.getTrainDepartureNumber("01").setTrack(4);
+    trainDepartureRegister.removeTrainDepartureNumber("02");
+    TrainDepartureRegisterSnapshot after = trainDepartureRegister.getSnapshot();
+
+    assertEquals(LocalTime.of(0, 0), before.getTrainDepartureNumber("01").getDelay());
+    assertEquals(-1, before.getTrainDepartureNumber("01").getTrack());
+    assertEquals(3, before.size());
+    assertEquals(LocalTime.of(0, 10), after.getTrainDepartureNumber("01").getDelay());
+    assertEquals(4, after.getTrainDepartureNumber("01").getTrack());
+    assertEquals(2, after.size());
+    assertEquals(before.getVersion() + 3, after.getVersion());
+  }
+
+  @Test
+  @DisplayName("A clock update that expires trains is published as one version")
+  void clockUpdateIsOneVersion() {
+    long version = trainDepartureRegister.getSnapshot().getVersion();
+    trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(12, 30));
+    TrainDepartureRegisterSnapshot snapshot = trainDepartureRegister.getSnapshot();
+    assertEquals(version + 1, snapshot.getVersion());
+    assertEquals(LocalTime.of(12, 30), snapshot.getTime());
+    assertEquals(List.of("03"), trainNumbers(snapshot.getSortedTrainDepartures()));
+  }
+
+  @Test
+  @DisplayName("Reading without changes returns the same snapshot")
+  void unchangedRegisterReturnsSameSnapshot() {
+    TrainDepartureRegisterSnapshot snapshot = trainDepartureRegister.getSnapshot();
+    trainDepartureRegister.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 0));
+    trainDepartureRegister.removeTrainDepartureNumber("99");
+    assertSame(snapshot, trainDepartureRegister.getSnapshot());
+  }
+
+  @Test
+  @DisplayName("PersistentSortedSet keeps its order and earlier versions through random changes")
+  void persistentSortedSetMatchesTreeSet() {
+    Random random = new Random(42);
+    TreeSet<Integer> expected = new TreeSet<>();
+    PersistentSortedSet<Integer> set = PersistentSortedSet.empty(Integer::compare);
+    for (int i = 0; i < 5_000; i++) {
+      int value = random.nextInt(1_000);
+      PersistentSortedSet<Integer> previous = set;
+      List<Integer> previousContent = previous.toList();
+      if (random.nextBoolean()) {
+        expected.add(value);
+        set = set.add(value);
+      } else {
+        expected.remove(value);
+        set = set.remove(value);
+      }
+      assertEquals(previousContent, previous.toList());
+    }
+    assertEquals(new ArrayList<>(expected), set.toList());
+    assertEquals(expected.size(), set.size());
+    List<Integer> tail = new ArrayList<>();
+    set.forEachFrom(value -> Integer.compare(500, value), tail::add);
+    assertEquals(new ArrayList<>(expected.tailSet(500)), tail);
+  }
+}
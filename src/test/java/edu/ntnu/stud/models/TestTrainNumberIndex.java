@@ -0,0 +1,64 @@
+package edu.ntnu.stud.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestTrainNumberIndex {
+
+  TrainNumberIndex trainNumberIndex;
+
+  /**
+   * Makes an empty TrainNumberIndex before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    trainNumberIndex = new TrainNumberIndex();
+  }
+
+  private TrainDeparture train(String trainNumber) {
+    return new TrainDeparture(LocalTime.of(12, 0), "L1", trainNumber, "Trondheim");
+  }
+
+  @Test
+  @DisplayName("TrainNumberIndex.add() rejects a duplicate train number")
+  void addRejectsDuplicateTrainNumber() {
+    assertTrue(trainNumberIndex.add(train("01")));
+    assertFalse(trainNumberIndex.add(train("01")));
+    assertEquals(1, trainNumberIndex.size());
+  }
+
+  @Test
+  @DisplayName("TrainNumberIndex.get() returns the registered train and null for unknown numbers")
+  void getReturnsRegisteredTrain() {
+    TrainDeparture train = train("01");
+    trainNumberIndex.add(train);
+    assertSame(train, trainNumberIndex.get("01"));
+    assertNull(trainNumberIndex.get("1"));
+    assertNull(trainNumberIndex.get(null));
+  }
+
+  @Test
+  @DisplayName("TrainNumberIndex keeps every train reachable through resizes and removals")
+  void indexStaysConsistentAfterManyRemovals() {
+    for (int i = 0; i < 10_000; i++) {
+      trainNumberIndex.add(train(Integer.toString(i)));
+    }
+    for (int i = 0; i < 10_000; i += 2) {
+      assertEquals(Integer.toString(i),
+          trainNumberIndex.remove(Integer.toString(i)).getTrainNumber());
+    }
+    assertEquals(5_000, trainNumberIndex.size());
+    for (int i = 0; i < 10_000; i++) {
+      assertEquals(i % 2 == 1, trainNumberIndex.contains(Integer.toString(i)));
+    }
+    assertEquals(5_000, trainNumberIndex.values().size());
+  }
+}
@@ -0,0 +1,77 @@
+package edu.ntnu.stud.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestFlightRecorderEvents {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("The register emits mutation and expiry sweep events when they are enabled")
+  void registerEmitsEvents() throws IOException {
+    Path file = directory.resolve("recording.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("edu.ntnu.stud.RegisterMutation").withThreshold(Duration.ZERO);
+      recording.enable("edu.ntnu.stud.ExpirySweep").withThreshold(Duration.ZERO);
+      recording.start();
+      TrainDepartureRegister register = new TrainDepartureRegister();
+      register.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(12, 0), "L1", "01", "Trondheim"));
+      register.getTrainDepartureNumber("01").setTrack(2);
+      register.getTrainDepartureNumber("01").setDelay(LocalTime.of(0, 5));
+      register.registerTrainDepartures(List.of(
+          new TrainDeparture(LocalTime.of(13, 0), "L1", "02", "Trondheim"),
+          new TrainDeparture(LocalTime.of(14, 0), "L1", "03", "Trondheim")));
+      register.removeTrainDepartureNumber("03");
+      register.updateTimeTrainDepartureRegister(LocalTime.of(12, 30));
+      recording.stop();
+      recording.dump(file);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    List<String> mutations = events.stream()
+        .filter(event -> event.getEventType().getName().equals("edu.ntnu.stud.RegisterMutation"))
+        .map(event -> event.getString("operation") + " " + event.getString("trainNumber") + " "
+            + event.getInt("departures"))
+        .toList();
+    assertEquals(List.of("REGISTER 01 1", "TRACK 01 1", "DELAY 01 1", "REGISTER_BATCH null 2",
+        "REMOVE 03 1"), mutations);
+    RecordedEvent sweep = events.stream()
+        .filter(event -> event.getEventType().getName().equals("edu.ntnu.stud.ExpirySweep"))
+        .findFirst().orElseThrow();
+    assertEquals(1, sweep.getInt("removed"));
+    assertEquals(1, sweep.getInt("remaining"));
+    assertEquals("12:30", sweep.getString("time"));
+  }
+
+  private static String defaultThreshold(Class<? extends Event> eventClass) {
+    return EventType.getEventType(eventClass).getSettingDescriptors().stream()
+        .filter(setting -> setting.getName().equals("threshold"))
+        .findFirst().orElseThrow().getDefaultValue();
+  }
+
+  @Test
+  @DisplayName("The events only record slow occurrences by default")
+  void eventsHaveDefaultThresholds() {
+    assertEquals("1 ms", defaultThreshold(RegisterMutationEvent.class));
+    assertEquals("1 ms", defaultThreshold(ExpirySweepEvent.class));
+    assertEquals("10 ms", defaultThreshold(BoardRenderEvent.class));
+  }
+}
@@ -0,0 +1,65 @@
+package edu.ntnu.stud.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TestLatencyHistogram {
+
+  @Nested
+  @DisplayName("Positive tests for LatencyHistogram")
+  class PositiveTests {
+
+    @Test
+    @DisplayName("Every value falls in a bucket whose upper end is within 1/16 above it")
+    void bucketsHaveFixedRelativePrecision() {
+      long[] values = {0, 1, 31, 32, 33, 47, 48, 63, 64, 1000, 123_456_789, Long.MAX_VALUE};
+      for (long value : values) {
+        long highest = LatencyHistogram.highestValue(LatencyHistogram.bucket(value));
+        assertTrue(highest >= value && highest - value <= value / 16,
+            value + " was put in a bucket ending at " + highest);
+      }
+      assertEquals(LatencyHistogram.bucket(48), LatencyHistogram.bucket(49));
+      assertEquals(LatencyHistogram.bucket(31) + 1, LatencyHistogram.bucket(32));
+    }
+
+    @Test
+    @DisplayName("LatencyHistogram reports count, mean, max and percentiles")
+    void histogramReportsPercentiles() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int value = 1; value <= 1000; value++) {
+        histogram.record(value * 1000L);
+      }
+      assertEquals(1000, histogram.getCount());
+      assertEquals(500_500, histogram.getMean());
+      assertEquals(1_000_000, histogram.getMax());
+      long median = histogram.getValueAtPercentile(50);
+      assertTrue(median >= 500_000 && median <= 500_000 + 500_000 / 16);
+      assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+
+      histogram.reset();
+      assertEquals(0, histogram.getCount());
+      assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for LatencyHistogram")
+  class NegativeTests {
+
+    @Test
+    @DisplayName("LatencyHistogram.getValueAtPercentile() throws Ill.Arg.Exc. above 100")
+    void getValueAtPercentileThrowsAbove100() {
+      try {
+        new LatencyHistogram().getValueAtPercentile(101);
+        fail("The method getValueAtPercentile did not throw on 101");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The percentile must be from 0 to 100", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package edu.ntnu.stud.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import edu.ntnu.stud.monitoring.RegisterMetrics.Operation;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TestRegisterMetrics {
+
+  TrainDepartureRegister trainDepartureRegister;
+  RegisterMetrics metrics;
+
+  /**
+   * Makes a register with one train departure before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    trainDepartureRegister = new TrainDepartureRegister();
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "01", "Trondheim"));
+    metrics = trainDepartureRegister.getMetrics();
+  }
+
+  /**
+   * Registers the same train number twice, so the second registration is rejected.
+   */
+  private void registerDuplicate() {
+    try {
+      trainDepartureRegister.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(13, 0), "L1", "01", "Trondheim"));
+      fail("The duplicate train number was registered");
+    } catch (IllegalArgumentException e) {
+      // Expected, the rejection is what is counted.
+    }
+  }
+
+  @Test
+  @DisplayName("Nothing is recorded while measuring is off")
+  void nothingIsRecordedWhenDisabled() {
+    trainDepartureRegister.getTrainDepartureNumber("01");
+    registerDuplicate();
+    trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(12, 30));
+
+    assertEquals(0, metrics.getHistogram(Operation.LOOKUP).getCount());
+    assertEquals(0, metrics.getRejectedRegistrations());
+    assertEquals(0, metrics.getExpiredTrains());
+  }
+
+  @Test
+  @DisplayName("Every operation of the register is recorded while measuring is on")
+  void operationsAreRecordedWhenEnabled() {
+    metrics.setEnabled(true);
+    trainDepartureRegister.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(13, 0), "L2", "02", "Oslo S"));
+    registerDuplicate();
+    trainDepartureRegister.checkTrainNumber("02");
+    trainDepartureRegister.getTrainDepartureNumber("02");
+    trainDepartureRegister.getTrainDeparturesDestination("Oslo S");
+    trainDepartureRegister.getSortedTrainDepartures();
+    trainDepartureRegister.removeTrainDepartureNumber("02");
+    trainDepartureRegister.updateTimeTrainDepartureRegister(LocalTime.of(12, 30));
+
+    assertEquals(2, metrics.getRegisterLatency().getCount());
+    assertEquals(2, metrics.getLookupLatency().getCount());
+    assertEquals(1, metrics.getDestinationSearchLatency().getCount());
+    assertEquals(1, metrics.getSortedListingLatency().getCount());
+    assertEquals(1, metrics.getRemoveLatency().getCount());
+    assertEquals(1, metrics.getTimeUpdateLatency().getCount());
+    assertEquals(1, metrics.getRejectedRegistrations());
+    assertEquals(1, metrics.getExpiredTrains());
+
+    metrics.reset();
+    assertEquals(0, metrics.getRegisterLatency().getCount());
+    assertEquals(0, metrics.getExpiredTrains());
+  }
+
+  @Test
+  @DisplayName("RegisterMetrics.publish() makes the metrics readable and switchable through JMX")
+  void publishRegistersMxBean() throws JMException {
+    ObjectName name = metrics.publish("test");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.setAttribute(name, new javax.management.Attribute("Enabled", true));
+      assertTrue(metrics.isEnabled());
+      trainDepartureRegister.getTrainDepartureNumber("01");
+      CompositeData latency = (CompositeData) server.getAttribute(name, "LookupLatency");
+      assertEquals(1L, latency.get("count"));
+      assertEquals(1, LatencySummary.from(latency).getCount());
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+}
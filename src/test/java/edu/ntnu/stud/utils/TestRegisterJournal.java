@@ -0,0 +1,234 @@
+package edu.ntnu.stud.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestRegisterJournal {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Opens a journal for a new register in the temporary directory.
+   */
+  private RegisterJournal open(TrainDepartureRegister register, int compactionThreshold)
+      throws IOException {
+    return RegisterJournal.open(directory, register, RegisterJournal.SyncPolicy.NEVER, 4,
+        compactionThreshold);
+  }
+
+  /**
+   * Makes every kind of change the journal records.
+   */
+  private void changeRegister(TrainDepartureRegister register) {
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "23", "Trondheim"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 20), "R3", "26", "Oslo S"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 40), "B56", "25", "Stjørdal"));
+    register.getTrainDepartureNumber("23").setTrack(2);
+    register.getTrainDepartureNumber("26").setDelay(LocalTime.of(0, 30));
+    register.removeTrainDepartureNumber("25");
+    register.updateTimeTrainDepartureRegister(LocalTime.of(12, 30));
+  }
+
+  @Nested
+  @DisplayName("Positive tests for RegisterJournal")
+  class PositiveTests {
+
+    @Test
+    @DisplayName("RegisterJournal.open() recovers every committed change")
+    void openRecoversCommittedChanges() throws IOException {
+      TrainDepartureRegister register = new TrainDepartureRegister();
+      RegisterJournal journal = open(register, 1000);
+      changeRegister(register);
+      journal.commit();
+
+      TrainDepartureRegister recovered = new TrainDepartureRegister();
+      RegisterJournal reopened = open(recovered, 1000);
+
+      assertEquals(7, reopened.getRecoveredRecords());
+      assertEquals(LocalTime.of(12, 30), recovered.getTime());
+      assertNull(recovered.getTrainDepartureNumber("23"));
+      assertNull(recovered.getTrainDepartureNumber("25"));
+      TrainDeparture delayed = recovered.getTrainDepartureNumber("26");
+      assertEquals(LocalTime.of(0, 30), delayed.getDelay());
+      assertEquals(register.toString(), recovered.toString());
+    }
+
+    @Test
+    @DisplayName("A journal that is forced to disk every second recovers every committed change")
+    void everySecondPolicyRecoversCommittedChanges() throws IOException {
+      TrainDepartureRegister register = new TrainDepartureRegister();
+      RegisterJournal journal = RegisterJournal.open(directory, register,
+          RegisterJournal.SyncPolicy.EVERY_SECOND, 4, 1000);
+      changeRegister(register);
+      journal.commit();
+      journal.close();
+
+      TrainDepartureRegister recovered = new TrainDepartureRegister();
+      RegisterJournal reopened = open(recovered, 1000);
+
+      assertEquals(7, reopened.getRecoveredRecords());
+      assertEquals(register.toString(), recovered.toString());
+    }
+
+    @Test
+    @DisplayName("Closing a journal while its flusher runs keeps every record, also the "
+        + "uncommitted ones")
+    void closeWithRunningFlusherKeepsEveryRecord() throws IOException, InterruptedException {
+      TrainDepartureRegister register = new TrainDepartureRegister();
+      RegisterJournal journal = RegisterJournal.open(directory, register,
+          RegisterJournal.SyncPolicy.EVERY_SECOND, 4, Integer.MAX_VALUE);
+      int records = 0;
+      long end = System.nanoTime() + 1_500_000_000L;
+      while (System.nanoTime() < end) {
+        register.registerTrainDeparture(
+            new TrainDeparture(LocalTime.of(13, 0), "L1", "T" + records, "Trondheim"));
+        records++;
+        journal.commit();
+        Thread.sleep(1);
+      }
+      for (int i = 0; i < 3; i++) {
+        register.registerTrainDeparture(
+            new TrainDeparture(LocalTime.of(14, 0), "L1", "U" + i, "Oslo S"));
+        records++;
+      }
+      journal.close();
+
+      TrainDepartureRegister recovered = new TrainDepartureRegister();
+      RegisterJournal reopened = open(recovered, Integer.MAX_VALUE);
+
+      assertEquals(records, reopened.getRecoveredRecords());
+      assertEquals(register.toString(), recovered.toString());
+    }
+
+    @Test
+    @DisplayName("Changes made after recovery are journaled after the recovered ones")
+    void changesAfterRecoveryAreJournaled() throws IOException {
+      TrainDepartureRegister register = new TrainDepartureRegister();
+      RegisterJournal journal = open(register, 1000);
+      changeRegister(register);
+      journal.close();
+
+      TrainDepartureRegister recovered = new TrainDepartureRegister();
+      RegisterJournal reopened = open(recovered, 1000);
+      recovered.getTrainDepartureNumber("26").setTrack(5);
+      reopened.close();
+
+      TrainDepartureRegister recoveredAgain = new TrainDepartureRegister();
+      open(recoveredAgain, 1000);
+      assertEquals(5, recoveredAgain.getTrainDepartureNumber("26").getTrack());
+    }
+
+    @Test
+    @DisplayName("RegisterJournal.commit() compacts the journal into a snapshot")
+    void commitCompactsIntoSnapshot() throws IOException {
+      TrainDepartureRegister register = new TrainDepartureRegister();
+      RegisterJournal journal = open(register, 5);
+      changeRegister(register);
+      journal.commit();
+
+      assertEquals(2, journal.getGeneration());
+      assertEquals(0, journal.getJournalRecords());
+      try (var files = Files.list(directory)) {
+        assertEquals(List.of("journal-2.log", "register.snapshot"),
+            files.map(file -> file.getFileName().toString()).sorted().toList());
+      }
+      TrainDepartureRegister recovered = new TrainDepartureRegister();
+      RegisterJournal reopened = open(recovered, 5);
+      assertEquals(0, reopened.getRecoveredRecords());
+      assertEquals(register.toString(), recovered.toString());
+      assertEquals(LocalTime.of(12, 30), recovered.getTime());
+    }
+
+    @Test
+    @DisplayName("RegisterJournal.open() writes the content of a new register as the snapshot")
+    void openWritesExistingRegister() throws IOException {
+      TrainDepartureRegister register = new TrainDepartureRegister();
+      register.registerTrainDeparture(
+          new TrainDeparture(LocalTime.of(12, 0), "L1", "23", "Trondheim"));
+      assertFalse(RegisterJournal.exists(directory));
+      open(register, 1000);
+
+      assertTrue(RegisterJournal.exists(directory));
+      TrainDepartureRegister recovered = new TrainDepartureRegister();
+      open(recovered, 1000);
+      assertEquals(register.toString(), recovered.toString());
+    }
+
+    @Test
+    @DisplayName("Recovery stops before a record that was only partly written")
+    void recoveryCutsOffTornRecord() throws IOException {
+      TrainDepartureRegister register = new TrainDepartureRegister();
+      RegisterJournal journal = open(register, 1000);
+      changeRegister(register);
+      journal.close();
+      Path file = directory.resolve("journal-1.log");
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        channel.truncate(channel.size() - 2);
+      }
+
+      TrainDepartureRegister recovered = new TrainDepartureRegister();
+      RegisterJournal reopened = open(recovered, 1000);
+
+      assertEquals(6, reopened.getRecoveredRecords());
+      assertEquals(LocalTime.of(0, 0), recovered.getTime());
+      assertEquals(2, recovered.getTrainDepartureNumber("23").getTrack());
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for RegisterJournal")
+  class NegativeTests {
+
+    @Test
+    @DisplayName("RegisterJournal.open() throws if a register that is not new is recovered")
+    void openThrowsOnUsedRegister() throws IOException {
+      open(new TrainDepartureRegister(), 1000).close();
+      TrainDepartureRegister register = new TrainDepartureRegister();
+      register.updateTimeTrainDepartureRegister(LocalTime.of(10, 0));
+      try {
+        open(register, 1000);
+        fail("The test failed since the register was not new");
+      } catch (IllegalArgumentException e) {
+        assertEquals("The register can not be recovered from " + directory
+            + ". Since it is not empty", e.getMessage());
+      }
+    }
+
+    @Test
+    @DisplayName("RegisterJournal.open() throws on a damaged snapshot")
+    void openThrowsOnDamagedSnapshot() throws IOException {
+      open(new TrainDepartureRegister(), 1000).close();
+      Path snapshot = directory.resolve("register.snapshot");
+      byte[] bytes = Files.readAllBytes(snapshot);
+      bytes[10] ^= 1;
+      Files.write(snapshot, bytes);
+      try {
+        open(new TrainDepartureRegister(), 1000);
+        fail("The test failed since the snapshot was damaged");
+      } catch (IOException e) {
+        assertEquals("The snapshot in " + directory + " is damaged", e.getMessage());
+      }
+    }
+  }
+}
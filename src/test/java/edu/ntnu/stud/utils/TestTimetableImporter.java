@@ -0,0 +1,78 @@
+package edu.ntnu.stud.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestTimetableImporter {
+
+  TrainDepartureRegister trainDepartureRegister;
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Makes an empty TrainDepartureRegister before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    trainDepartureRegister = new TrainDepartureRegister();
+  }
+
+  @Test
+  @DisplayName("TimetableImporter.importFile() imports a comma separated file with a header")
+  void importFileReadsCommaSeparatedFile() throws IOException {
+    Path file = directory.resolve("timetable.csv");
+    Files.writeString(file, "time,line,number,destination,track\r\n"
+        + "12:00,L1,23,Trondheim,1\r\n"
+        + "9:05, R3 ,26,Stjørdal,\r\n"
+        + "\r\n"
+        + "12:40,B56,25,Røros", StandardCharsets.UTF_8);
+    TimetableImporter.Result result =
+        TimetableImporter.forFile(file).importFile(file, trainDepartureRegister);
+
+    assertEquals(3, result.getRowsRead());
+    assertEquals(3, result.getRowsRegistered());
+    assertEquals(0, result.getMalformedRows());
+    TrainDeparture train = trainDepartureRegister.getTrainDepartureNumber("26");
+    assertEquals(LocalTime.of(9, 5), train.getDepartureTime());
+    assertEquals("R3", train.getLine());
+    assertEquals("Stjørdal", train.getDestination());
+    assertEquals(-1, train.getTrack());
+    assertEquals(1, trainDepartureRegister.getTrainDepartureNumber("23").getTrack());
+  }
+
+  @Test
+  @DisplayName("TimetableImporter reports malformed lines and rejected duplicates")
+  void importReportsMalformedAndRejectedRows() throws IOException {
+    String timetable = "12:00\tL1\t23\tTrondheim\n"
+        + "25:00\tL1\t24\tTrondheim\n"
+        + "12:10\tL1\t\tTrondheim\n"
+        + "12:20\tL1\t23\tOslo S\n"
+        + "12:30\tL1\t27\tOslo S\tA\n"
+        + "12:40\tL1\t28\n";
+    TimetableImporter.Result result = new TimetableImporter('\t').importStream(
+        new ByteArrayInputStream(timetable.getBytes(StandardCharsets.UTF_8)),
+        trainDepartureRegister);
+
+    assertEquals(6, result.getRowsRead());
+    assertEquals(1, result.getRowsRegistered());
+    assertEquals(4, result.getMalformedRows());
+    assertEquals(List.of(2, 3, 5, 6), result.getMalformedLines());
+    assertEquals(1, result.getRejectedRows());
+    assertEquals("Trondheim",
+        trainDepartureRegister.getTrainDepartureNumber("23").getDestination());
+  }
+}
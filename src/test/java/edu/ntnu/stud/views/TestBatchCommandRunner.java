@@ -0,0 +1,111 @@
+package edu.ntnu.stud.views;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import edu.ntnu.stud.utils.Utils;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TestBatchCommandRunner {
+
+  TrainDepartureRegister register;
+  StringWriter out;
+  BatchCommandRunner runner;
+
+  /**
+   * Creates an empty register and a runner writing to a string before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    register = new TrainDepartureRegister();
+    out = new StringWriter();
+    runner = new BatchCommandRunner(register, out);
+  }
+
+  private void run(String commands) throws IOException {
+    runner.run(new BufferedReader(new StringReader(commands)));
+  }
+
+  @Nested
+  @DisplayName("Positive tests for BatchCommandRunner")
+  public class methodsDoesNotThrowException {
+
+    @Test
+    @DisplayName("BatchCommandRunner.run() runs every kind of command")
+    void runRunsCommands() throws IOException {
+      run("""
+          # a comment
+          add 12:00 L1 23 Oslo S
+          add 9:05 R3 26 Trondheim
+
+          track 23 4
+          delay 26 00:30
+          add 13:00 B56 25 Stjørdal
+          remove 25
+          tick 09:20
+          """);
+
+      assertEquals(7, runner.getCommandsRun());
+      assertEquals(0, runner.getCommandsFailed());
+      assertEquals("Oslo S", register.getTrainDepartureNumber("23").getDestination());
+      assertEquals(4, register.getTrainDepartureNumber("23").getTrack());
+      assertEquals(LocalTime.of(9, 5), register.getTrainDepartureNumber("26").getDepartureTime());
+      assertEquals(LocalTime.of(0, 30), register.getTrainDepartureNumber("26").getDelay());
+      assertNull(register.getTrainDepartureNumber("25"));
+      assertEquals(LocalTime.of(9, 20), register.getTime());
+      assertEquals("", out.toString());
+    }
+
+    @Test
+    @DisplayName("BatchCommandRunner.run() lists the board in departure order")
+    void listPrintsBoard() throws IOException {
+      run("add 12:00 L1 23 Oslo S\nadd 11:00 R3 26 Trondheim\nlist\n");
+
+      String expected = "Time now: 00:00" + System.lineSeparator()
+          + Utils.BOARD_HEADER + System.lineSeparator()
+          + register.getTrainDepartureNumber("26").printTrainDeparture() + System.lineSeparator()
+          + register.getTrainDepartureNumber("23").printTrainDeparture() + System.lineSeparator();
+      assertEquals(expected, out.toString());
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for BatchCommandRunner")
+  public class methodThrowsExceptions {
+
+    @Test
+    @DisplayName("BatchCommandRunner.run() reports failed commands and runs the rest")
+    void runReportsFailedCommands() throws IOException {
+      run("""
+          add 12:00 L1 23 Oslo S
+          add 12:00 L1 23 Oslo S
+          track 99 1
+          delay 23 25:00
+          fly 23
+          track 23
+          track 23 2
+          """);
+
+      assertEquals(7, runner.getCommandsRun());
+      assertEquals(5, runner.getCommandsFailed());
+      assertEquals(2, register.getTrainDepartureNumber("23").getTrack());
+      String[] lines = out.toString().split(System.lineSeparator());
+      assertEquals(5, lines.length);
+      assertTrue(lines[0].startsWith("Line 2: "));
+      assertEquals("Line 3: No train departure with number 99", lines[1]);
+      assertEquals("Line 4: Invalid time 25:00, use HH:mm", lines[2]);
+      assertEquals("Line 5: Unknown command fly", lines[3]);
+      assertEquals("Line 6: Usage: track number track", lines[4]);
+    }
+  }
+}
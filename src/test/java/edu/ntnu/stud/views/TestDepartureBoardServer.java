@@ -0,0 +1,160 @@
+package edu.ntnu.stud.views;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ntnu.stud.models.TrainDeparture;
+import edu.ntnu.stud.models.TrainDepartureRegister;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class TestDepartureBoardServer {
+
+  TrainDepartureRegister register;
+  DepartureBoardServer server;
+  HttpClient client;
+
+  /**
+   * Starts a server on a free port for a register with three train departures before each test.
+   */
+  @BeforeEach
+  public void setup() throws IOException {
+    register = new TrainDepartureRegister();
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(12, 0), "L1", "23", "Trondheim"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(11, 0), "R3", "26", "Oslo S"));
+    register.registerTrainDeparture(
+        new TrainDeparture(LocalTime.of(13, 0), "L1", "25", "Trondheim"));
+    server = DepartureBoardServer.start(new InetSocketAddress("localhost", 0),
+        register::getSnapshot);
+    client = HttpClient.newHttpClient();
+  }
+
+  /**
+   * Stops the server after each test.
+   */
+  @AfterEach
+  public void tearDown() {
+    server.close();
+  }
+
+  private HttpResponse<String> get(String path, String etag)
+      throws IOException, InterruptedException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(
+        URI.create("http://localhost:" + server.getPort() + path));
+    if (etag != null) {
+      request.header("If-None-Match", etag);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  @Nested
+  @DisplayName("Positive tests for DepartureBoardServer")
+  public class methodsDoesNotThrowException {
+
+    @Test
+    @DisplayName("GET /departures returns the board in departure order with the version as ETag")
+    void boardIsReturnedInOrder() throws IOException, InterruptedException {
+      HttpResponse<String> response = get("/departures", null);
+
+      long version = register.getSnapshot().getVersion();
+      assertEquals(200, response.statusCode());
+      assertEquals("\"" + version + "\"", response.headers().firstValue("ETag").orElse(""));
+      assertEquals(Long.toString(version),
+          response.headers().firstValue("X-Register-Version").orElse(""));
+      assertEquals("{\"version\":" + version + ",\"time\":\"00:00\",\"departures\":["
+          + "{\"departureTime\":\"11:00\",\"line\":\"R3\",\"trainNumber\":\"26\","
+          + "\"destination\":\"Oslo S\",\"track\":-1,\"delay\":\"00:00\"},"
+          + "{\"departureTime\":\"12:00\",\"line\":\"L1\",\"trainNumber\":\"23\","
+          + "\"destination\":\"Trondheim\",\"track\":-1,\"delay\":\"00:00\"},"
+          + "{\"departureTime\":\"13:00\",\"line\":\"L1\",\"trainNumber\":\"25\","
+          + "\"destination\":\"Trondheim\",\"track\":-1,\"delay\":\"00:00\"}]}",
+          response.body());
+    }
+
+    @Test
+    @DisplayName("An unchanged board returns 304, a changed board returns the new version")
+    void unchangedBoardReturnsNotModified() throws IOException, InterruptedException {
+      String etag = get("/departures", null).headers().firstValue("ETag").orElseThrow();
+
+      assertEquals(304, get("/departures", etag).statusCode());
+      register.getTrainDepartureNumber("23").setTrack(2);
+      HttpResponse<String> response = get("/departures", etag);
+      assertEquals(200, response.statusCode());
+      assertTrue(response.body().contains("\"trainNumber\":\"23\",\"destination\":\"Trondheim\","
+          + "\"track\":2"));
+    }
+
+    @Test
+    @DisplayName("The train number, destination and time window queries return their departures")
+    void queriesReturnTheirDepartures() throws IOException, InterruptedException {
+      assertTrue(get("/departures/26", null).body().startsWith(
+          "{\"departureTime\":\"11:00\",\"line\":\"R3\",\"trainNumber\":\"26\""));
+
+      String destination = get("/departures?destination=Oslo%20S", null).body();
+      assertTrue(destination.contains("\"trainNumber\":\"26\""));
+      assertFalse(destination.contains("\"trainNumber\":\"23\""));
+
+      String window = get("/departures?from=11:30&to=12:59", null).body();
+      assertTrue(window.contains("\"trainNumber\":\"23\""));
+      assertFalse(window.contains("\"trainNumber\":\"26\""));
+      assertFalse(window.contains("\"trainNumber\":\"25\""));
+
+      register.getTrainDepartureNumber("26").setDelay(LocalTime.of(1, 0));
+      String delayed = get("/departures?from=11:30&to=12:59", null).body();
+      assertTrue(delayed.contains("\"trainNumber\":\"26\""));
+    }
+  }
+
+  @Nested
+  @DisplayName("Negative tests for DepartureBoardServer")
+  public class methodThrowsExceptions {
+
+    @Test
+    @DisplayName("An unknown train number returns 404")
+    void unknownTrainNumberReturnsNotFound() throws IOException, InterruptedException {
+      HttpResponse<String> response = get("/departures/99", null);
+      assertEquals(404, response.statusCode());
+      assertEquals("{\"error\":\"No train departure with number 99\"}", response.body());
+    }
+
+    @Test
+    @DisplayName("An unknown path returns 404, also with an If-None-Match of the current version")
+    void unknownPathReturnsNotFound() throws IOException, InterruptedException {
+      String etag = get("/departures", null).headers().firstValue("ETag").orElseThrow();
+      HttpResponse<String> response = get("/departuresx", etag);
+      assertEquals(404, response.statusCode());
+      assertEquals("{\"error\":\"Not found\"}", response.body());
+    }
+
+    @Test
+    @DisplayName("An invalid time in a time window returns 400")
+    void invalidTimeReturnsBadRequest() throws IOException, InterruptedException {
+      HttpResponse<String> response = get("/departures?from=25:00", null);
+      assertEquals(400, response.statusCode());
+      assertEquals("{\"error\":\"Invalid time 25:00, use HH:mm\"}", response.body());
+    }
+
+    @Test
+    @DisplayName("A request that is not GET or HEAD returns 405")
+    void postReturnsMethodNotAllowed() throws IOException, InterruptedException {
+      HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+              URI.create("http://localhost:" + server.getPort() + "/departures"))
+          .POST(HttpRequest.BodyPublishers.noBody()).build(),
+          HttpResponse.BodyHandlers.ofString());
+      assertEquals(405, response.statusCode());
+    }
+  }
+}